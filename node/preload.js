@@ -217,13 +217,7 @@ async function translateText(text, sourceLang, targetLang) {
         });
 
         if (response.status === 401) {
-            // 授权过期
-            console.warn('[Translator] 授权已过期');
-            isAuthorized = false;
-            authToken = null;
-            localStorage.removeItem(STORAGE_KEY_TOKEN);
-            localStorage.removeItem(STORAGE_KEY_EXPIRE);
-            showActivationDialog();
+            handleUnauthorized();
             return null;
         }
 
@@ -241,6 +235,176 @@ async function translateText(text, sourceLang, targetLang) {
     }
 }
 
+/**
+ * 流式翻译（SSE）：onDelta 收到当前已生成的译文，返回完整译文
+ */
+async function translateTextStream(text, sourceLang, targetLang, onDelta) {
+    if (!isAuthorized || !authToken) {
+        console.warn('[Translator] 未授权，无法翻译');
+        return null;
+    }
+
+    try {
+        const response = await fetch(`${API_BASE_URL}/api/translate/stream`, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json',
+                'Accept': 'text/event-stream',
+                'X-Auth-Token': authToken,
+                'X-Device-Id': machineId,
+                // 发送框翻译：用户等待结果才能发送，优先调度
+                'X-Translate-Priority': 'interactive'
+            },
+            body: JSON.stringify({
+                text,
+                sourceLang: sourceLang === 'zh-CN' ? 'zh' : sourceLang,
+                targetLang: targetLang === 'zh-CN' ? 'zh' : targetLang
+            })
+        });
+
+        if (response.status === 401) {
+            handleUnauthorized();
+            return null;
+        }
+
+        // 429 等错误在开始推送前返回，不是事件流
+        if (!response.ok) {
+            console.error('[Translator] 流式翻译失败:', response.status);
+            return null;
+        }
+
+        const reader = response.body.getReader();
+        const decoder = new TextDecoder();
+        let buffer = '';
+        let partial = '';
+
+        while (true) {
+            const { value, done } = await reader.read();
+            if (done) break;
+            buffer += decoder.decode(value, { stream: true });
+
+            // SSE 事件以空行分隔
+            let boundary;
+            while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+                const rawEvent = buffer.substring(0, boundary);
+                buffer = buffer.substring(boundary + 2);
+
+                let event = 'message';
+                const dataLines = [];
+                // Spring 写出的是 "data:" 后直接跟内容（无空格），增量开头的空格是译文的一部分，不能去掉
+                rawEvent.split('\n').forEach(line => {
+                    if (line.startsWith('event:')) event = line.substring(6).trim();
+                    else if (line.startsWith('data:')) dataLines.push(line.substring(5));
+                });
+                const data = dataLines.join('\n');
+
+                if (event === 'delta') {
+                    partial += data;
+                    if (onDelta) onDelta(partial);
+                } else if (event === 'done') {
+                    return data;
+                } else if (event === 'error') {
+                    console.error('[Translator] 翻译失败:', data);
+                    return null;
+                }
+            }
+        }
+
+        return null;
+    } catch (error) {
+        console.error('[Translator] 流式翻译请求失败:', error);
+        return null;
+    }
+}
+
+/**
+ * 授权过期处理
+ */
+function handleUnauthorized() {
+    console.warn('[Translator] 授权已过期');
+    isAuthorized = false;
+    authToken = null;
+    localStorage.removeItem(STORAGE_KEY_TOKEN);
+    localStorage.removeItem(STORAGE_KEY_EXPIRE);
+    showActivationDialog();
+}
+
+// 气泡翻译批量合并：短时间窗口内的请求合并为一次 /api/translate/batch
+const BATCH_WINDOW_MS = 30;
+const BATCH_MAX_ITEMS = 50;
+let pendingBatch = [];
+let batchTimer = null;
+
+/**
+ * 气泡翻译（合并进批量请求）
+ */
+function translateTextBatched(text, sourceLang, targetLang) {
+    if (!isAuthorized || !authToken) {
+        console.warn('[Translator] 未授权，无法翻译');
+        return Promise.resolve(null);
+    }
+
+    return new Promise(resolve => {
+        pendingBatch.push({
+            item: {
+                text,
+                sourceLang: sourceLang === 'zh-CN' ? 'zh' : sourceLang,
+                targetLang: targetLang === 'zh-CN' ? 'zh' : targetLang
+            },
+            resolve
+        });
+
+        if (pendingBatch.length >= BATCH_MAX_ITEMS) {
+            flushBatch();
+        } else if (!batchTimer) {
+            batchTimer = setTimeout(flushBatch, BATCH_WINDOW_MS);
+        }
+    });
+}
+
+async function flushBatch() {
+    clearTimeout(batchTimer);
+    batchTimer = null;
+    const batch = pendingBatch;
+    pendingBatch = [];
+    if (batch.length === 0) return;
+
+    try {
+        const response = await fetch(`${API_BASE_URL}/api/translate/batch`, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json',
+                'X-Auth-Token': authToken,
+                'X-Device-Id': machineId,
+                // 气泡翻译可以稍后显示，刷屏时排队过久的请求由服务端丢弃
+                'X-Translate-Priority': 'background'
+            },
+            body: JSON.stringify({ items: batch.map(entry => entry.item) })
+        });
+
+        if (response.status === 401) {
+            handleUnauthorized();
+            batch.forEach(entry => entry.resolve(null));
+            return;
+        }
+
+        const data = await response.json();
+        const results = data.success && Array.isArray(data.results) ? data.results : [];
+
+        batch.forEach((entry, i) => {
+            const result = results[i];
+            entry.resolve(result && result.success && result.translatedText ? result.translatedText : null);
+        });
+
+        if (!data.success) {
+            console.error('[Translator] 批量翻译失败:', data.error);
+        }
+    } catch (error) {
+        console.error('[Translator] 批量翻译请求失败:', error);
+        batch.forEach(entry => entry.resolve(null));
+    }
+}
+
 // ========== 语言检测 ==========
 
 /**
@@ -358,7 +522,7 @@ async function processMessage(bubbleElement) {
     bubbleElement.dataset.translated = 'processing';
     console.log('[Translator] 正在处理:', text.substring(0, 30));
 
-    const translatedText = await translateText(text, sourceLang, targetLang);
+    const translatedText = await translateTextBatched(text, sourceLang, targetLang);
 
     if (translatedText && translatedText.toLowerCase() !== text.toLowerCase()) {
         // 寻找合适的插入位置：通常是气泡内容的末尾
@@ -503,10 +667,19 @@ async function handleOutgoingAction(event, triggerType, targetBtn = null) {
 
         // 4. 翻译
         console.log('[Translator] 🌐 开始翻译...');
-        const translated = await translateText(text, 'zh-CN', 'en');
+        // 流式翻译：边生成边显示到输入框，完成后以完整译文为准
+        const writeInput = (value) => {
+            if (inputEl.hasAttribute('contenteditable')) {
+                inputEl.innerText = value;
+            } else {
+                inputEl.value = value;
+            }
+        };
+        const translated = await translateTextStream(text, 'zh-CN', 'en', writeInput);
 
         if (!translated) {
             console.error('[Translator] ❌ 翻译失败');
+            writeInput(text); // 还原原文
             sendingFlags.delete(inputEl);
             if (targetBtn) delete targetBtn.dataset.intercepting;
             return;
@@ -515,11 +688,7 @@ async function handleOutgoingAction(event, triggerType, targetBtn = null) {
         console.log('[Translator] ✅ 翻译成功:', translated.substring(0, 30) + '...');
 
         // 5. 注入翻译后的文本
-        if (inputEl.hasAttribute('contenteditable')) {
-            inputEl.innerText = translated;
-        } else {
-            inputEl.value = translated;
-        }
+        writeInput(translated);
 
         // 标记这个输入框的文本已经是翻译后的
         translatedInputs.set(inputEl, translated);
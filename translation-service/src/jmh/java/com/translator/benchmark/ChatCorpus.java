@@ -0,0 +1,63 @@
+package com.translator.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基准测试用聊天语料（chat-messages.txt）
+ *
+ * 基准方法按顺序轮询语料，避免 JIT 针对单一输入常量折叠。
+ *
+ * @author mac
+ */
+public final class ChatCorpus {
+
+    private static final String RESOURCE = "/chat-messages.txt";
+
+    private static final List<Message> MESSAGES = load();
+
+    public record Message(String sourceLang, String text) {
+    }
+
+    private ChatCorpus() {
+    }
+
+    public static List<Message> messages() {
+        return MESSAGES;
+    }
+
+    /**
+     * 译文目标语言：中文消息翻成英文，其余翻成中文（与前端默认设置一致）
+     */
+    public static String targetLang(Message message) {
+        return message.sourceLang().startsWith("zh") ? "en" : "zh";
+    }
+
+    private static List<Message> load() {
+        try (InputStream in = ChatCorpus.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("找不到语料文件: " + RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            List<Message> messages = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                int tab = line.indexOf('\t');
+                messages.add(new Message(line.substring(0, tab), line.substring(tab + 1).replace("\\n", "\n")));
+            }
+            return Collections.unmodifiableList(messages);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
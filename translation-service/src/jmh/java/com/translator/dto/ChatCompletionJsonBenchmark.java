@@ -0,0 +1,94 @@
+package com.translator.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.translator.benchmark.ChatCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatCompletion* DTO 的 Jackson 序列化 / 反序列化（每次上游调用各一次，流式每个增量一次）
+ *
+ * ObjectMapper 使用 Jackson2ObjectMapperBuilder 默认配置，与 Spring Boot 注入的实例一致。
+ *
+ * @author mac
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatCompletionJsonBenchmark {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ChatCompletionRequest[] requests;
+    private String[] responses;
+    private String[] chunks;
+    private int index;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        List<ChatCorpus.Message> messages = ChatCorpus.messages();
+        int size = messages.size();
+        requests = new ChatCompletionRequest[size];
+        responses = new String[size];
+        chunks = new String[size];
+        for (int i = 0; i < size; i++) {
+            String text = messages.get(i).text();
+            requests[i] = ChatCompletionRequest.builder()
+                    .model("gpt-3.5-turbo")
+                    .messages(Collections.singletonList(ChatCompletionRequest.Message.builder()
+                            .role("user")
+                            .content("请将以下英文翻译成中文，只返回翻译结果，不要有任何其他内容：\n\n" + text)
+                            .build()))
+                    .build();
+            String content = objectMapper.writeValueAsString(text);
+            responses[i] = "{\"id\":\"chatcmpl-8x1Yq2\",\"object\":\"chat.completion\",\"created\":1700000000,"
+                    + "\"model\":\"gpt-3.5-turbo-0125\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\","
+                    + "\"content\":" + content + "},\"logprobs\":null,\"finish_reason\":\"stop\"}],"
+                    + "\"usage\":{\"prompt_tokens\":" + (40 + text.length() / 2) + ",\"completion_tokens\":"
+                    + (text.length() / 2 + 1) + ",\"total_tokens\":" + (41 + text.length()) + "},"
+                    + "\"system_fingerprint\":\"fp_3b956da36b\"}";
+            String delta = objectMapper.writeValueAsString(text.substring(0, Math.min(4, text.length())));
+            chunks[i] = "{\"id\":\"chatcmpl-8x1Yq2\",\"object\":\"chat.completion.chunk\",\"created\":1700000000,"
+                    + "\"model\":\"gpt-3.5-turbo-0125\",\"choices\":[{\"index\":0,\"delta\":{\"content\":" + delta + "},"
+                    + "\"logprobs\":null,\"finish_reason\":null}]}";
+        }
+    }
+
+    private int next() {
+        int current = index;
+        index = index + 1 == requests.length ? 0 : index + 1;
+        return current;
+    }
+
+    @Benchmark
+    public byte[] serializeRequest() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(requests[next()]);
+    }
+
+    @Benchmark
+    public ChatCompletionResponse deserializeResponse() throws JsonProcessingException {
+        return objectMapper.readValue(responses[next()], ChatCompletionResponse.class);
+    }
+
+    @Benchmark
+    public ChatCompletionChunk deserializeChunk() throws JsonProcessingException {
+        return objectMapper.readValue(chunks[next()], ChatCompletionChunk.class);
+    }
+}
@@ -0,0 +1,79 @@
+package com.translator.engine;
+
+import com.translator.benchmark.ChatCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt 构建：OpenAiChatEngine.buildTranslationPrompt（String.format）与 buildBatchPrompt
+ *
+ * @author mac
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptBenchmark {
+
+    // Prompt 构建不访问 WebClient 等依赖
+    private final OpenAiChatEngine engine = new OpenAiChatEngine(null, null, null, null);
+    private final List<ChatCorpus.Message> messages = ChatCorpus.messages();
+    private int index;
+
+    @State(Scope.Thread)
+    public static class Batches {
+
+        // 批量翻译每批条数（前端一次提交的可见消息数）
+        @Param({"8", "32"})
+        public int batchSize;
+
+        private List<List<String>> batches;
+        private int index;
+
+        @Setup
+        public void setup() {
+            List<ChatCorpus.Message> messages = ChatCorpus.messages();
+            batches = new ArrayList<>();
+            for (int offset = 0; offset < messages.size(); offset++) {
+                List<String> batch = new ArrayList<>(batchSize);
+                for (int i = 0; i < batchSize; i++) {
+                    batch.add(messages.get((offset + i) % messages.size()).text());
+                }
+                batches.add(batch);
+            }
+        }
+
+        private List<String> next() {
+            List<String> batch = batches.get(index);
+            index = index + 1 == batches.size() ? 0 : index + 1;
+            return batch;
+        }
+    }
+
+    @Benchmark
+    public String translationPrompt() {
+        ChatCorpus.Message message = messages.get(index);
+        index = index + 1 == messages.size() ? 0 : index + 1;
+        return engine.buildTranslationPrompt(message.text(), message.sourceLang(), ChatCorpus.targetLang(message));
+    }
+
+    @Benchmark
+    public String batchPrompt(Batches batches) {
+        return engine.buildBatchPrompt(batches.next(), "en", "zh");
+    }
+}
@@ -0,0 +1,53 @@
+package com.translator.service;
+
+import com.translator.benchmark.ChatCorpus;
+import com.translator.dto.TranslateRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存 Key 生成：TranslationService.buildCacheKey（MD5 + 十六进制拼接），每个请求及每个分句都会调用
+ *
+ * @author mac
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    private TranslateRequest[] requests;
+    private int index;
+
+    @Setup
+    public void setup() {
+        requests = ChatCorpus.messages().stream()
+                .map(message -> {
+                    TranslateRequest request = new TranslateRequest();
+                    request.setText(message.text());
+                    request.setSourceLang(message.sourceLang());
+                    request.setTargetLang(ChatCorpus.targetLang(message));
+                    return request;
+                })
+                .toArray(TranslateRequest[]::new);
+    }
+
+    @Benchmark
+    public String buildCacheKey() {
+        TranslateRequest request = requests[index];
+        index = index + 1 == requests.length ? 0 : index + 1;
+        return TranslationService.buildCacheKey(request);
+    }
+}
@@ -0,0 +1,154 @@
+package com.translator.service;
+
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 授权校验：ActivationService.validateCode（每个翻译请求经 AuthInterceptor 调用一次）
+ *
+ * - localHit：命中本地授权缓存（常态）
+ * - redisHit：本地缓存关闭，读 Redis 并解析 "expireTimestamp|deviceId"（Redis 以内存 Map 代替，不含网络往返）
+ * - knownInvalid：负缓存拒绝
+ *
+ * @author mac
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidateCodeBenchmark {
+
+    private static final int CODES = 1024;
+
+    private String[] codes;
+    private String[] devices;
+    private String[] invalidCodes;
+
+    private ActivationService withLocalCache;
+    private ActivationService redisOnly;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        private int next() {
+            int current = index;
+            index = (index + 1) & (CODES - 1);
+            return current;
+        }
+    }
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        codes = new String[CODES];
+        devices = new String[CODES];
+        invalidCodes = new String[CODES];
+        Map<String, String> redis = new HashMap<>();
+        long expireTimestamp = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(30);
+        for (int i = 0; i < CODES; i++) {
+            codes[i] = UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
+            devices[i] = UUID.randomUUID().toString();
+            invalidCodes[i] = "X" + codes[i].substring(1);
+            redis.put("translator:code:" + codes[i], expireTimestamp + "|" + devices[i]);
+        }
+
+        withLocalCache = newService(redis, true);
+        redisOnly = newService(redis, false);
+        for (int i = 0; i < CODES; i++) {
+            withLocalCache.validateCode(codes[i], devices[i]);
+            withLocalCache.validateCode(codes[i], devices[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean localHit(Cursor cursor) {
+        int i = cursor.next();
+        return withLocalCache.validateCode(codes[i], devices[i]);
+    }
+
+    @Benchmark
+    public boolean redisHit(Cursor cursor) {
+        int i = cursor.next();
+        return redisOnly.validateCode(codes[i], devices[i]);
+    }
+
+    @Benchmark
+    public boolean knownInvalid(Cursor cursor) {
+        int i = cursor.next();
+        return withLocalCache.validateCode(invalidCodes[i], devices[i]);
+    }
+
+    private ActivationService newService(Map<String, String> redis, boolean localCache)
+            throws ReflectiveOperationException {
+        AuthorizationCache authorizationCache = new AuthorizationCache();
+        set(authorizationCache, "enabled", localCache);
+        set(authorizationCache, "maxSize", 100_000L);
+        set(authorizationCache, "ttl", Duration.ofMinutes(10));
+        set(authorizationCache, "negativeMaxSize", 100_000L);
+        set(authorizationCache, "negativeTtl", Duration.ofMinutes(10));
+        authorizationCache.init();
+        for (String invalid : invalidCodes) {
+            authorizationCache.markInvalid(invalid);
+        }
+
+        // 布隆过滤器未启用时放行全部激活码；数据库路径不在基准范围内；失效广播未初始化，不发送消息
+        TranslationMetrics metrics = new TranslationMetrics(new SimpleMeterRegistry());
+        return new ActivationService(null, new MapRedisTemplate(redis), authorizationCache,
+                new ActivationCodeBloomFilter(null), metrics,
+                new AuthInvalidationBus(null, authorizationCache, null, metrics));
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * 只支持 opsForValue().get 的内存 Redis
+     */
+    private static final class MapRedisTemplate extends StringRedisTemplate {
+
+        private final ValueOperations<String, String> valueOps;
+
+        @SuppressWarnings("unchecked")
+        private MapRedisTemplate(Map<String, String> data) {
+            this.valueOps = (ValueOperations<String, String>) Proxy.newProxyInstance(
+                    ValueOperations.class.getClassLoader(),
+                    new Class<?>[]{ValueOperations.class},
+                    (proxy, method, args) -> {
+                        if ("get".equals(method.getName()) && args.length == 1) {
+                            return data.get((String) args[0]);
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        @Override
+        public ValueOperations<String, String> opsForValue() {
+            return valueOps;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.translator.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个接口的延迟样本（纳秒），保留全部样本，结束时排序计算精确分位数
+ *
+ * @author mac
+ */
+public class LatencyRecorder {
+
+    private final String name;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder errors = new LongAdder();
+    private long[] samples = new long[1 << 16];
+    private int size;
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos, boolean success) {
+        if (!success) {
+            errors.increment();
+        }
+        lock.lock();
+        try {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void reset() {
+        lock.lock();
+        try {
+            size = 0;
+            errors.reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 一行汇总：请求数、错误数、吞吐、p50 / p90 / p99 / p999 / max（毫秒）
+     */
+    public String summary(double seconds) {
+        long[] sorted;
+        lock.lock();
+        try {
+            sorted = Arrays.copyOf(samples, size);
+        } finally {
+            lock.unlock();
+        }
+        if (sorted.length == 0) {
+            return String.format("%-10s 无请求", name);
+        }
+        Arrays.sort(sorted);
+        return String.format("%-10s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                name, sorted.length, errors.sum(), sorted.length / seconds,
+                millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 0.999),
+                sorted[sorted.length - 1] / 1_000_000.0);
+    }
+
+    public static String header() {
+        return String.format("%-10s %9s %7s %10s %9s %9s %9s %9s %9s",
+                "endpoint", "requests", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+}
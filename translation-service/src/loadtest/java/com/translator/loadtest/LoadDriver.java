@@ -0,0 +1,291 @@
+package com.translator.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测客户端：按配置的并发、命中比例与激活比例驱动 /api/translate 与 /api/activate
+ *
+ * - 闭环模式（rate=0）：concurrency 个虚拟线程各自循环发请求，测的是给定并发下的吞吐上限
+ * - 开环模式（rate>0）：按固定到达速率发请求，延迟从计划发送时间算起，不受协调遗漏（coordinated omission）影响
+ *
+ * 命中请求从预热过的 hot-texts 中随机选取，未命中请求每次生成新文本。
+ * background-ratio 比例的翻译请求带 X-Translate-Priority: background（模拟聊天气泡），延迟单独统计。
+ *
+ * @author mac
+ */
+@Slf4j
+public class LoadDriver {
+
+    private static final String[] TEMPLATES = {
+            "Can you confirm order %d ships today?",
+            "The price for item %d is still $2.35 per piece, right?",
+            "Please send me the tracking number for package %d",
+            "I'll transfer the deposit for contract %d tomorrow morning",
+            "Is model %d available in matte black?",
+            "We need %d more cartons before the end of the month",
+            "Meeting moved to room %d, see you there",
+            "Did the supplier reply about sample %d yet?"
+    };
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final List<LoadTestApplication.Device> devices;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final AtomicLong missSequence;
+
+    private final LatencyRecorder translateLatency = new LatencyRecorder("translate");
+    private final LatencyRecorder backgroundLatency = new LatencyRecorder("translate-bg");
+    private final LatencyRecorder activateLatency = new LatencyRecorder("activate");
+    // 失败原因（HTTP 状态码 + 响应中的 error / message）-> 次数
+    private final Map<String, LongAdder> errorReasons = new ConcurrentHashMap<>();
+
+    public LoadDriver(LoadTestOptions options, String baseUrl, List<LoadTestApplication.Device> devices) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.devices = devices;
+        this.missSequence = new AtomicLong(options.hotTexts());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * 首次激活全部设备（走数据库绑定路径）
+     */
+    public void activateAll() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        Semaphore permits = new Semaphore(32);
+        for (LoadTestApplication.Device device : devices) {
+            permits.acquire();
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    if (!activate(device)) {
+                        throw new IllegalStateException("激活失败: " + device.code());
+                    }
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * 预热：每条热点文本翻译一次，写入缓存
+     */
+    public void warmHotTexts() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        Semaphore permits = new Semaphore(options.concurrency());
+        for (int i = 0; i < options.hotTexts(); i++) {
+            String text = text(i);
+            permits.acquire();
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    translate(randomDevice(), text);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * 运行一个阶段，返回实际持续秒数
+     */
+    public double run(Duration duration) throws InterruptedException {
+        translateLatency.reset();
+        backgroundLatency.reset();
+        activateLatency.reset();
+        errorReasons.clear();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        if (options.rate() > 0) {
+            runOpenLoop(start, deadline);
+        } else {
+            runClosedLoop(deadline);
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    public String report(double seconds) {
+        StringBuilder report = new StringBuilder()
+                .append(LatencyRecorder.header()).append('\n')
+                .append(translateLatency.summary(seconds)).append('\n')
+                .append(options.backgroundRatio() > 0 ? backgroundLatency.summary(seconds) + "\n" : "")
+                .append(activateLatency.summary(seconds));
+        if (!errorReasons.isEmpty()) {
+            report.append("\n\n失败原因：");
+            errorReasons.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                    .limit(10)
+                    .forEach(e -> report.append("\n  ").append(e.getValue().sum()).append(" × ").append(e.getKey()));
+        }
+        return report.toString();
+    }
+
+    private void runClosedLoop(long deadline) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>(options.concurrency());
+        for (int i = 0; i < options.concurrency(); i++) {
+            workers.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    execute(start);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void runOpenLoop(long start, long deadline) throws InterruptedException {
+        long intervalNanos = (long) (1_000_000_000L / options.rate());
+        List<Thread> inFlight = new ArrayList<>();
+        for (long k = 0; ; k++) {
+            long intended = start + k * intervalNanos;
+            if (intended >= deadline) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.add(Thread.ofVirtual().start(() -> execute(intended)));
+            if (inFlight.size() >= 10_000) {
+                inFlight.removeIf(thread -> !thread.isAlive());
+            }
+        }
+        for (Thread thread : inFlight) {
+            thread.join();
+        }
+    }
+
+    /**
+     * 发送一个请求并记录从 start 起算的延迟
+     */
+    private void execute(long start) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LoadTestApplication.Device device = randomDevice();
+        if (random.nextDouble() < options.activateRatio()) {
+            boolean success = activate(device);
+            activateLatency.record(System.nanoTime() - start, success);
+            return;
+        }
+        String text = random.nextDouble() < options.hitRatio() && options.hotTexts() > 0
+                ? text(random.nextInt(options.hotTexts()))
+                : text(missSequence.getAndIncrement());
+        if (random.nextDouble() < options.backgroundRatio()) {
+            boolean success = translate(device, text, "background");
+            backgroundLatency.record(System.nanoTime() - start, success);
+            return;
+        }
+        boolean success = translate(device, text, "interactive");
+        translateLatency.record(System.nanoTime() - start, success);
+    }
+
+    private boolean translate(LoadTestApplication.Device device, String text) {
+        return translate(device, text, "interactive");
+    }
+
+    private boolean translate(LoadTestApplication.Device device, String text, String priority) {
+        return post("/api/translate", Map.of("text", text, "sourceLang", "en", "targetLang", "zh", "priority", priority),
+                device);
+    }
+
+    private boolean activate(LoadTestApplication.Device device) {
+        return post("/api/activate",
+                Map.of("code", device.code(), "userId", device.userId(), "deviceId", device.deviceId()), null);
+    }
+
+    private boolean post(String path, Map<String, Object> body, LoadTestApplication.Device device) {
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(120))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            if (device != null) {
+                request.header("X-Auth-Token", device.code()).header("X-Device-Id", device.deviceId());
+            }
+            HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200 && response.body().contains("\"success\":true")) {
+                return true;
+            }
+            recordError(path, response);
+            return false;
+        } catch (IOException e) {
+            recordError(path + " " + e.getClass().getSimpleName());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void recordError(String path, HttpResponse<String> response) {
+        String message = "";
+        try {
+            JsonNode body = objectMapper.readTree(response.body());
+            message = body.path("error").asText(body.path("message").asText(""));
+        } catch (IOException e) {
+            // 非 JSON 响应只记录状态码
+        }
+        recordError(path + " " + response.statusCode() + " " + message);
+    }
+
+    private void recordError(String reason) {
+        errorReasons.computeIfAbsent(reason, k -> new LongAdder()).increment();
+    }
+
+    private LoadTestApplication.Device randomDevice() {
+        return devices.get(ThreadLocalRandom.current().nextInt(devices.size()));
+    }
+
+    /**
+     * 第 id 条文本：服务端会把数字替换为占位符后再算缓存 Key，因此另附一个由 id 编码的字母串区分不同文本
+     */
+    private static String text(long id) {
+        return String.format(TEMPLATES[(int) (id % TEMPLATES.length)], id) + " (ref " + letters(id) + ")";
+    }
+
+    private static String letters(long id) {
+        StringBuilder letters = new StringBuilder();
+        do {
+            letters.append((char) ('a' + id % 26));
+            id /= 26;
+        } while (id > 0);
+        return letters.toString();
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,115 @@
+package com.translator.loadtest;
+
+import com.translator.TranslationApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 离线压测入口：启动上游桩、Redis 桩与 H2，再以 loadtest profile 启动服务并施压
+ *
+ * 流程：写入激活码 -> 启动服务 -> 全部设备首次激活 -> 预热热点文本 -> 预热阶段 -> 测量阶段 -> 输出报告
+ *
+ * @author mac
+ */
+@Slf4j
+public class LoadTestApplication {
+
+    // 与 application-loadtest.yml 中的 datasource.url 一致
+    private static final String JDBC_URL = "jdbc:h2:mem:translator;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    public record Device(String code, long userId, String deviceId) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        log.info("压测参数: {}", options);
+
+        try (StubRedisServer redis = new StubRedisServer();
+             StubChatServer upstream = new StubChatServer(options)) {
+            redis.start();
+            upstream.start();
+
+            List<Device> devices = seedActivationCodes(options.devices());
+
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(TranslationApplication.class)
+                    .run("--spring.profiles.active=loadtest",
+                            "--loadtest.redis-port=" + redis.port(),
+                            "--loadtest.upstream-port=" + upstream.port(),
+                            "--spring.threads.virtual.enabled=" + options.virtualThreads());
+            String baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+            log.info("服务已启动: {}", baseUrl);
+
+            LoadDriver driver = new LoadDriver(options, baseUrl, devices);
+            try {
+                driver.activateAll();
+                log.info("已激活 {} 台设备", devices.size());
+                driver.warmHotTexts();
+                log.info("已预热 {} 条热点文本", options.hotTexts());
+
+                driver.run(options.warmup());
+                log.info("预热阶段结束（{}）", options.warmup());
+
+                long callsBefore = upstream.calls();
+                long errorsBefore = upstream.injectedErrors();
+                double seconds = driver.run(options.duration());
+
+                StringBuilder report = new StringBuilder("\n")
+                        .append("==== 压测结果（").append(String.format("%.1f", seconds)).append(" 秒）====\n")
+                        .append(options).append("\n\n")
+                        .append(driver.report(seconds)).append("\n\n")
+                        .append(String.format("上游调用 %d 次（注入错误 %d），Redis 桩 Key 数 %d",
+                                upstream.calls() - callsBefore, upstream.injectedErrors() - errorsBefore, redis.size()));
+                System.out.println(report);
+            } finally {
+                driver.close();
+                context.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * 建表并写入未激活的激活码（服务启动前写入，布隆过滤器启动时即可加载）
+     */
+    private static List<Device> seedActivationCodes(int count) throws SQLException, IOException {
+        List<Device> devices = new ArrayList<>(count);
+        try (Connection connection = DriverManager.getConnection(JDBC_URL, "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(readResource("/loadtest-schema.sql"));
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO activation_codes (code, days, is_used) VALUES (?, 30, 0)")) {
+                for (int i = 0; i < count; i++) {
+                    String code = UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
+                    devices.add(new Device(code, 1_000_000L + i, UUID.randomUUID().toString()));
+                    insert.setString(1, code);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+        return devices;
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream in = LoadTestApplication.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("找不到资源: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
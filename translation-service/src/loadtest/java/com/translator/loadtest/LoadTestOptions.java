@@ -0,0 +1,106 @@
+package com.translator.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 压测参数，命令行格式 --key=value
+ *
+ * 上游延迟按 upstream-profile 预设，单项参数可覆盖预设：
+ * - fast：50ms ± 20ms，无错误
+ * - normal：800ms ± 400ms，0.5% 错误，1% 慢请求（4s）
+ * - degraded：2000ms ± 1500ms，10% 错误，5% 慢请求（10s）
+ *
+ * @author mac
+ */
+public record LoadTestOptions(
+        int concurrency,
+        double rate,
+        Duration warmup,
+        Duration duration,
+        double hitRatio,
+        int hotTexts,
+        double activateRatio,
+        double backgroundRatio,
+        int devices,
+        boolean virtualThreads,
+        Duration upstreamLatency,
+        Duration upstreamJitter,
+        double upstreamErrorRate,
+        double upstreamSlowRatio,
+        Duration upstreamSlowLatency) {
+
+    private static final Set<String> KNOWN_KEYS = Set.of(
+            "upstream-profile", "concurrency", "rate", "warmup", "duration", "hit-ratio", "hot-texts",
+            "activate-ratio", "background-ratio", "devices", "virtual-threads", "upstream-latency", "upstream-jitter",
+            "upstream-error-rate", "upstream-slow-ratio", "upstream-slow-latency");
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --key=value: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        String profile = values.getOrDefault("upstream-profile", "normal");
+        String[] preset = switch (profile) {
+            case "fast" -> new String[]{"50ms", "20ms", "0", "0", "0s"};
+            case "normal" -> new String[]{"800ms", "400ms", "0.005", "0.01", "4s"};
+            case "degraded" -> new String[]{"2000ms", "1500ms", "0.1", "0.05", "10s"};
+            default -> throw new IllegalArgumentException("未知的 upstream-profile: " + profile);
+        };
+
+        LoadTestOptions options = new LoadTestOptions(
+                Integer.parseInt(values.getOrDefault("concurrency", "64")),
+                Double.parseDouble(values.getOrDefault("rate", "0")),
+                duration(values.getOrDefault("warmup", "10s")),
+                duration(values.getOrDefault("duration", "30s")),
+                Double.parseDouble(values.getOrDefault("hit-ratio", "0.8")),
+                Integer.parseInt(values.getOrDefault("hot-texts", "500")),
+                Double.parseDouble(values.getOrDefault("activate-ratio", "0.02")),
+                Double.parseDouble(values.getOrDefault("background-ratio", "0")),
+                Integer.parseInt(values.getOrDefault("devices", "200")),
+                Boolean.parseBoolean(values.getOrDefault("virtual-threads", "true")),
+                duration(values.getOrDefault("upstream-latency", preset[0])),
+                duration(values.getOrDefault("upstream-jitter", preset[1])),
+                Double.parseDouble(values.getOrDefault("upstream-error-rate", preset[2])),
+                Double.parseDouble(values.getOrDefault("upstream-slow-ratio", preset[3])),
+                duration(values.getOrDefault("upstream-slow-latency", preset[4])));
+
+        values.keySet().removeAll(KNOWN_KEYS);
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("未知参数: " + values.keySet());
+        }
+        return options;
+    }
+
+    /**
+     * 解析 500ms / 10s / 2m 格式的时长
+     */
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("无法解析时长: " + value);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("concurrency=%d, rate=%s, warmup=%s, duration=%s, hitRatio=%.2f, hotTexts=%d, "
+                        + "activateRatio=%.3f, backgroundRatio=%.2f, devices=%d, virtualThreads=%s, upstream=%dms±%dms "
+                        + "(error %.1f%%, slow %.1f%% @ %dms)",
+                concurrency, rate > 0 ? rate + "/s" : "closed-loop", warmup, duration, hitRatio, hotTexts,
+                activateRatio, backgroundRatio, devices, virtualThreads, upstreamLatency.toMillis(), upstreamJitter.toMillis(),
+                upstreamErrorRate * 100, upstreamSlowRatio * 100, upstreamSlowLatency.toMillis());
+    }
+}
@@ -0,0 +1,178 @@
+package com.translator.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OpenAI 兼容的 Chat Completions 上游桩
+ *
+ * 按配置注入延迟（基准 ± 抖动，另有一定比例的慢请求）与错误（500 / 429 各半），
+ * 译文为 Prompt 中待翻译的部分原样返回，批量 Prompt 的 [[n]] 编号因此保持不变。
+ * 支持 stream: true（按 4 个字符一段推送 SSE 增量）。
+ *
+ * @author mac
+ */
+@Slf4j
+public class StubChatServer implements AutoCloseable {
+
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+
+    public StubChatServer(LoadTestOptions options) throws IOException {
+        this.options = options;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+        log.info("上游桩已启动: port={}", port());
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public long calls() {
+        return calls.sum();
+    }
+
+    public long injectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    public long slowCalls() {
+        return slowCalls.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            calls.increment();
+            JsonNode request = objectMapper.readTree(body);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            sleep(latencyMillis(random));
+
+            if (random.nextDouble() < options.upstreamErrorRate()) {
+                injectedErrors.increment();
+                boolean throttled = random.nextBoolean();
+                byte[] error = ("{\"error\":{\"message\":\"stub injected error\",\"type\":\""
+                        + (throttled ? "rate_limit_exceeded" : "server_error") + "\"}}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(throttled ? 429 : 500, error.length);
+                exchange.getResponseBody().write(error);
+                return;
+            }
+
+            // 翻译记忆的参考译文作为 system 消息在前，用户 Prompt 总是最后一条
+            JsonNode messages = request.path("messages");
+            String prompt = messages.path(messages.size() - 1).path("content").asText("");
+            String translated = extractText(prompt);
+            if (request.path("stream").asBoolean(false)) {
+                writeStream(exchange, translated);
+            } else {
+                writeCompletion(exchange, request, prompt, translated);
+            }
+        }
+    }
+
+    private long latencyMillis(ThreadLocalRandom random) {
+        if (options.upstreamSlowRatio() > 0 && random.nextDouble() < options.upstreamSlowRatio()) {
+            slowCalls.increment();
+            return options.upstreamSlowLatency().toMillis();
+        }
+        long base = options.upstreamLatency().toMillis();
+        long jitter = options.upstreamJitter().toMillis();
+        return Math.max(0, base + (jitter > 0 ? random.nextLong(-jitter, jitter + 1) : 0));
+    }
+
+    /**
+     * Prompt 格式为 "说明：\n\n待翻译内容"，取说明之后的部分
+     */
+    private static String extractText(String prompt) {
+        int split = prompt.indexOf("\n\n");
+        return split >= 0 ? prompt.substring(split + 2) : prompt;
+    }
+
+    private void writeCompletion(HttpExchange exchange, JsonNode request, String prompt, String translated)
+            throws IOException {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("id", "chatcmpl-stub");
+        response.put("object", "chat.completion");
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", request.path("model").asText("stub"));
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", translated);
+        choice.put("finish_reason", "stop");
+        int promptTokens = prompt.length() / 2 + 1;
+        int completionTokens = translated.length() / 2 + 1;
+        response.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+
+        byte[] bytes = objectMapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void writeStream(HttpExchange exchange, String translated) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        for (int i = 0; i < translated.length(); i += 4) {
+            ObjectNode chunk = objectMapper.createObjectNode();
+            chunk.put("id", "chatcmpl-stub");
+            chunk.put("object", "chat.completion.chunk");
+            chunk.putArray("choices").addObject()
+                    .put("index", 0)
+                    .putObject("delta").put("content", translated.substring(i, Math.min(i + 4, translated.length())));
+            out.write(("data: " + objectMapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            sleep(10);
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,337 @@
+package com.translator.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内 Redis 桩（RESP2 协议）
+ *
+ * 只实现服务用到的字符串命令：GET / SET（EX、PX、NX、XX）/ SETEX / PSETEX / MGET / DEL / EXISTS /
+ * EXPIRE / PEXPIRE / TTL / PTTL，以及连接握手需要的 PING / SELECT / CLIENT / INFO / TIME。
+ * 不支持 HELLO（客户端回退到 RESP2）和 EVAL（redis 模式的设备限流会回退本地计数）。
+ * 过期为读取时惰性删除，另由写入路径按计数顺带清理，压测期间内存不会无限增长。
+ *
+ * 每个连接一个虚拟线程，输入缓冲区读空时才 flush，pipeline 中的多条命令合并为一次写出。
+ *
+ * @author mac
+ */
+@Slf4j
+public class StubRedisServer implements AutoCloseable {
+
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PONG = "+PONG\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int SWEEP_EVERY_WRITES = 100_000;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    private record Entry(byte[] value, long expireAt) {
+
+        private boolean expired(long now) {
+            return expireAt > 0 && expireAt <= now;
+        }
+    }
+
+    public StubRedisServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+    }
+
+    public void start() {
+        executor.submit(this::acceptLoop);
+        log.info("Redis 桩已启动: port={}", port());
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                executor.submit(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Redis 桩 accept 失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024)) {
+            while (running) {
+                List<byte[]> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                if (!command.isEmpty()) {
+                    execute(command, out);
+                }
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (EOFException e) {
+            // 客户端断开
+        } catch (IOException e) {
+            if (running) {
+                log.debug("Redis 桩连接异常: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void execute(List<byte[]> command, OutputStream out) throws IOException {
+        String name = new String(command.get(0), StandardCharsets.US_ASCII).toUpperCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+        switch (name) {
+            case "PING" -> out.write(PONG);
+            case "SELECT", "CLIENT", "READONLY" -> out.write(OK);
+            case "INFO" -> writeBulk(out, "# Server\r\nredis_version:7.0.0-stub\r\nredis_mode:standalone\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            case "TIME" -> {
+                long micros = System.currentTimeMillis() * 1000;
+                writeArrayHeader(out, 2);
+                writeBulk(out, String.valueOf(micros / 1_000_000).getBytes(StandardCharsets.US_ASCII));
+                writeBulk(out, String.valueOf(micros % 1_000_000).getBytes(StandardCharsets.US_ASCII));
+            }
+            case "GET" -> writeBulk(out, get(key(command, 1), now));
+            case "MGET" -> {
+                writeArrayHeader(out, command.size() - 1);
+                for (int i = 1; i < command.size(); i++) {
+                    writeBulk(out, get(key(command, i), now));
+                }
+            }
+            case "SET" -> set(command, now, out);
+            case "SETEX" -> {
+                put(key(command, 1), command.get(3), now + number(command, 2) * 1000);
+                out.write(OK);
+            }
+            case "PSETEX" -> {
+                put(key(command, 1), command.get(3), now + number(command, 2));
+                out.write(OK);
+            }
+            case "DEL", "UNLINK" -> {
+                long removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    Entry entry = data.remove(key(command, i));
+                    if (entry != null && !entry.expired(now)) {
+                        removed++;
+                    }
+                }
+                writeInteger(out, removed);
+            }
+            case "EXISTS" -> {
+                long count = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (get(key(command, i), now) != null) {
+                        count++;
+                    }
+                }
+                writeInteger(out, count);
+            }
+            case "EXPIRE" -> writeInteger(out, expire(key(command, 1), now + number(command, 2) * 1000, now));
+            case "PEXPIRE" -> writeInteger(out, expire(key(command, 1), now + number(command, 2), now));
+            case "TTL", "PTTL" -> {
+                Entry entry = data.get(key(command, 1));
+                long ttl;
+                if (entry == null || entry.expired(now)) {
+                    ttl = -2;
+                } else if (entry.expireAt() == 0) {
+                    ttl = -1;
+                } else {
+                    ttl = "TTL".equals(name) ? (entry.expireAt() - now) / 1000 : entry.expireAt() - now;
+                }
+                writeInteger(out, ttl);
+            }
+            case "DBSIZE" -> writeInteger(out, data.size());
+            case "FLUSHDB", "FLUSHALL" -> {
+                data.clear();
+                out.write(OK);
+            }
+            case "QUIT" -> {
+                out.write(OK);
+                out.flush();
+                throw new EOFException();
+            }
+            default -> writeError(out, "ERR unknown command '" + name + "'");
+        }
+    }
+
+    private void set(List<byte[]> command, long now, OutputStream out) throws IOException {
+        String key = key(command, 1);
+        long expireAt = 0;
+        boolean nx = false;
+        boolean xx = false;
+        for (int i = 3; i < command.size(); i++) {
+            String option = new String(command.get(i), StandardCharsets.US_ASCII).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "EX" -> expireAt = now + number(command, ++i) * 1000;
+                case "PX" -> expireAt = now + number(command, ++i);
+                case "NX" -> nx = true;
+                case "XX" -> xx = true;
+                default -> {
+                    writeError(out, "ERR syntax error");
+                    return;
+                }
+            }
+        }
+        boolean exists = get(key, now) != null;
+        if ((nx && exists) || (xx && !exists)) {
+            out.write(NULL_BULK);
+            return;
+        }
+        put(key, command.get(2), expireAt);
+        out.write(OK);
+    }
+
+    private byte[] get(String key, long now) {
+        Entry entry = data.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expired(now)) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    private void put(String key, byte[] value, long expireAt) {
+        data.put(key, new Entry(value, expireAt));
+        if (writes.incrementAndGet() % SWEEP_EVERY_WRITES == 0) {
+            long now = System.currentTimeMillis();
+            data.entrySet().removeIf(e -> e.getValue().expired(now));
+        }
+    }
+
+    private long expire(String key, long expireAt, long now) {
+        Entry entry = data.get(key);
+        if (entry == null || entry.expired(now)) {
+            return 0;
+        }
+        return data.replace(key, entry, new Entry(entry.value(), expireAt)) ? 1 : 0;
+    }
+
+    private static String key(List<byte[]> command, int index) {
+        // ISO-8859-1 与字节一一对应，任意二进制 Key 都能无损往返
+        return new String(command.get(index), StandardCharsets.ISO_8859_1);
+    }
+
+    private static long number(List<byte[]> command, int index) {
+        return Long.parseLong(new String(command.get(index), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 读取一条命令（RESP 数组或 inline 命令），连接关闭时返回 null
+     */
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        if (first != '*') {
+            String line = (char) first + readLine(in);
+            List<byte[]> inline = new ArrayList<>();
+            for (String part : line.trim().split("\\s+")) {
+                if (!part.isEmpty()) {
+                    inline.add(part.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return inline;
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<byte[]> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("协议错误：期望 bulk string");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] arg = in.readNBytes(length);
+            if (arg.length < length) {
+                throw new EOFException();
+            }
+            in.skipNBytes(2);
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder(16);
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            line.append((char) b);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static void writeBulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write(NULL_BULK);
+            return;
+        }
+        out.write(('$' + String.valueOf(value.length)).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+        out.write(value);
+        out.write(CRLF);
+    }
+
+    private static void writeArrayHeader(OutputStream out, int size) throws IOException {
+        out.write(('*' + String.valueOf(size)).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+
+    private static void writeInteger(OutputStream out, long value) throws IOException {
+        out.write((':' + String.valueOf(value)).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+
+    private static void writeError(OutputStream out, String message) throws IOException {
+        out.write(('-' + message).getBytes(StandardCharsets.UTF_8));
+        out.write(CRLF);
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,14 @@
+-- 压测用表结构（与 translator.sql 的 activation_codes 一致，另含实体中的 device_id 列）
+CREATE TABLE IF NOT EXISTS activation_codes (
+  id int NOT NULL AUTO_INCREMENT,
+  code varchar(64) NOT NULL,
+  days int DEFAULT 30,
+  is_used tinyint(1) DEFAULT 0,
+  used_by bigint DEFAULT NULL,
+  used_at datetime DEFAULT NULL,
+  expire_at datetime DEFAULT NULL,
+  device_id varchar(128) DEFAULT NULL,
+  created_at datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (id),
+  UNIQUE KEY code (code)
+);
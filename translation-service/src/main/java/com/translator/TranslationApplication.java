@@ -3,9 +3,11 @@ package com.translator;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.translator.mapper")
+@EnableScheduling
 public class TranslationApplication {
 
     public static void main(String[] args) {
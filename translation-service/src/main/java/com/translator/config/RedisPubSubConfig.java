@@ -0,0 +1,28 @@
+package com.translator.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisPubSubConfig {
+
+    /**
+     * Redis 订阅容器（授权失效广播），随应用上下文启停，停机时先于 Redis 连接工厂关闭
+     * 消息在虚拟线程上分发
+     */
+    @Bean
+    @ConditionalOnProperty(name = "translation.auth.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("redis-pubsub-");
+        executor.setVirtualThreads(true);
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(executor);
+        return container;
+    }
+}
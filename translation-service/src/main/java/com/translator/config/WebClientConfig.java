@@ -1,33 +1,145 @@
 package com.translator.config;
 
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+
+@Slf4j
 @Configuration
 public class WebClientConfig {
 
-    /*
-     * 【旧版 LibreTranslate 配置】已注释
-     * 
-     * @Value("${libretranslate.url:http://localhost:5000}")
-     * private String libreTranslateUrl;
-     * 
-     * @Bean
-     * public WebClient libreTranslateClient() {
-     * return WebClient.builder()
-     * .baseUrl(libreTranslateUrl)
-     * .build();
-     * }
-     */
+    // 翻译 API 配置
+    @Value("${translation.api.url}")
+    private String apiUrl;
+
+    @Value("${translation.api.key}")
+    private String apiKey;
+
+    // 上游连接池配置
+    @Value("${translation.http.max-connections:500}")
+    private int maxConnections;
+
+    @Value("${translation.http.pending-acquire-max-count:1000}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${translation.http.pending-acquire-timeout:10s}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${translation.http.max-idle-time:60s}")
+    private Duration maxIdleTime;
+
+    @Value("${translation.http.max-life-time:10m}")
+    private Duration maxLifeTime;
+
+    @Value("${translation.http.evict-interval:30s}")
+    private Duration evictInterval;
+
+    @Value("${translation.http.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${translation.http.response-timeout:60s}")
+    private Duration responseTimeout;
+
+    @Value("${translation.http.http2-enabled:false}")
+    private boolean http2Enabled;
 
     /**
-     * 【新版】提供 WebClient.Builder 用于 MyMemory API
-     * MyMemory 是完全免费的翻译服务，无需配置
+     * 提供 WebClient.Builder（通用，未绑定上游地址）
      */
     @Bean
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
+
+    /**
+     * 翻译上游连接池（全局只创建一次，长连接复用，避免每次翻译重新建连和 TLS 握手）
+     * metrics(true) 将连接池的 total/active/idle/pending 指标注册到 Micrometer，pending 即排队等待连接数
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider translationConnectionProvider() {
+        log.info("翻译上游连接池: maxConnections={}, pendingAcquireMaxCount={}, maxIdleTime={}, http2={}",
+                maxConnections, pendingAcquireMaxCount, maxIdleTime, http2Enabled);
+
+        return ConnectionProvider.builder("translation-upstream")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * 翻译上游专用 WebClient（已绑定地址与鉴权头）
+     */
+    @Bean
+    public WebClient translationWebClient(ConnectionProvider translationConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(translationConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                .keepAlive(true);
+
+        if (http2Enabled) {
+            // HTTPS 通过 ALPN 协商 HTTP/2，多路复用同一连接；服务端不支持时回退 HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .baseUrl(apiUrl)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .build();
+    }
+
+    /**
+     * 本地 LibreTranslate 连接池（独立的小连接池，不与 LLM 上游争用连接）
+     */
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(name = "translation.engines.libretranslate.enabled", havingValue = "true")
+    public ConnectionProvider libreTranslateConnectionProvider(
+            @Value("${translation.engines.libretranslate.max-connections:50}") int libreMaxConnections) {
+        return ConnectionProvider.builder("libretranslate")
+                .maxConnections(libreMaxConnections)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * 本地 LibreTranslate 专用 WebClient
+     */
+    @Bean
+    @ConditionalOnProperty(name = "translation.engines.libretranslate.enabled", havingValue = "true")
+    public WebClient libreTranslateWebClient(
+            ConnectionProvider libreTranslateConnectionProvider,
+            @Value("${translation.engines.libretranslate.url:http://localhost:5000}") String libreTranslateUrl,
+            @Value("${translation.engines.libretranslate.timeout:10s}") Duration libreTimeout) {
+        log.info("LibreTranslate 引擎: url={}, timeout={}", libreTranslateUrl, libreTimeout);
+
+        HttpClient httpClient = HttpClient.create(libreTranslateConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(libreTimeout)
+                .keepAlive(true);
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .baseUrl(libreTranslateUrl)
+                .build();
+    }
 }
@@ -16,7 +16,7 @@ public class WebMvcConfig implements WebMvcConfigurer {
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(authInterceptor)
                 // 拦截翻译接口
-                .addPathPatterns("/api/translate")
+                .addPathPatterns("/api/translate", "/api/translate/batch", "/api/translate/stream")
                 // 放行激活、健康检查等接口
                 .excludePathPatterns(
                         "/api/activate",
@@ -0,0 +1,57 @@
+package com.translator.controller;
+
+import com.translator.service.CacheSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 翻译缓存快照管理端点
+ * GET  /actuator/cachesnapshot：快照文件路径、最近一次写入与启动加载的结果
+ * POST /actuator/cachesnapshot：立即写入快照
+ * 只在管理端口（management.server.port，默认只绑定本机）上暴露，业务端口不可访问
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@Endpoint(id = "cachesnapshot")
+@RequiredArgsConstructor
+public class CacheSnapshotEndpoint {
+
+    private final CacheSnapshotService snapshotService;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("path", snapshotService.path().toString());
+        status.put("lastSnapshot", snapshotService.lastSnapshot());
+        status.put("lastLoad", snapshotService.lastLoad());
+        return status;
+    }
+
+    @WriteOperation
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            CacheSnapshotService.SnapshotResult snapshot = snapshotService.snapshot();
+            result.put("success", snapshot != null);
+            result.put("snapshot", snapshot);
+            if (snapshot == null) {
+                result.put("error", "L1 本地缓存为空，未覆盖已有快照");
+            }
+        } catch (IOException e) {
+            log.error("❌ 手动写入翻译缓存快照失败", e);
+            result.put("success", false);
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+}
@@ -1,12 +1,22 @@
 package com.translator.controller;
 
+import com.translator.dto.BatchTranslateRequest;
+import com.translator.dto.BatchTranslateResponse;
 import com.translator.dto.TranslateRequest;
 import com.translator.dto.TranslateResponse;
+import com.translator.service.RateLimitExceededException;
 import com.translator.service.TranslationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.Objects;
 
 /**
  * @author mac
@@ -24,9 +34,13 @@ public class TranslationController {
      * POST /api/translate
      */
     @PostMapping("/translate")
-    public ResponseEntity<TranslateResponse> translate(@RequestBody TranslateRequest request) {
+    public ResponseEntity<TranslateResponse> translate(@RequestBody TranslateRequest request,
+                                                       @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+                                                       @RequestHeader(value = "X-Translate-Priority", required = false) String priority) {
         log.info("收到翻译请求: {} -> {}", request.getSourceLang(), request.getTargetLang());
-        
+        request.setDeviceId(deviceId);
+        applyPriority(request, priority);
+
         TranslateResponse response = translationService.translate(request);
         
         if (response.isSuccess()) {
@@ -36,6 +50,76 @@ public class TranslationController {
         }
     }
 
+    /**
+     * 流式翻译接口（SSE：delta / done / error 事件）
+     * POST /api/translate/stream
+     * 设备上游配额不足时在开始推送前返回 429（与 /translate 一致）
+     */
+    @PostMapping(value = "/translate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<String>>> translateStream(@RequestBody TranslateRequest request,
+                                                                         @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+                                                                         @RequestHeader(value = "X-Translate-Priority", required = false) String priority) {
+        log.info("收到流式翻译请求: {} -> {}", request.getSourceLang(), request.getTargetLang());
+        request.setDeviceId(deviceId);
+        applyPriority(request, priority);
+
+        try {
+            return ResponseEntity.ok(translationService.translateStream(request));
+        } catch (RateLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Flux.just(ServerSentEvent.<String>builder().event("error").data(e.getMessage()).build()));
+        }
+    }
+
+    /**
+     * 批量翻译接口
+     * POST /api/translate/batch
+     */
+    @PostMapping("/translate/batch")
+    public ResponseEntity<BatchTranslateResponse> translateBatch(@RequestBody BatchTranslateRequest request,
+                                                                 @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+                                                                 @RequestHeader(value = "X-Translate-Priority", required = false) String priority) {
+        int size = request.getItems() != null ? request.getItems().size() : 0;
+        log.info("收到批量翻译请求: {} 条", size);
+        if (request.getItems() != null) {
+            request.getItems().stream().filter(Objects::nonNull).forEach(item -> {
+                item.setDeviceId(deviceId);
+                applyPriority(item, priority);
+            });
+        }
+
+        BatchTranslateResponse response = translationService.translateBatch(request.getItems());
+
+        if (response.isSuccess()) {
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * X-Translate-Priority 请求头优先于请求体中的 priority 字段
+     */
+    private static void applyPriority(TranslateRequest request, String priority) {
+        if (priority != null && !priority.isBlank()) {
+            request.setPriority(priority);
+        }
+    }
+
+    /**
+     * 设备配额不足（/translate 的上游配额，/translate/batch 按条数计的请求配额）
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<TranslateResponse> rateLimited(RateLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(TranslateResponse.builder()
+                        .success(false)
+                        .error(e.getMessage())
+                        .build());
+    }
+
     /**
      * 获取支持的语言列表
      * GET /api/languages
@@ -0,0 +1,16 @@
+package com.translator.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量翻译请求
+ */
+@Data
+public class BatchTranslateRequest {
+    /**
+     * 待翻译条目（每条可以有各自的语言对）
+     */
+    private List<TranslateRequest> items;
+}
@@ -0,0 +1,21 @@
+package com.translator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量翻译响应，results 与请求 items 一一对应、顺序一致
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTranslateResponse {
+    private List<TranslateResponse> results;
+    private boolean success;
+    private String error;
+}
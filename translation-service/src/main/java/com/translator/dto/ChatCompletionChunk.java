@@ -0,0 +1,33 @@
+package com.translator.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * OpenAI Chat Completion 流式响应（stream=true）中的单个分片
+ *
+ * @author mac
+ */
+@Data
+public class ChatCompletionChunk {
+
+    private String id;
+    private String model;
+    private String object;
+    private Long created;
+    private List<Choice> choices;
+
+    @Data
+    public static class Choice {
+        private Integer index;
+        private Delta delta;
+        private String finishReason;
+
+        @Data
+        public static class Delta {
+            private String role;
+            private String content;
+        }
+    }
+}
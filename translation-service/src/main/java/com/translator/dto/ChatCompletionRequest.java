@@ -1,5 +1,6 @@
 package com.translator.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,6 +22,12 @@ public class ChatCompletionRequest {
     private String model;
     private List<Message> messages;
 
+    /**
+     * 是否流式返回（为 null 时不序列化，保持普通请求体不变）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean stream;
+
     @Data
     @Builder
     @NoArgsConstructor
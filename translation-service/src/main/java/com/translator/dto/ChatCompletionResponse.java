@@ -1,5 +1,6 @@
 package com.translator.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
 import java.util.List;
@@ -17,6 +18,7 @@ public class ChatCompletionResponse {
     private String object;
     private Long created;
     private List<Choice> choices;
+    private Usage usage;
 
     @Data
     public static class Choice {
@@ -30,4 +32,19 @@ public class ChatCompletionResponse {
             private String content;
         }
     }
+
+    /**
+     * Token 用量（部分兼容接口可能不返回）
+     */
+    @Data
+    public static class Usage {
+        @JsonProperty("prompt_tokens")
+        private Integer promptTokens;
+
+        @JsonProperty("completion_tokens")
+        private Integer completionTokens;
+
+        @JsonProperty("total_tokens")
+        private Integer totalTokens;
+    }
 }
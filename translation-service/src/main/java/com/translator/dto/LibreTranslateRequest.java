@@ -0,0 +1,37 @@
+package com.translator.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * LibreTranslate /translate 请求格式
+ *
+ * @author mac
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LibreTranslateRequest {
+
+    /**
+     * 原文：单条为字符串，批量为字符串数组
+     */
+    private Object q;
+
+    private String source;
+    private String target;
+
+    /**
+     * text 或 html
+     */
+    private String format;
+
+    @JsonProperty("api_key")
+    private String apiKey;
+}
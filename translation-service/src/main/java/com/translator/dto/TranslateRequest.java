@@ -1,5 +1,6 @@
 package com.translator.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 @Data
@@ -7,4 +8,15 @@ public class TranslateRequest {
     private String text;
     private String sourceLang;
     private String targetLang;
+
+    /**
+     * 请求设备 ID（来自 X-Device-Id 请求头，由 Controller 设置，用于按设备限流）
+     */
+    @JsonIgnore
+    private String deviceId;
+
+    /**
+     * 上游调度优先级：interactive（发送框）/ background（聊天气泡），X-Translate-Priority 请求头优先
+     */
+    private String priority;
 }
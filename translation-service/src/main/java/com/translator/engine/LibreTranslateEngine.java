@@ -0,0 +1,135 @@
+package com.translator.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.translator.dto.LibreTranslateRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 本地 LibreTranslate 翻译引擎（机器翻译，延迟低、无调用费用）
+ *
+ * 适合短文本和 LLM 上游不可用时的兜底；批量请求使用 q 数组一次翻译多条。
+ * 部署方式见 libretranslate-docker-compose.yml，通过 translation.engines.libretranslate.enabled 开启。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "translation.engines.libretranslate.enabled", havingValue = "true")
+public class LibreTranslateEngine implements TranslationEngine {
+
+    public static final String NAME = "libretranslate";
+
+    private final WebClient libreTranslateWebClient;
+    private final UpstreamGuardRegistry upstreamGuards;
+
+    @Value("${translation.engines.libretranslate.api-key:}")
+    private String apiKey;
+
+    // 已加载的语言包（与 LT_LOAD_ONLY 保持一致），为空表示不限制
+    private final Set<String> languages;
+
+    public LibreTranslateEngine(@Qualifier("libreTranslateWebClient") WebClient libreTranslateWebClient,
+                                UpstreamGuardRegistry upstreamGuards,
+                                @Value("${translation.engines.libretranslate.languages:}") List<String> languages) {
+        this.libreTranslateWebClient = libreTranslateWebClient;
+        this.upstreamGuards = upstreamGuards;
+        this.languages = languages.stream()
+                .map(String::trim)
+                .filter(lang -> !lang.isEmpty())
+                .map(String::toLowerCase)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(String sourceLang, String targetLang) {
+        if (languages.isEmpty()) {
+            return true;
+        }
+        return languages.contains(mapLanguageCode(sourceLang)) && languages.contains(mapLanguageCode(targetLang));
+    }
+
+    @Override
+    public Mono<String> translate(String text, String sourceLang, String targetLang) {
+        return call(text, sourceLang, targetLang)
+                .mapNotNull(node -> {
+                    JsonNode translated = node.get("translatedText");
+                    return translated != null && translated.isTextual() ? emptyToNull(translated.asText()) : null;
+                });
+    }
+
+    /**
+     * 批量翻译：q 传数组，一次请求返回同序的译文数组
+     */
+    @Override
+    public Mono<List<String>> translateBatch(List<String> texts, String sourceLang, String targetLang) {
+        if (texts.size() == 1) {
+            return translate(texts.get(0), sourceLang, targetLang)
+                    .map(translated -> List.of(translated))
+                    .defaultIfEmpty(Arrays.asList(new String[1]));
+        }
+        return call(texts, sourceLang, targetLang)
+                .map(node -> {
+                    JsonNode translated = node.get("translatedText");
+                    List<String> results = new ArrayList<>(texts.size());
+                    for (int i = 0; i < texts.size(); i++) {
+                        JsonNode item = translated != null && translated.isArray() ? translated.get(i) : null;
+                        results.add(item != null && item.isTextual() ? emptyToNull(item.asText()) : null);
+                    }
+                    return results;
+                });
+    }
+
+    private Mono<JsonNode> call(Object q, String sourceLang, String targetLang) {
+        LibreTranslateRequest request = LibreTranslateRequest.builder()
+                .q(q)
+                .source(mapLanguageCode(sourceLang))
+                .target(mapLanguageCode(targetLang))
+                .format("text")
+                .apiKey(apiKey.isEmpty() ? null : apiKey)
+                .build();
+
+        return upstreamGuards.get(NAME).protect(libreTranslateWebClient.post()
+                .uri("/translate")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(JsonNode.class));
+    }
+
+    /**
+     * 语言代码转 LibreTranslate 代码（繁体中文为 zt，其余取主语言）
+     */
+    private String mapLanguageCode(String lang) {
+        String lower = lang.toLowerCase();
+        switch (lower) {
+            case "zh-tw":
+            case "zh-hk":
+            case "zh-hant":
+                return "zt";
+            default:
+                int dash = lower.indexOf('-');
+                return dash > 0 ? lower.substring(0, dash) : lower;
+        }
+    }
+
+    private static String emptyToNull(String text) {
+        String trimmed = text.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
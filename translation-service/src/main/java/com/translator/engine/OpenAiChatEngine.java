@@ -0,0 +1,357 @@
+package com.translator.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.translator.dto.ChatCompletionChunk;
+import com.translator.dto.ChatCompletionRequest;
+import com.translator.dto.ChatCompletionResponse;
+import com.translator.metrics.TranslationMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * OpenAI Chat Completions 格式的 LLM 翻译引擎
+ *
+ * 批量翻译将多条文本打包成一个编号 Prompt，按 [[n]] 标记拆分输出；
+ * 无法可靠拆分时回退为逐条请求。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OpenAiChatEngine implements TranslationEngine {
+
+    public static final String NAME = "openai";
+
+    private final WebClient translationWebClient;
+    private final ObjectMapper objectMapper;
+    private final UpstreamGuardRegistry upstreamGuards;
+    private final TranslationMetrics metrics;
+
+    // 翻译 API 配置（地址与鉴权见 WebClientConfig）
+    @Value("${translation.api.model:gpt-3.5-turbo}")
+    private String model;
+
+    // 批量回退为逐条请求时的并发数
+    @Value("${translation.batch.concurrency:4}")
+    private int batchConcurrency;
+
+    // 批量 Prompt 的编号标记：单独成行的 [[n]]
+    private static final Pattern BATCH_MARKER = Pattern.compile("(?m)^[ \\t]*\\[\\[(\\d{1,4})]][ \\t]*");
+
+    // 原文含占位符时追加的说明（占位符对应 URL、@用户、数字等，由服务层在返回前还原）
+    private static final String PLACEHOLDER_HINT = "文中 {0}、{1} 等占位符请原样保留在译文对应位置，";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Mono<String> translate(String text, String sourceLang, String targetLang) {
+        return callChatCompletion(buildTranslationPrompt(text, sourceLang, targetLang));
+    }
+
+    /**
+     * 参考译文作为 system 消息发送，用户 Prompt 不变
+     */
+    @Override
+    public Mono<String> translate(String text, String sourceLang, String targetLang, TranslationReference reference) {
+        return callChatCompletion(buildTranslationPrompt(text, sourceLang, targetLang), reference);
+    }
+
+    /**
+     * 批量翻译：单个编号 Prompt，拆分失败时回退逐条请求
+     * 原文本身含有编号标记的条目单独请求，避免干扰输出拆分
+     */
+    @Override
+    public Mono<List<String>> translateBatch(List<String> texts, String sourceLang, String targetLang) {
+        String[] results = new String[texts.size()];
+        List<Integer> packed = new ArrayList<>();
+        List<Integer> isolated = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (BATCH_MARKER.matcher(texts.get(i)).find()) {
+                isolated.add(i);
+            } else {
+                packed.add(i);
+            }
+        }
+
+        Mono<Void> packedMono;
+        if (packed.size() <= 1) {
+            packedMono = translateEach(texts, packed, sourceLang, targetLang, results);
+        } else {
+            List<String> packedTexts = packed.stream().map(texts::get).toList();
+            packedMono = callChatCompletion(buildBatchPrompt(packedTexts, sourceLang, targetLang))
+                    .mapNotNull(content -> splitBatchOutput(content, packed.size()))
+                    .doOnNext(parts -> {
+                        for (int i = 0; i < parts.size(); i++) {
+                            results[packed.get(i)] = parts.get(i);
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        log.warn("批量翻译请求失败，回退逐条翻译: {}", e.getMessage());
+                        return Mono.empty();
+                    })
+                    .switchIfEmpty(Mono.defer(() -> {
+                        log.warn("批量翻译输出无法按编号拆分，回退逐条翻译 ({} 条)", packed.size());
+                        return translateEach(texts, packed, sourceLang, targetLang, results).then(Mono.empty());
+                    }))
+                    .then();
+        }
+
+        return Mono.when(packedMono, translateEach(texts, isolated, sourceLang, targetLang, results))
+                .then(Mono.fromSupplier(() -> Arrays.asList(results)));
+    }
+
+    @Override
+    public Flux<String> translateStream(String text, String sourceLang, String targetLang) {
+        return callChatCompletionStream(buildTranslationPrompt(text, sourceLang, targetLang), null);
+    }
+
+    @Override
+    public Flux<String> translateStream(String text, String sourceLang, String targetLang,
+                                        TranslationReference reference) {
+        return callChatCompletionStream(buildTranslationPrompt(text, sourceLang, targetLang), reference);
+    }
+
+    /**
+     * 逐条请求翻译 API（批量的回退路径）
+     */
+    private Mono<Void> translateEach(List<String> texts, List<Integer> indexes,
+                                     String sourceLang, String targetLang, String[] results) {
+        return Flux.fromIterable(indexes)
+                .flatMap(index -> translate(texts.get(index), sourceLang, targetLang)
+                        .doOnNext(text -> results[index] = text)
+                        .onErrorResume(e -> {
+                            log.error("❌ 翻译 API 请求失败: {}", e.getMessage());
+                            return Mono.empty();
+                        }), batchConcurrency)
+                .then();
+    }
+
+    /**
+     * 按 [[n]] 标记拆分批量输出
+     * 编号必须恰好覆盖 1..expected 且各不重复、内容非空，否则返回 null（包级可见，供单元测试调用）
+     */
+    static List<String> splitBatchOutput(String content, int expected) {
+        String[] parts = new String[expected];
+        Matcher matcher = BATCH_MARKER.matcher(content);
+        int current = -1;
+        int contentStart = 0;
+
+        while (matcher.find()) {
+            if (current >= 0) {
+                parts[current] = content.substring(contentStart, matcher.start()).trim();
+            }
+            int number = Integer.parseInt(matcher.group(1));
+            if (number < 1 || number > expected || parts[number - 1] != null) {
+                return null;
+            }
+            // 先占位，用于检测重复编号
+            parts[number - 1] = "";
+            current = number - 1;
+            contentStart = matcher.end();
+        }
+        if (current < 0) {
+            return null;
+        }
+        parts[current] = content.substring(contentStart).trim();
+
+        for (String part : parts) {
+            if (part == null || part.isEmpty()) {
+                return null;
+            }
+        }
+        return List.of(parts);
+    }
+
+    /**
+     * 发送单个 Prompt 到 Chat Completions 接口，返回去除首尾空白的回复内容
+     */
+    private Mono<String> callChatCompletion(String prompt) {
+        return callChatCompletion(prompt, null);
+    }
+
+    private Mono<String> callChatCompletion(String prompt, TranslationReference reference) {
+        // 构建请求体
+        ChatCompletionRequest chatRequest = ChatCompletionRequest.builder()
+                .model(model)
+                .messages(buildMessages(prompt, reference))
+                .build();
+
+        // 调用 API（共享连接池，经熔断与并发限制）
+        return upstreamGuards.get(NAME).protect(translationWebClient.post()
+                        .bodyValue(chatRequest)
+                        .retrieve()
+                        .bodyToMono(ChatCompletionResponse.class))
+                .doOnNext(this::recordUsage)
+                .mapNotNull(this::extractContent);
+    }
+
+    /**
+     * 以 stream=true 请求 Chat Completions 接口，返回译文增量
+     */
+    private Flux<String> callChatCompletionStream(String prompt, TranslationReference reference) {
+        ChatCompletionRequest chatRequest = ChatCompletionRequest.builder()
+                .model(model)
+                .messages(buildMessages(prompt, reference))
+                .stream(true)
+                .build();
+
+        // [DONE] 在保护之内结束流：保护器看到的是正常完成（计为成功并记录延迟），而不是下游取消
+        return upstreamGuards.get(NAME).protectStream(translationWebClient.post()
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .bodyValue(chatRequest)
+                        .retrieve()
+                        .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                        })
+                        .mapNotNull(ServerSentEvent::data)
+                        .takeWhile(data -> !"[DONE]".equals(data.trim())))
+                .mapNotNull(this::extractDelta);
+    }
+
+    /**
+     * 解析流式分片中的增量内容（role 分片、结束分片没有 content）
+     */
+    private String extractDelta(String data) {
+        try {
+            ChatCompletionChunk chunk = objectMapper.readValue(data, ChatCompletionChunk.class);
+            if (chunk.getChoices() == null || chunk.getChoices().isEmpty()
+                    || chunk.getChoices().get(0).getDelta() == null) {
+                return null;
+            }
+            String content = chunk.getChoices().get(0).getDelta().getContent();
+            return content != null && !content.isEmpty() ? content : null;
+        } catch (Exception e) {
+            log.warn("无法解析流式分片: {}", data);
+            return null;
+        }
+    }
+
+    /**
+     * 记录上游返回的 Token 用量
+     */
+    private void recordUsage(ChatCompletionResponse response) {
+        ChatCompletionResponse.Usage usage = response.getUsage();
+        if (usage != null) {
+            metrics.recordTokens(NAME, usage.getPromptTokens(), usage.getCompletionTokens());
+        }
+    }
+
+    /**
+     * 解析响应
+     */
+    private String extractContent(ChatCompletionResponse response) {
+        if (response.getChoices() != null && !response.getChoices().isEmpty()) {
+            String content = response.getChoices().get(0).getMessage().getContent();
+            return content != null ? content.trim() : null;
+        }
+        return null;
+    }
+
+    /**
+     * 请求消息：有参考译文时在用户 Prompt 前加一条 system 消息
+     */
+    private List<ChatCompletionRequest.Message> buildMessages(String prompt, TranslationReference reference) {
+        ChatCompletionRequest.Message user = ChatCompletionRequest.Message.builder()
+                .role("user")
+                .content(prompt)
+                .build();
+        if (reference == null) {
+            return Collections.singletonList(user);
+        }
+        ChatCompletionRequest.Message system = ChatCompletionRequest.Message.builder()
+                .role("system")
+                .content("以下是一条相似原文及其已有译文。翻译时请沿用其中的术语和表达，只按实际原文的不同之处调整：\n"
+                        + "原文：" + reference.sourceText() + "\n"
+                        + "译文：" + reference.translatedText())
+                .build();
+        return List.of(system, user);
+    }
+
+    /**
+     * 构建翻译 Prompt（包级可见，供 JMH 基准测试调用）
+     */
+    String buildTranslationPrompt(String text, String sourceLang, String targetLang) {
+        return String.format(
+                "请将以下%s翻译成%s，%s只返回翻译结果，不要有任何其他内容：\n\n%s",
+                mapLanguageNameChinese(sourceLang),
+                mapLanguageNameChinese(targetLang),
+                hasPlaceholders(text) ? PLACEHOLDER_HINT : "",
+                text);
+    }
+
+    /**
+     * 构建批量翻译 Prompt（同一批内语言对相同）
+     */
+    String buildBatchPrompt(List<String> texts, String sourceLang, String targetLang) {
+        StringBuilder prompt = new StringBuilder(String.format(
+                "请将以下 %d 条编号的%s逐条翻译成%s。每条以单独一行的 [[编号]] 开头，" +
+                        "请按相同格式输出译文：编号不变、条数一致，不要合并、拆分或遗漏，%s" +
+                        "只返回翻译结果，不要有任何其他内容：\n\n",
+                texts.size(),
+                mapLanguageNameChinese(sourceLang),
+                mapLanguageNameChinese(targetLang),
+                texts.stream().anyMatch(OpenAiChatEngine::hasPlaceholders) ? PLACEHOLDER_HINT : ""));
+        for (int i = 0; i < texts.size(); i++) {
+            prompt.append("[[").append(i + 1).append("]]\n")
+                    .append(texts.get(i))
+                    .append("\n\n");
+        }
+        return prompt.toString();
+    }
+
+    /**
+     * 原文是否含服务层预处理生成的占位符（TextMasker 从 {0} 开始编号，有占位符必含 {0}）
+     */
+    private static boolean hasPlaceholders(String text) {
+        return text.contains("{0}");
+    }
+
+    /**
+     * 语言代码转中文名称
+     */
+    private String mapLanguageNameChinese(String lang) {
+        switch (lang.toLowerCase()) {
+            case "zh":
+            case "zh-cn":
+                return "中文";
+            case "en":
+            case "en-us":
+                return "英文";
+            case "ja":
+                return "日文";
+            case "ko":
+                return "韩文";
+            case "fr":
+                return "法文";
+            case "de":
+                return "德文";
+            case "es":
+                return "西班牙文";
+            case "ru":
+                return "俄文";
+            case "auto":
+                // 服务端未能识别源语言
+                return "文本";
+            default:
+                return lang;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.translator.engine;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 翻译引擎 SPI
+ *
+ * 每个实现对接一种翻译后端（OpenAI Chat Completions、LibreTranslate 等），
+ * 由 TranslationEngineRouter 按语言对、文本长度与近期延迟选择并负责失败切换。
+ *
+ * @author mac
+ */
+public interface TranslationEngine {
+
+    /**
+     * 引擎名称（用于配置与日志）
+     */
+    String name();
+
+    /**
+     * 是否支持该语言对
+     */
+    default boolean supports(String sourceLang, String targetLang) {
+        return true;
+    }
+
+    /**
+     * 翻译单条文本，返回空表示引擎无结果
+     */
+    Mono<String> translate(String text, String sourceLang, String targetLang);
+
+    /**
+     * 带参考译文的单条翻译（参考来自翻译记忆），默认忽略参考
+     */
+    default Mono<String> translate(String text, String sourceLang, String targetLang, TranslationReference reference) {
+        return translate(text, sourceLang, targetLang);
+    }
+
+    /**
+     * 批量翻译（同一语言对），结果与 texts 一一对应，失败的位置为 null
+     * 默认实现为逐条并发请求
+     */
+    default Mono<List<String>> translateBatch(List<String> texts, String sourceLang, String targetLang) {
+        String[] results = new String[texts.size()];
+        return Flux.range(0, texts.size())
+                .flatMap(i -> translate(texts.get(i), sourceLang, targetLang)
+                        .doOnNext(translated -> results[i] = translated)
+                        .onErrorResume(e -> Mono.empty()), 4)
+                .then(Mono.fromSupplier(() -> Arrays.asList(results)));
+    }
+
+    /**
+     * 流式翻译，返回译文增量；不支持流式的引擎一次性返回完整译文
+     */
+    default Flux<String> translateStream(String text, String sourceLang, String targetLang) {
+        return translate(text, sourceLang, targetLang).flux();
+    }
+
+    /**
+     * 带参考译文的流式翻译，默认忽略参考
+     */
+    default Flux<String> translateStream(String text, String sourceLang, String targetLang,
+                                         TranslationReference reference) {
+        return translateStream(text, sourceLang, targetLang);
+    }
+}
@@ -0,0 +1,400 @@
+package com.translator.engine;
+
+import com.translator.metrics.TranslationMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 翻译引擎路由
+ *
+ * 按语言对过滤可用引擎，短文本优先走 short-text-engine（如本地 LibreTranslate），其余优先走 primary；
+ * 首选引擎近期平均延迟超过 slow-threshold 时改用更快的引擎。
+ * 引擎失败或无结果时依次切换到下一个引擎；可选对冲请求：首选引擎在 hedge.delay 内未返回时并发请求备选引擎，取先返回的结果，
+ * 首选引擎在 hedge.delay 内失败时立即请求备选引擎。
+ *
+ * 延迟按引擎做指数加权平均（EWMA），超过 latency-window 未更新的统计视为过期，引擎恢复后重新参与排序。
+ * 熔断中的引擎（见 UpstreamGuard）排在最后。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+public class TranslationEngineRouter {
+
+    private final List<TranslationEngine> engines;
+    private final UpstreamGuardRegistry upstreamGuards;
+    private final TranslationMetrics metrics;
+
+    @Value("${translation.engines.primary:openai}")
+    private String primary;
+
+    // 短文本首选引擎，为空时不按长度区分
+    @Value("${translation.engines.short-text-engine:}")
+    private String shortTextEngine;
+
+    @Value("${translation.engines.short-text-max-chars:40}")
+    private int shortTextMaxChars;
+
+    @Value("${translation.engines.slow-threshold:10s}")
+    private Duration slowThreshold;
+
+    @Value("${translation.engines.latency-window:60s}")
+    private Duration latencyWindow;
+
+    @Value("${translation.engines.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${translation.engines.hedge.delay:2s}")
+    private Duration hedgeDelay;
+
+    // EWMA 平滑系数
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final Map<String, LatencyStats> stats = new ConcurrentHashMap<>();
+
+    public TranslationEngineRouter(List<TranslationEngine> engines, UpstreamGuardRegistry upstreamGuards,
+                                   TranslationMetrics metrics) {
+        this.engines = engines;
+        this.upstreamGuards = upstreamGuards;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (TranslationEngine engine : engines) {
+            stats.put(engine.name(), new LatencyStats());
+        }
+        if (engines.stream().noneMatch(engine -> engine.name().equals(primary))) {
+            log.warn("未找到首选翻译引擎 {}，按注册顺序选择", primary);
+        }
+        log.info("翻译引擎: {}, primary={}, shortTextEngine={}, hedge={}",
+                engines.stream().map(TranslationEngine::name).toList(),
+                primary, shortTextEngine.isEmpty() ? "-" : shortTextEngine, hedgeEnabled ? hedgeDelay : "off");
+    }
+
+    /**
+     * 翻译单条文本：按候选顺序失败切换，全部无结果时返回空
+     */
+    public Mono<String> translate(String text, String sourceLang, String targetLang) {
+        return translate(text, sourceLang, targetLang, null);
+    }
+
+    /**
+     * 翻译单条文本，附带翻译记忆中的参考译文（为 null 时与普通翻译相同）
+     */
+    public Mono<String> translate(String text, String sourceLang, String targetLang, TranslationReference reference) {
+        List<TranslationEngine> candidates = candidates(text.length(), sourceLang, targetLang);
+        if (candidates.isEmpty()) {
+            return Mono.error(noEngine(sourceLang, targetLang));
+        }
+
+        Mono<String> result;
+        int next;
+        if (hedgeEnabled && candidates.size() > 1) {
+            result = hedge(candidates.get(0), candidates.get(1), text, sourceLang, targetLang, reference);
+            next = 2;
+        } else {
+            result = attempt(candidates.get(0), text, sourceLang, targetLang, reference);
+            next = 1;
+        }
+        for (int i = next; i < candidates.size(); i++) {
+            TranslationEngine engine = candidates.get(i);
+            result = result.onErrorResume(e -> {
+                log.warn("翻译引擎失败，切换到 {}: {}", engine.name(), e.getMessage());
+                return attempt(engine, text, sourceLang, targetLang, reference);
+            });
+        }
+        return result.onErrorResume(EmptyResultException.class, e -> Mono.empty());
+    }
+
+    /**
+     * 批量翻译（同一语言对）：结果与 texts 一一对应，首选引擎未翻译成功的条目交给下一个引擎
+     */
+    public Mono<List<String>> translateBatch(List<String> texts, String sourceLang, String targetLang) {
+        int maxLength = texts.stream().mapToInt(String::length).max().orElse(0);
+        List<TranslationEngine> candidates = candidates(maxLength, sourceLang, targetLang);
+        if (candidates.isEmpty()) {
+            return Mono.error(noEngine(sourceLang, targetLang));
+        }
+
+        String[] results = new String[texts.size()];
+        Mono<Void> chain = Mono.empty();
+        for (TranslationEngine engine : candidates) {
+            chain = chain.then(Mono.defer(() -> {
+                List<Integer> missing = new ArrayList<>();
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i] == null) {
+                        missing.add(i);
+                    }
+                }
+                if (missing.isEmpty()) {
+                    return Mono.empty();
+                }
+                if (missing.size() < results.length) {
+                    log.warn("批量翻译 {} 条未完成，切换到 {}", missing.size(), engine.name());
+                }
+
+                List<String> pending = missing.stream().map(texts::get).toList();
+                long start = System.nanoTime();
+                return engine.translateBatch(pending, sourceLang, targetLang)
+                        .switchIfEmpty(Mono.error(() -> new EmptyResultException(engine.name())))
+                        .doOnNext(translated -> {
+                            for (int j = 0; j < missing.size() && j < translated.size(); j++) {
+                                results[missing.get(j)] = translated.get(j);
+                            }
+                            // 批量请求的延迟同样计入 EWMA，只用于批量翻译的引擎不会只累积失败惩罚
+                            stats(engine).record(elapsedMillis(start));
+                            metrics.recordEngine(engine.name(), "success", System.nanoTime() - start);
+                        })
+                        .onErrorResume(e -> {
+                            metrics.recordEngine(engine.name(), resultOf(e), System.nanoTime() - start);
+                            stats(engine).recordFailure();
+                            log.warn("翻译引擎 {} 批量翻译失败: {}", engine.name(), e.getMessage());
+                            return Mono.empty();
+                        })
+                        .then();
+            }));
+        }
+        return chain.then(Mono.fromSupplier(() -> Arrays.asList(results)));
+    }
+
+    /**
+     * 流式翻译：尚未输出任何增量时失败切换；已输出部分增量后出错直接结束，避免拼接两个引擎的译文
+     */
+    public Flux<String> translateStream(String text, String sourceLang, String targetLang) {
+        return translateStream(text, sourceLang, targetLang, null);
+    }
+
+    /**
+     * 流式翻译，附带翻译记忆中的参考译文（为 null 时与普通流式翻译相同）
+     */
+    public Flux<String> translateStream(String text, String sourceLang, String targetLang,
+                                        TranslationReference reference) {
+        List<TranslationEngine> candidates = candidates(text.length(), sourceLang, targetLang);
+        if (candidates.isEmpty()) {
+            return Flux.error(noEngine(sourceLang, targetLang));
+        }
+
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+            Flux<String> result = attemptStream(candidates.get(0), text, sourceLang, targetLang, reference, emitted);
+            for (int i = 1; i < candidates.size(); i++) {
+                TranslationEngine engine = candidates.get(i);
+                result = result.onErrorResume(e -> !emitted.get(), e -> {
+                    log.warn("流式翻译引擎失败，切换到 {}: {}", engine.name(), e.getMessage());
+                    return attemptStream(engine, text, sourceLang, targetLang, reference, emitted);
+                });
+            }
+            return result.onErrorResume(EmptyResultException.class, e -> Flux.empty());
+        });
+    }
+
+    /**
+     * 候选引擎：支持该语言对的引擎按近期延迟排序，首选引擎（按文本长度选择）不慢时排在最前
+     */
+    private List<TranslationEngine> candidates(int length, String sourceLang, String targetLang) {
+        long now = System.nanoTime();
+        List<TranslationEngine> candidates = new ArrayList<>(engines.size());
+        for (TranslationEngine engine : engines) {
+            if (engine.supports(sourceLang, targetLang)) {
+                candidates.add(engine);
+            }
+        }
+        if (candidates.size() <= 1) {
+            return candidates;
+        }
+        // 先取快照再排序，避免排序过程中统计被并发更新
+        Map<TranslationEngine, Double> latencies = new IdentityHashMap<>();
+        for (TranslationEngine engine : candidates) {
+            latencies.put(engine, stats(engine).latencyMillis(now));
+        }
+        candidates.sort(Comparator.comparingDouble(latencies::get));
+
+        String preferredName = !shortTextEngine.isEmpty() && length <= shortTextMaxChars ? shortTextEngine : primary;
+        TranslationEngine preferred = candidates.stream()
+                .filter(engine -> engine.name().equals(preferredName))
+                .findFirst()
+                .orElse(null);
+        if (preferred != null && latencies.get(preferred) <= slowThreshold.toMillis()) {
+            candidates.remove(preferred);
+            candidates.add(0, preferred);
+        }
+
+        // 熔断中的引擎排到最后：其余引擎都失败时仍会尝试，并以明确的错误快速失败
+        List<TranslationEngine> open = new ArrayList<>();
+        candidates.removeIf(engine -> !upstreamGuards.get(engine.name()).isCallPermitted() && open.add(engine));
+        candidates.addAll(open);
+        return candidates;
+    }
+
+    /**
+     * 对冲请求：备选引擎在首选引擎超过 hedge.delay 未返回或首选引擎失败时发起（取先到者，只发起一次），
+     * 先返回结果的引擎生效，另一个被取消。
+     * 两个引擎都失败时抛出 UpstreamUnavailableException（cause 为首选引擎的错误，备选引擎的错误为 suppressed）；
+     * 都返回空时按无结果处理
+     */
+    private Mono<String> hedge(TranslationEngine first, TranslationEngine second, String text, String sourceLang,
+                               String targetLang, TranslationReference reference) {
+        return Mono.defer(() -> {
+            Sinks.Empty<Void> firstFailed = Sinks.empty();
+            AtomicReference<Throwable> firstError = new AtomicReference<>();
+            AtomicReference<Throwable> secondError = new AtomicReference<>();
+
+            Mono<String> primaryCall = attempt(first, text, sourceLang, targetLang, reference)
+                    .doOnError(e -> {
+                        firstError.set(e);
+                        firstFailed.tryEmitEmpty();
+                    });
+            Mono<String> hedgeCall = Mono.firstWithSignal(Mono.delay(hedgeDelay).then(), firstFailed.asMono())
+                    .then(attempt(second, text, sourceLang, targetLang, reference))
+                    .doOnError(secondError::set);
+
+            return Mono.firstWithValue(primaryCall, hedgeCall)
+                    .onErrorMap(e -> bothFailed(first, second, firstError.get(), secondError.get(), e));
+        });
+    }
+
+    private static Throwable bothFailed(TranslationEngine first, TranslationEngine second,
+                                        Throwable firstError, Throwable secondError, Throwable fallback) {
+        if (firstError == null || secondError == null) {
+            return fallback;
+        }
+        if (firstError instanceof EmptyResultException && secondError instanceof EmptyResultException) {
+            return firstError;
+        }
+        return new UpstreamUnavailableException(
+                "翻译引擎 " + first.name() + "、" + second.name() + " 均失败: "
+                        + firstError.getMessage() + "; " + secondError.getMessage(),
+                firstError, secondError);
+    }
+
+    private Mono<String> attempt(TranslationEngine engine, String text, String sourceLang, String targetLang,
+                                 TranslationReference reference) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Mono<String> call = reference != null
+                    ? engine.translate(text, sourceLang, targetLang, reference)
+                    : engine.translate(text, sourceLang, targetLang);
+            return call
+                    .switchIfEmpty(Mono.error(() -> new EmptyResultException(engine.name())))
+                    .doOnSuccess(translated -> {
+                        stats(engine).record(elapsedMillis(start));
+                        metrics.recordEngine(engine.name(), "success", System.nanoTime() - start);
+                    })
+                    .doOnError(e -> {
+                        stats(engine).recordFailure();
+                        metrics.recordEngine(engine.name(), resultOf(e), System.nanoTime() - start);
+                    });
+        });
+    }
+
+    /**
+     * 流式请求以首个增量的到达时间作为延迟
+     */
+    private Flux<String> attemptStream(TranslationEngine engine, String text, String sourceLang, String targetLang,
+                                       TranslationReference reference, AtomicBoolean emitted) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            Flux<String> call = reference != null
+                    ? engine.translateStream(text, sourceLang, targetLang, reference)
+                    : engine.translateStream(text, sourceLang, targetLang);
+            return call
+                    .doOnNext(delta -> {
+                        if (emitted.compareAndSet(false, true)) {
+                            stats(engine).record(elapsedMillis(start));
+                        }
+                    })
+                    .switchIfEmpty(Flux.error(() -> new EmptyResultException(engine.name())))
+                    .doOnComplete(() -> metrics.recordEngine(engine.name(), "success", System.nanoTime() - start))
+                    .doOnError(e -> {
+                        stats(engine).recordFailure();
+                        metrics.recordEngine(engine.name(), resultOf(e), System.nanoTime() - start);
+                    });
+        });
+    }
+
+    private static String resultOf(Throwable e) {
+        if (e instanceof EmptyResultException) {
+            return "empty";
+        }
+        return e instanceof UpstreamUnavailableException ? "rejected" : "error";
+    }
+
+    private LatencyStats stats(TranslationEngine engine) {
+        return stats.computeIfAbsent(engine.name(), name -> new LatencyStats());
+    }
+
+    private static double elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+
+    private static IllegalStateException noEngine(String sourceLang, String targetLang) {
+        return new IllegalStateException("没有支持该语言对的翻译引擎: " + sourceLang + " -> " + targetLang);
+    }
+
+    /**
+     * 引擎近期延迟（EWMA），失败按两倍 slow-threshold 计入，连续失败的引擎很快被判定为慢
+     */
+    private final class LatencyStats {
+        private final ReentrantLock lock = new ReentrantLock();
+        private double ewmaMillis;
+        private long lastUpdateNanos;
+        private boolean initialized;
+
+        private void record(double millis) {
+            lock.lock();
+            try {
+                ewmaMillis = initialized ? ewmaMillis + EWMA_ALPHA * (millis - ewmaMillis) : millis;
+                initialized = true;
+                lastUpdateNanos = System.nanoTime();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void recordFailure() {
+            record(slowThreshold.toMillis() * 2.0);
+        }
+
+        /**
+         * 统计过期或尚无数据时返回 0，让引擎重新获得流量
+         */
+        private double latencyMillis(long now) {
+            lock.lock();
+            try {
+                if (!initialized || now - lastUpdateNanos > latencyWindow.toNanos()) {
+                    return 0;
+                }
+                return ewmaMillis;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 引擎返回空结果（视为失败，触发切换）
+     */
+    private static final class EmptyResultException extends RuntimeException {
+        private EmptyResultException(String engine) {
+            super("翻译引擎 " + engine + " 返回为空", null, false, false);
+        }
+    }
+}
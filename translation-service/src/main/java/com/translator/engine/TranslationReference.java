@@ -0,0 +1,12 @@
+package com.translator.engine;
+
+/**
+ * 参考译文：翻译记忆中与待译文本相似的原文及其已有译文，供 LLM 引擎沿用术语与表达
+ *
+ * @param sourceText     相似原文
+ * @param translatedText 已有译文
+ * @param similarity     相似度（0~1，字符 3-gram 的 Jaccard 系数）
+ * @author mac
+ */
+public record TranslationReference(String sourceText, String translatedText, double similarity) {
+}
@@ -0,0 +1,463 @@
+package com.translator.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个上游的保护：熔断器 + 自适应并发限制（AIMD）
+ *
+ * 熔断器：最近 sliding-window 次调用中失败率超过阈值时熔断 open-duration，期间直接拒绝；
+ * 到期后放行少量探测请求（半开），全部成功则恢复，任一失败重新熔断。
+ *
+ * 并发限制：在途请求数不超过 limit，超出的请求排队（有上限与超时），不无限堆积在上游连接池。
+ * 调用成功且延迟低于 latency-threshold 时 limit 加性增长；失败、超时或延迟过高时乘性下降。
+ *
+ * 只有 5xx、429、408、超时与连接错误计为上游故障；其余 4xx 属于请求本身的问题，不影响熔断与限流。
+ *
+ * @author mac
+ */
+@Slf4j
+public class UpstreamGuard {
+
+    /**
+     * 熔断器状态（数值用于指标）
+     */
+    public enum State {
+        CLOSED(0), HALF_OPEN(1), OPEN(2);
+
+        private final int code;
+
+        State(int code) {
+            this.code = code;
+        }
+
+        public int code() {
+            return code;
+        }
+    }
+
+    /**
+     * 保护参数
+     */
+    public record Settings(Duration callTimeout,
+                           int initialLimit, int minLimit, int maxLimit,
+                           Duration latencyThreshold, double backoffRatio,
+                           int maxQueue, Duration queueTimeout,
+                           int slidingWindow, int minimumCalls, int failureRateThreshold,
+                           Duration openDuration, int halfOpenCalls) {
+    }
+
+    private final String name;
+    private final Settings settings;
+
+    // 并发限制
+    private final ReentrantLock limiterLock = new ReentrantLock();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private volatile double limit;
+    private volatile int inFlight;
+    private volatile int queued;
+
+    // 熔断器
+    private final ReentrantLock breakerLock = new ReentrantLock();
+    private final boolean[] outcomes;
+    private int outcomeCount;
+    private int outcomeIndex;
+    private int failureCount;
+    private volatile State state = State.CLOSED;
+    private volatile long openUntilNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final AtomicLong rejectedCircuitOpen = new AtomicLong();
+    private final AtomicLong rejectedQueueFull = new AtomicLong();
+    private final AtomicLong rejectedQueueTimeout = new AtomicLong();
+
+    public UpstreamGuard(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.limit = settings.initialLimit();
+        this.outcomes = new boolean[Math.max(1, settings.slidingWindow())];
+    }
+
+    /**
+     * 保护单次调用（带调用超时）
+     */
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            Admission admission = admit();
+            if (admission == Admission.REJECT) {
+                rejectedCircuitOpen.incrementAndGet();
+                return Mono.error(new UpstreamUnavailableException("翻译引擎 " + name + " 熔断中，暂停请求"));
+            }
+            boolean probe = admission == Admission.PROBE;
+            return acquire()
+                    .doOnError(e -> releaseProbe(probe))
+                    .flatMap(permit -> {
+                        long start = System.nanoTime();
+                        return call.timeout(settings.callTimeout())
+                                .doOnSuccess(value -> permit.success(System.nanoTime() - start, probe))
+                                .doOnError(e -> permit.failure(e, probe))
+                                .doOnCancel(() -> permit.cancel(probe));
+                    });
+        });
+    }
+
+    /**
+     * 保护流式调用：首个元素与相邻元素的间隔均受调用超时约束，延迟按首个元素计算
+     */
+    public <T> Flux<T> protectStream(Flux<T> call) {
+        return Flux.defer(() -> {
+            Admission admission = admit();
+            if (admission == Admission.REJECT) {
+                rejectedCircuitOpen.incrementAndGet();
+                return Flux.error(new UpstreamUnavailableException("翻译引擎 " + name + " 熔断中，暂停请求"));
+            }
+            boolean probe = admission == Admission.PROBE;
+            return acquire()
+                    .doOnError(e -> releaseProbe(probe))
+                    .flatMapMany(permit -> {
+                        long start = System.nanoTime();
+                        AtomicLong firstLatency = new AtomicLong(-1);
+                        return call.timeout(settings.callTimeout())
+                                .doOnNext(item -> firstLatency.compareAndSet(-1, System.nanoTime() - start))
+                                .doOnComplete(() -> permit.success(firstLatency.get() >= 0
+                                        ? firstLatency.get() : System.nanoTime() - start, probe))
+                                .doOnError(e -> permit.failure(e, probe))
+                                .doOnCancel(() -> permit.cancel(probe));
+                    });
+        });
+    }
+
+    /**
+     * 当前是否放行请求（熔断中且未到探测时间时为 false）
+     */
+    public boolean isCallPermitted() {
+        return state != State.OPEN || System.nanoTime() >= openUntilNanos;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public double limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight;
+    }
+
+    public int queued() {
+        return queued;
+    }
+
+    public long rejectedCircuitOpen() {
+        return rejectedCircuitOpen.get();
+    }
+
+    public long rejectedQueueFull() {
+        return rejectedQueueFull.get();
+    }
+
+    public long rejectedQueueTimeout() {
+        return rejectedQueueTimeout.get();
+    }
+
+    // ---------------- 并发限制 ----------------
+
+    /**
+     * 获取并发许可：有空位时立即获得，否则排队等待（队列满或等待超时时快速失败）
+     */
+    private Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+            Waiter waiter = null;
+            boolean granted = false;
+            boolean full = false;
+            limiterLock.lock();
+            try {
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    granted = true;
+                } else if (waiters.size() >= settings.maxQueue()) {
+                    full = true;
+                } else {
+                    waiter = new Waiter(sink);
+                    waiters.addLast(waiter);
+                    queued = waiters.size();
+                }
+            } finally {
+                limiterLock.unlock();
+            }
+
+            if (granted) {
+                sink.success(new Permit());
+            } else if (full) {
+                rejectedQueueFull.incrementAndGet();
+                sink.error(new UpstreamUnavailableException("翻译引擎 " + name + " 请求过多，请稍后重试"));
+            } else {
+                Waiter registered = waiter;
+                sink.onCancel(() -> cancelWaiter(registered));
+            }
+        }).timeout(settings.queueTimeout(), Mono.defer(() -> {
+            rejectedQueueTimeout.incrementAndGet();
+            return Mono.error(new UpstreamUnavailableException("翻译引擎 " + name + " 排队超时，请稍后重试"));
+        }));
+    }
+
+    /**
+     * 排队请求被取消（超时或客户端断开）：仍在队列中则移除；许可已转交但未送达则归还
+     */
+    private void cancelWaiter(Waiter waiter) {
+        if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED)) {
+            limiterLock.lock();
+            try {
+                waiters.remove(waiter);
+                queued = waiters.size();
+            } finally {
+                limiterLock.unlock();
+            }
+        } else {
+            releaseSlot();
+        }
+    }
+
+    /**
+     * 归还一个在途名额，并按当前 limit 放行排队请求
+     */
+    private void releaseSlot() {
+        List<Waiter> granted = new ArrayList<>();
+        limiterLock.lock();
+        try {
+            inFlight--;
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                Waiter waiter = waiters.pollFirst();
+                if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.GRANTED)) {
+                    inFlight++;
+                    granted.add(waiter);
+                }
+            }
+            queued = waiters.size();
+        } finally {
+            limiterLock.unlock();
+        }
+        for (Waiter waiter : granted) {
+            waiter.sink.success(new Permit());
+        }
+    }
+
+    private void increaseLimit() {
+        limiterLock.lock();
+        try {
+            // 只有并发接近上限时才说明需要更多名额，避免空闲时 limit 无意义地涨到最大
+            if (inFlight * 2 >= limit) {
+                limit = Math.min(settings.maxLimit(), limit + 1.0 / limit);
+            }
+        } finally {
+            limiterLock.unlock();
+        }
+    }
+
+    private void decreaseLimit() {
+        limiterLock.lock();
+        try {
+            double previous = limit;
+            limit = Math.max(settings.minLimit(), limit * settings.backoffRatio());
+            if ((int) previous != (int) limit) {
+                log.debug("翻译引擎 {} 并发上限下调: {} -> {}", name, (int) previous, (int) limit);
+            }
+        } finally {
+            limiterLock.unlock();
+        }
+    }
+
+    // ---------------- 熔断器 ----------------
+
+    /**
+     * 熔断器准入：关闭时放行；熔断到期时转为半开，放行有限的探测请求，其余拒绝
+     */
+    private Admission admit() {
+        if (state == State.CLOSED) {
+            return Admission.PASS;
+        }
+        breakerLock.lock();
+        try {
+            if (state == State.OPEN && System.nanoTime() >= openUntilNanos) {
+                state = State.HALF_OPEN;
+                halfOpenPermits = settings.halfOpenCalls();
+                halfOpenSuccesses = 0;
+                log.info("翻译引擎 {} 熔断到期，放行探测请求", name);
+            }
+            switch (state) {
+                case CLOSED:
+                    return Admission.PASS;
+                case HALF_OPEN:
+                    if (halfOpenPermits > 0) {
+                        halfOpenPermits--;
+                        return Admission.PROBE;
+                    }
+                    return Admission.REJECT;
+                default:
+                    return Admission.REJECT;
+            }
+        } finally {
+            breakerLock.unlock();
+        }
+    }
+
+    /**
+     * 探测请求没有得到结果（排队被拒、被取消）时归还探测名额
+     */
+    private void releaseProbe(boolean probe) {
+        if (!probe) {
+            return;
+        }
+        breakerLock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                halfOpenPermits++;
+            }
+        } finally {
+            breakerLock.unlock();
+        }
+    }
+
+    private void recordOutcome(boolean success, boolean probe) {
+        breakerLock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                if (!probe) {
+                    return;
+                }
+                if (!success) {
+                    open();
+                } else if (++halfOpenSuccesses >= settings.halfOpenCalls()) {
+                    state = State.CLOSED;
+                    resetWindow();
+                    log.info("翻译引擎 {} 探测成功，熔断恢复", name);
+                }
+                return;
+            }
+            if (state == State.OPEN) {
+                return;
+            }
+
+            if (outcomeCount == outcomes.length) {
+                if (!outcomes[outcomeIndex]) {
+                    failureCount--;
+                }
+            } else {
+                outcomeCount++;
+            }
+            outcomes[outcomeIndex] = success;
+            if (!success) {
+                failureCount++;
+            }
+            outcomeIndex = (outcomeIndex + 1) % outcomes.length;
+
+            if (outcomeCount >= settings.minimumCalls()
+                    && failureCount * 100 >= settings.failureRateThreshold() * outcomeCount) {
+                open();
+            }
+        } finally {
+            breakerLock.unlock();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntilNanos = System.nanoTime() + settings.openDuration().toNanos();
+        log.warn("翻译引擎 {} 熔断 {}s（最近 {} 次调用失败 {} 次）",
+                name, settings.openDuration().toSeconds(), outcomeCount, failureCount);
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        outcomeCount = 0;
+        outcomeIndex = 0;
+        failureCount = 0;
+    }
+
+    /**
+     * 是否为上游故障（非 429 / 408 的 4xx 属于请求本身的问题）
+     */
+    private static boolean isUpstreamFailure(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status >= 500 || status == 429 || status == 408;
+        }
+        return true;
+    }
+
+    private enum Admission {
+        PASS, PROBE, REJECT
+    }
+
+    /**
+     * 一个在途名额：成功、失败、取消三者只生效一次
+     */
+    private final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private void success(long latencyNanos, boolean probe) {
+            if (released.compareAndSet(false, true)) {
+                if (latencyNanos > settings.latencyThreshold().toNanos()) {
+                    decreaseLimit();
+                } else {
+                    increaseLimit();
+                }
+                recordOutcome(true, probe);
+                releaseSlot();
+            }
+        }
+
+        private void failure(Throwable e, boolean probe) {
+            if (released.compareAndSet(false, true)) {
+                boolean upstreamFailure = isUpstreamFailure(e);
+                if (upstreamFailure) {
+                    decreaseLimit();
+                }
+                recordOutcome(!upstreamFailure, probe);
+                releaseSlot();
+            }
+        }
+
+        private void cancel(boolean probe) {
+            if (released.compareAndSet(false, true)) {
+                releaseProbe(probe);
+                releaseSlot();
+            }
+        }
+    }
+
+    /**
+     * 排队中的请求
+     */
+    private static final class Waiter {
+        private static final int WAITING = 0;
+        private static final int GRANTED = 1;
+        private static final int CANCELLED = 2;
+
+        private final MonoSink<Permit> sink;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+}
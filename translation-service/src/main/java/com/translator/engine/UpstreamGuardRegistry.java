@@ -0,0 +1,125 @@
+package com.translator.engine;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 各翻译引擎上游的熔断器 + 并发限制（每个引擎一个 UpstreamGuard）
+ *
+ * 指标（tag engine=引擎名）：
+ * - translation.upstream.circuit.state：0 关闭 / 1 半开 / 2 熔断
+ * - translation.upstream.limit / inflight / queued：并发上限、在途数、排队数
+ * - translation.upstream.rejected（tag reason=circuit_open / queue_full / queue_timeout）：快速失败次数
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UpstreamGuardRegistry {
+
+    private final MeterRegistry meterRegistry;
+
+    // 单次上游调用超时（流式为首个增量及相邻增量的最大间隔）
+    @Value("${translation.upstream.call-timeout:30s}")
+    private Duration callTimeout;
+
+    // 自适应并发限制（AIMD）
+    @Value("${translation.upstream.limiter.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${translation.upstream.limiter.min-limit:2}")
+    private int minLimit;
+
+    @Value("${translation.upstream.limiter.max-limit:400}")
+    private int maxLimit;
+
+    @Value("${translation.upstream.limiter.latency-threshold:8s}")
+    private Duration latencyThreshold;
+
+    @Value("${translation.upstream.limiter.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${translation.upstream.limiter.max-queue:500}")
+    private int maxQueue;
+
+    @Value("${translation.upstream.limiter.queue-timeout:5s}")
+    private Duration queueTimeout;
+
+    // 熔断器
+    @Value("${translation.upstream.circuit-breaker.sliding-window:20}")
+    private int slidingWindow;
+
+    @Value("${translation.upstream.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${translation.upstream.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${translation.upstream.circuit-breaker.open-duration:30s}")
+    private Duration openDuration;
+
+    @Value("${translation.upstream.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    private final Map<String, UpstreamGuard> guards = new ConcurrentHashMap<>();
+
+    private UpstreamGuard.Settings settings;
+
+    @PostConstruct
+    public void init() {
+        settings = new UpstreamGuard.Settings(callTimeout,
+                initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio, maxQueue, queueTimeout,
+                slidingWindow, minimumCalls, failureRateThreshold, openDuration, halfOpenCalls);
+        log.info("上游保护: callTimeout={}, limit={} ({}~{}), maxQueue={}, 熔断阈值 {}% / {} 次, 熔断时长 {}",
+                callTimeout, initialLimit, minLimit, maxLimit, maxQueue, failureRateThreshold, slidingWindow, openDuration);
+    }
+
+    /**
+     * 获取引擎的保护器（首次使用时创建并注册指标）
+     */
+    public UpstreamGuard get(String engine) {
+        return guards.computeIfAbsent(engine, this::create);
+    }
+
+    private UpstreamGuard create(String engine) {
+        UpstreamGuard guard = new UpstreamGuard(engine, settings);
+
+        Gauge.builder("translation.upstream.circuit.state", guard, g -> g.state().code())
+                .tag("engine", engine)
+                .description("熔断器状态：0 关闭 / 1 半开 / 2 熔断")
+                .register(meterRegistry);
+        Gauge.builder("translation.upstream.limit", guard, UpstreamGuard::limit)
+                .tag("engine", engine)
+                .description("自适应并发上限")
+                .register(meterRegistry);
+        Gauge.builder("translation.upstream.inflight", guard, UpstreamGuard::inFlight)
+                .tag("engine", engine)
+                .description("在途上游请求数")
+                .register(meterRegistry);
+        Gauge.builder("translation.upstream.queued", guard, UpstreamGuard::queued)
+                .tag("engine", engine)
+                .description("等待并发名额的请求数")
+                .register(meterRegistry);
+        FunctionCounter.builder("translation.upstream.rejected", guard, UpstreamGuard::rejectedCircuitOpen)
+                .tags("engine", engine, "reason", "circuit_open")
+                .register(meterRegistry);
+        FunctionCounter.builder("translation.upstream.rejected", guard, UpstreamGuard::rejectedQueueFull)
+                .tags("engine", engine, "reason", "queue_full")
+                .register(meterRegistry);
+        FunctionCounter.builder("translation.upstream.rejected", guard, UpstreamGuard::rejectedQueueTimeout)
+                .tags("engine", engine, "reason", "queue_timeout")
+                .register(meterRegistry);
+        return guard;
+    }
+}
@@ -0,0 +1,22 @@
+package com.translator.engine;
+
+/**
+ * 上游翻译引擎暂不可用（熔断中、并发已满或排队超时），请求被快速拒绝
+ *
+ * @author mac
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String message) {
+        // 快速失败路径频繁创建，不需要堆栈
+        super(message, null, false, false);
+    }
+
+    /**
+     * 多个引擎均失败：cause 为首个引擎的错误，其余引擎的错误作为 suppressed 保留
+     */
+    public UpstreamUnavailableException(String message, Throwable cause, Throwable other) {
+        super(message, cause, true, false);
+        addSuppressed(other);
+    }
+}
@@ -1,6 +1,7 @@
 package com.translator.interceptor;
 
 import com.translator.service.ActivationService;
+import com.translator.service.DeviceRateLimiter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +15,7 @@ import org.springframework.web.servlet.HandlerInterceptor;
 public class AuthInterceptor implements HandlerInterceptor {
 
     private final ActivationService activationService;
+    private final DeviceRateLimiter deviceRateLimiter;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
@@ -42,9 +44,27 @@ public class AuthInterceptor implements HandlerInterceptor {
             return unauthorizedResponse(response, "授权码无效、已过期或已在其他设备绑定");
         }
 
+        // 按设备限流（含缓存命中的全部翻译请求）；批量请求按条数计，解析请求体后在 TranslationService 中检查
+        if (!isBatch(request) && !deviceRateLimiter.tryAcquireRequest(deviceId)) {
+            log.warn("设备请求过于频繁: device={}, {} {}", deviceId, request.getMethod(), request.getRequestURI());
+            return tooManyRequestsResponse(response, "翻译请求过于频繁，请稍后再试");
+        }
+
         return true;
     }
 
+    private boolean isBatch(HttpServletRequest request) {
+        return request.getRequestURI().endsWith("/translate/batch");
+    }
+
+    private boolean tooManyRequestsResponse(HttpServletResponse response, String message) throws Exception {
+        response.setStatus(429);
+        response.setHeader("Retry-After", "1");
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write(String.format("{\"success\":false,\"error\":\"%s\"}", message));
+        return false;
+    }
+
     private boolean unauthorizedResponse(HttpServletResponse response, String message) throws Exception {
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType("application/json;charset=UTF-8");
@@ -7,6 +7,9 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Mapper
 public interface ActivationCodeMapper extends BaseMapper<ActivationCode> {
 
@@ -16,6 +19,19 @@ public interface ActivationCodeMapper extends BaseMapper<ActivationCode> {
     @Select("SELECT * FROM activation_codes WHERE code = #{code}")
     ActivationCode findByCode(@Param("code") String code);
 
+    /**
+     * 按自增 ID 分页查询激活码（只取 id、code、created_at，用于构建布隆过滤器）
+     */
+    @Select("SELECT id, code, created_at FROM activation_codes WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<ActivationCode> findCodesAfterId(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    /**
+     * 查询生成时间不早于 since 的激活码，按自增 ID 分页（只取 id、code、created_at，用于布隆过滤器增量同步）
+     */
+    @Select("SELECT id, code, created_at FROM activation_codes WHERE created_at >= #{since} AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<ActivationCode> findCodesCreatedSince(@Param("since") LocalDateTime since, @Param("afterId") int afterId,
+                                               @Param("limit") int limit);
+
     /**
      * 根据用户 ID 查询有效的激活码
      */
@@ -24,7 +40,8 @@ public interface ActivationCodeMapper extends BaseMapper<ActivationCode> {
 
     /**
      * 激活码绑定用户及设备
+     * 到期时间用 TIMESTAMPADD 计算（MySQL 与压测使用的 H2 均支持）
      */
-    @Update("UPDATE activation_codes SET is_used = 1, used_by = #{userId}, device_id = #{deviceId}, used_at = NOW(), expire_at = DATE_ADD(NOW(), INTERVAL days DAY) WHERE code = #{code} AND is_used = 0")
+    @Update("UPDATE activation_codes SET is_used = 1, used_by = #{userId}, device_id = #{deviceId}, used_at = NOW(), expire_at = TIMESTAMPADD(DAY, days, NOW()) WHERE code = #{code} AND is_used = 0")
     int activateCode(@Param("code") String code, @Param("userId") Long userId, @Param("deviceId") String deviceId);
 }
@@ -0,0 +1,197 @@
+package com.translator.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 翻译服务业务指标（Prometheus：/actuator/prometheus）
+ *
+ * 翻译：
+ * - translation.request（endpoint, result=hit/miss/skipped/error/rate_limited）：接口耗时（skipped 为无需翻译，直接返回原文）
+ * - translation.text.length（endpoint）：原文字符数
+ * - translation.batch.size：批量请求条数
+ * - translation.cache.lookups（level=l1/l2, result=hit/miss）：缓存查询，命中率 = hit / (hit + miss)
+ * - translation.cache.redis（op）：Redis 操作耗时
+ * - translation.cache.ttl.refresh（result=refreshed/dropped/failed）：异步续期的 Key 数
+ * - translation.cache.writes（result=written/failed/dropped/sync）：异步写入 Redis 的条目数（sync 为队列满时同步写入）
+ * - translation.cache.writes.pending：等待写入 Redis 的条目数
+ * - translation.memory（result=reference/miss）：翻译记忆查询（作为参考译文 / 无相似原文）
+ *
+ * 上游：
+ * - translation.upstream（type=single/batch/stream, result=success/empty/error）：翻译引擎调用耗时（含失败切换）
+ * - translation.engine.latency（engine, result）：各引擎单次调用耗时
+ * - translation.upstream.tokens（engine, type=prompt/completion）：上游返回的 usage
+ * - translation.scheduler.wait（priority=interactive/background）：等待上游名额的时间（立即获得时为 0）
+ * - translation.scheduler.dropped（priority, reason=queue_full/evicted/expired）：排队被拒绝或丢弃的请求数
+ *
+ * 授权：
+ * - translation.auth.validate（source=local/memory/redis/db, result=valid/invalid/expired/device_mismatch）
+ * - translation.auth.activate（result=success/failure）
+ * - translation.auth.invalidation（result=published/publish_failed/received/reset）：授权失效广播（reset 为检测到丢失后清空本地缓存）
+ *
+ * 各 MeterProvider 按 Tag 组合缓存 Meter，热路径上不重复构建。
+ *
+ * @author mac
+ */
+@Component
+public class TranslationMetrics {
+
+    private final Meter.MeterProvider<Timer> requestTimers;
+    private final Meter.MeterProvider<DistributionSummary> textLengths;
+    private final DistributionSummary batchSizes;
+    private final Meter.MeterProvider<Counter> cacheLookups;
+    private final Meter.MeterProvider<Timer> redisTimers;
+    private final Meter.MeterProvider<Counter> memoryLookups;
+    private final Meter.MeterProvider<Counter> ttlRefreshes;
+    private final Meter.MeterProvider<Counter> cacheWrites;
+    private final Meter.MeterProvider<Timer> upstreamTimers;
+    private final Meter.MeterProvider<Timer> engineTimers;
+    private final Meter.MeterProvider<DistributionSummary> upstreamTokens;
+    private final Meter.MeterProvider<Timer> schedulerWaits;
+    private final Meter.MeterProvider<Counter> schedulerDrops;
+    private final Meter.MeterProvider<Timer> validateTimers;
+    private final Meter.MeterProvider<Timer> activateTimers;
+    private final Meter.MeterProvider<Counter> authInvalidations;
+
+    public TranslationMetrics(MeterRegistry registry) {
+        this.requestTimers = Timer.builder("translation.request")
+                .description("翻译接口耗时")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.textLengths = DistributionSummary.builder("translation.text.length")
+                .description("原文字符数")
+                .baseUnit("chars")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.batchSizes = DistributionSummary.builder("translation.batch.size")
+                .description("批量翻译条数")
+                .baseUnit("items")
+                .register(registry);
+        this.cacheLookups = Counter.builder("translation.cache.lookups")
+                .description("翻译缓存查询次数")
+                .withRegistry(registry);
+        this.redisTimers = Timer.builder("translation.cache.redis")
+                .description("翻译缓存 Redis 操作耗时")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.ttlRefreshes = Counter.builder("translation.cache.ttl.refresh")
+                .description("翻译缓存异步续期的 Key 数")
+                .withRegistry(registry);
+        this.cacheWrites = Counter.builder("translation.cache.writes")
+                .description("翻译缓存异步写入 Redis 的条目数")
+                .withRegistry(registry);
+        this.memoryLookups = Counter.builder("translation.memory")
+                .description("翻译记忆查询次数")
+                .withRegistry(registry);
+        this.upstreamTimers = Timer.builder("translation.upstream")
+                .description("翻译引擎调用耗时（含失败切换）")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.engineTimers = Timer.builder("translation.engine.latency")
+                .description("单个翻译引擎调用耗时")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.upstreamTokens = DistributionSummary.builder("translation.upstream.tokens")
+                .description("上游返回的 Token 用量")
+                .baseUnit("tokens")
+                .withRegistry(registry);
+        this.schedulerWaits = Timer.builder("translation.scheduler.wait")
+                .description("等待上游名额的时间")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.schedulerDrops = Counter.builder("translation.scheduler.dropped")
+                .description("排队被拒绝或丢弃的上游请求数")
+                .withRegistry(registry);
+        this.validateTimers = Timer.builder("translation.auth.validate")
+                .description("授权校验耗时")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.activateTimers = Timer.builder("translation.auth.activate")
+                .description("激活耗时")
+                .withRegistry(registry);
+        this.authInvalidations = Counter.builder("translation.auth.invalidation")
+                .description("授权失效广播消息数")
+                .withRegistry(registry);
+    }
+
+    public void recordRequest(String endpoint, String result, long startNanos) {
+        requestTimers.withTags("endpoint", endpoint, "result", result)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTextLength(String endpoint, int chars) {
+        textLengths.withTags("endpoint", endpoint).record(chars);
+    }
+
+    public void recordBatchSize(int items) {
+        batchSizes.record(items);
+    }
+
+    public void recordCacheLookup(String level, boolean hit, int count) {
+        if (count > 0) {
+            cacheLookups.withTags("level", level, "result", hit ? "hit" : "miss").increment(count);
+        }
+    }
+
+    public void recordRedis(String op, long startNanos) {
+        redisTimers.withTags("op", op).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTtlRefresh(String result, int keys) {
+        ttlRefreshes.withTags("result", result).increment(keys);
+    }
+
+    public void recordCacheWrite(String result, int entries) {
+        cacheWrites.withTags("result", result).increment(entries);
+    }
+
+    public void recordMemory(String result) {
+        memoryLookups.withTags("result", result).increment();
+    }
+
+    public void recordUpstream(String type, String result, long startNanos) {
+        upstreamTimers.withTags("type", type, "result", result)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEngine(String engine, String result, long nanos) {
+        engineTimers.withTags("engine", engine, "result", result).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTokens(String engine, Integer promptTokens, Integer completionTokens) {
+        if (promptTokens != null) {
+            upstreamTokens.withTags("engine", engine, "type", "prompt").record(promptTokens);
+        }
+        if (completionTokens != null) {
+            upstreamTokens.withTags("engine", engine, "type", "completion").record(completionTokens);
+        }
+    }
+
+    public void recordSchedulerWait(String priority, long nanos) {
+        schedulerWaits.withTags("priority", priority).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSchedulerDrop(String priority, String reason) {
+        schedulerDrops.withTags("priority", priority, "reason", reason).increment();
+    }
+
+    public void recordValidate(String source, String result, long startNanos) {
+        validateTimers.withTags("source", source, "result", result)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordActivate(boolean success, long startNanos) {
+        activateTimers.withTags("result", success ? "success" : "failure")
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAuthInvalidation(String result) {
+        authInvalidations.withTags("result", result).increment();
+    }
+}
@@ -0,0 +1,293 @@
+package com.translator.service;
+
+import com.translator.entity.ActivationCode;
+import com.translator.mapper.ActivationCodeMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/**
+ * 已发放激活码的布隆过滤器
+ *
+ * 启动时从 activation_codes 全量加载，之后按生成时间（created_at）增量同步后台新生成的激活码。
+ * 不在过滤器中的激活码一定不存在，可直接在内存中拒绝，不查 Redis / MySQL。
+ *
+ * 增量同步不按自增 ID 水位：ID 在插入时分配，并发事务可能晚于更大的 ID 提交，水位越过后这些行永远不会被加载。
+ * 每次从已见到的最大 created_at 往前回看 overlap-ms 重新扫描（重复写入过滤器无副作用），
+ * 只要事务在 overlap-ms 内提交就不会漏掉；created_at 由数据库时钟生成，不受本机时钟偏差影响。
+ *
+ * 首次加载完成前（或加载失败时）放行所有激活码，退化为原有的 Redis / 数据库校验。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActivationCodeBloomFilter {
+
+    private final ActivationCodeMapper activationCodeMapper;
+
+    private static final int LOAD_PAGE_SIZE = 5000;
+
+    @Value("${translation.auth.bloom.enabled:true}")
+    private boolean enabled;
+
+    // 预计激活码数量与误判率，实际数量超过预计值时自动按两倍容量重建
+    @Value("${translation.auth.bloom.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${translation.auth.bloom.fpp:0.001}")
+    private double fpp;
+
+    // 激活 / 校验时未命中过滤器，触发即时增量同步的最小间隔
+    @Value("${translation.auth.bloom.on-demand-sync-interval-ms:1000}")
+    private long onDemandSyncIntervalMs;
+
+    // 增量同步回看窗口：须大于生成激活码事务的最长提交耗时
+    @Value("${translation.auth.bloom.overlap-ms:60000}")
+    private long overlapMs;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private volatile BitArray bits;
+    private volatile boolean loaded;
+    private volatile long lastOnDemandSync;
+
+    // 已加载的最大自增 ID（只用于统计新增条数）与最大生成时间（增量同步水位）
+    private int lastId;
+    private LocalDateTime lastCreatedAt;
+    private long count;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("激活码布隆过滤器已关闭");
+            return;
+        }
+        sync();
+    }
+
+    /**
+     * 激活码是否可能存在（false 表示一定不存在）
+     */
+    public boolean mightContain(String code) {
+        BitArray current = bits;
+        if (!enabled || !loaded || current == null) {
+            return true;
+        }
+        return current.mightContain(code);
+    }
+
+    /**
+     * 激活 / 校验时过滤器未命中：可能是后台刚生成（或其他实例刚激活）的激活码，限频做一次即时增量同步后再判断
+     *
+     * 定时同步正在进行时等待其完成，而不是跳过同步直接判断
+     */
+    public boolean mightContainAfterSync(String code) {
+        if (mightContain(code)) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastOnDemandSync >= onDemandSyncIntervalMs) {
+            lastOnDemandSync = now;
+            syncLock.lock();
+            try {
+                doSync();
+            } finally {
+                syncLock.unlock();
+            }
+        }
+        return mightContain(code);
+    }
+
+    /**
+     * 定时增量同步（首次加载失败时重试全量加载）
+     */
+    @Scheduled(fixedDelayString = "${translation.auth.bloom.sync-interval-ms:10000}")
+    public void scheduledSync() {
+        if (enabled) {
+            sync();
+        }
+    }
+
+    private void sync() {
+        if (!syncLock.tryLock()) {
+            return;
+        }
+        try {
+            doSync();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * 执行一次同步（调用方持有 syncLock）
+     */
+    private void doSync() {
+        try {
+            if (bits == null) {
+                bits = new BitArray(expectedInsertions, fpp);
+            }
+
+            int added = loaded && lastCreatedAt != null ? loadRecent() : loadAll();
+            count += added;
+
+            if (!loaded) {
+                loaded = true;
+                log.info("激活码布隆过滤器加载完成: {} 个激活码, 容量 {}, 误判率 {}", count, expectedInsertions, fpp);
+            } else if (added > 0) {
+                log.debug("激活码布隆过滤器增量同步: +{} (共 {})", added, count);
+            }
+
+            if (count > expectedInsertions) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("激活码布隆过滤器同步失败（未加载前放行全部激活码）: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 全量加载（首次加载，或表中此前没有带生成时间的激活码），按自增 ID 分页
+     *
+     * @return 新增条数
+     */
+    private int loadAll() {
+        return load(afterId -> activationCodeMapper.findCodesAfterId(afterId, LOAD_PAGE_SIZE));
+    }
+
+    /**
+     * 增量同步：从水位往前回看 overlap-ms，扫描这段时间内生成的激活码
+     *
+     * @return 新增条数
+     */
+    private int loadRecent() {
+        LocalDateTime since = lastCreatedAt.minus(Duration.ofMillis(overlapMs));
+        return load(afterId -> activationCodeMapper.findCodesCreatedSince(since, afterId, LOAD_PAGE_SIZE));
+    }
+
+    /**
+     * 分页写入过滤器并推进水位；新增条数按 ID 是否超过已加载的最大 ID 估算（晚提交的较小 ID 不计入，只影响扩容时机）
+     */
+    private int load(IntFunction<List<ActivationCode>> pageAfterId) {
+        int added = 0;
+        int afterId = 0;
+        List<ActivationCode> page;
+        do {
+            page = pageAfterId.apply(afterId);
+            for (ActivationCode activationCode : page) {
+                bits.put(activationCode.getCode());
+                afterId = activationCode.getId();
+                if (afterId > lastId) {
+                    lastId = afterId;
+                    added++;
+                }
+                LocalDateTime createdAt = activationCode.getCreatedAt();
+                if (createdAt != null && (lastCreatedAt == null || createdAt.isAfter(lastCreatedAt))) {
+                    lastCreatedAt = createdAt;
+                }
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        return added;
+    }
+
+    /**
+     * 容量不足时按两倍容量全量重建，重建完成后整体替换
+     */
+    private void rebuild() {
+        expectedInsertions = Math.max(expectedInsertions * 2, count * 2);
+        BitArray rebuilt = new BitArray(expectedInsertions, fpp);
+        int rebuiltLastId = 0;
+        List<ActivationCode> page;
+        do {
+            page = activationCodeMapper.findCodesAfterId(rebuiltLastId, LOAD_PAGE_SIZE);
+            for (ActivationCode activationCode : page) {
+                rebuilt.put(activationCode.getCode());
+                rebuiltLastId = Math.max(rebuiltLastId, activationCode.getId());
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+
+        bits = rebuilt;
+        lastId = rebuiltLastId;
+        log.info("激活码布隆过滤器已按新容量 {} 重建", expectedInsertions);
+    }
+
+    /**
+     * 位数组 + k 个哈希（双重哈希 g_i = h1 + i * h2），写入使用 CAS，读取无锁
+     */
+    private static final class BitArray {
+        private final AtomicLongArray data;
+        private final long numBits;
+        private final int numHashes;
+
+        private BitArray(long expectedInsertions, double fpp) {
+            long n = Math.max(1, expectedInsertions);
+            long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6);
+            this.data = new AtomicLongArray(words);
+            this.numBits = (long) words << 6;
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+        }
+
+        private void put(String code) {
+            long h1 = hash(code);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = data.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!data.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        private boolean mightContain(String code) {
+            long h1 = hash(code);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+                if ((data.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * FNV-1a 64 位哈希 + 混淆
+         */
+        private static long hash(String code) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < code.length(); i++) {
+                h ^= code.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return mix(h);
+        }
+
+        /**
+         * SplitMix64 终结函数
+         */
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
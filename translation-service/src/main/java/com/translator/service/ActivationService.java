@@ -4,6 +4,7 @@ import com.translator.dto.ActivateRequest;
 import com.translator.dto.ActivateResponse;
 import com.translator.entity.ActivationCode;
 import com.translator.mapper.ActivationCodeMapper;
+import com.translator.metrics.TranslationMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -23,6 +24,10 @@ public class ActivationService {
 
     private final ActivationCodeMapper activationCodeMapper;
     private final StringRedisTemplate redisTemplate;
+    private final AuthorizationCache authorizationCache;
+    private final ActivationCodeBloomFilter activationCodeBloomFilter;
+    private final TranslationMetrics metrics;
+    private final AuthInvalidationBus invalidationBus;
 
     // Redis Key 前缀：code -> expireTimestamp
     private static final String CODE_PREFIX = "translator:code:";
@@ -32,14 +37,31 @@ public class ActivationService {
      * @return 成功时返回激活码作为 Token
      */
     public ActivateResponse activate(ActivateRequest request) {
+        long start = System.nanoTime();
+        ActivateResponse response = doActivate(request);
+        metrics.recordActivate(response.isSuccess(), start);
+        return response;
+    }
+
+    private ActivateResponse doActivate(ActivateRequest request) {
         String code = request.getCode();
         Long userId = request.getUserId();
 
         log.info("用户 {} 尝试激活码: {}", userId, code);
 
+        // 0. 布隆过滤器 / 负缓存：确定无效的激活码不查数据库
+        if (code == null || authorizationCache.isKnownInvalid(code)
+                || !activationCodeBloomFilter.mightContainAfterSync(code)) {
+            return ActivateResponse.builder()
+                    .success(false)
+                    .message("激活码无效")
+                    .build();
+        }
+
         // 1. 查询激活码
         ActivationCode activationCode = activationCodeMapper.findByCode(code);
         if (activationCode == null) {
+            authorizationCache.markInvalid(code);
             return ActivateResponse.builder()
                     .success(false)
                     .message("激活码无效")
@@ -50,6 +72,7 @@ public class ActivationService {
         if (activationCode.getIsUsed()) {
             // 已被激活的情况下，检查是否过期
             if (activationCode.getExpireAt() != null && activationCode.getExpireAt().isBefore(LocalDateTime.now())) {
+                authorizationCache.markInvalid(code);
                 return ActivateResponse.builder()
                         .success(false)
                         .message("该激活码已过期")
@@ -114,6 +137,13 @@ public class ActivationService {
         String codeKey = CODE_PREFIX + activationCode.getCode();
         String value = storedExpireTimestamp + "|" + activationCode.getDeviceId();
         redisTemplate.opsForValue().set(codeKey, value, ttl);
+
+        // 4. 同步本地授权缓存（换绑时覆盖旧设备），绑定设备或到期时间可能变化时通知其他实例
+        AuthorizationCache.Entry previous = authorizationCache.get(activationCode.getCode());
+        authorizationCache.put(activationCode.getCode(), activationCode.getDeviceId(), storedExpireTimestamp);
+        if (!new AuthorizationCache.Entry(activationCode.getDeviceId(), storedExpireTimestamp).equals(previous)) {
+            invalidationBus.publish(activationCode.getCode());
+        }
         
         log.info("授权码 Redis 信息已刷新: code={}, deviceId={}, 剩余 TTL: {}s", 
             activationCode.getCode(), activationCode.getDeviceId(), ttl.getSeconds());
@@ -139,21 +169,44 @@ public class ActivationService {
 
     /**
      * 验证授权码是否有效
-     * 1. 先查 Redis
-     * 2. Redis 没有则查数据库
-     * 3. 数据库有且未过期则重新加载到 Redis
-     */
-    /**
-     * 验证授权码是否有效
-     * 1. 先查 Redis
-     * 2. Redis 没有则查数据库
-     * 3. 数据库有且未过期则重新加载到 Redis
+     * 0. 先查本地授权缓存，再用负缓存拒绝已知无效的激活码
+     * 1. 再查 Redis（有效则回填本地缓存）
+     * 2. Redis 没有则查数据库；布隆过滤器（即时同步后）仍未命中的激活码不查数据库，直接拒绝
+     * 3. 数据库有且未过期则重新加载到 Redis 与本地缓存
      */
     public boolean validateCode(String code, String deviceId) {
+        long start = System.nanoTime();
         if (code == null || code.isEmpty() || deviceId == null) {
-            return false;
+            return validated("memory", "invalid", start);
         }
 
+        long now = System.currentTimeMillis();
+
+        // 0. 本地授权缓存（已解析的到期时间与绑定设备，无网络往返）
+        AuthorizationCache.Entry cachedAuth = authorizationCache.get(code);
+        if (cachedAuth != null) {
+            if (cachedAuth.expireTimestamp() > now) {
+                if (deviceId.equals(cachedAuth.deviceId())) {
+                    return validated("local", "valid", start);
+                }
+                log.warn("授权码设备不匹配: token={}, reqDevice={}, boundDevice={}", code, deviceId, cachedAuth.deviceId());
+                return validated("local", "device_mismatch", start);
+            }
+            // 本地条目已到期：失效后回源 Redis / 数据库确认
+            authorizationCache.invalidate(code);
+        }
+
+        // 0.1 负缓存：已知无效的激活码直接拒绝
+        if (authorizationCache.isKnownInvalid(code)) {
+            log.debug("授权码无效（内存拒绝）: {}", code);
+            return validated("memory", "invalid", start);
+        }
+
+        // 0.2 布隆过滤器：未命中时可能是其他实例刚生成并激活、本实例尚未同步的激活码，先即时同步；
+        // 仍未命中时不立即拒绝（即时同步限频，拒绝会让客户端清除 Token 退出登录），只跳过数据库兜底，
+        // 已激活的激活码在激活时已写入 Redis
+        boolean unknownToFilter = !activationCodeBloomFilter.mightContainAfterSync(code);
+
         // 1. 校验 Code 的效期与设备匹配性（Redis）
         String codeKey = CODE_PREFIX + code;
         String val = redisTemplate.opsForValue().get(codeKey);
@@ -162,48 +215,71 @@ public class ActivationService {
             long expireTimestamp = Long.parseLong(parts[0]);
             String boundDeviceId = parts.length > 1 ? parts[1] : null;
 
-            if (expireTimestamp > System.currentTimeMillis()) {
+            if (expireTimestamp > now) {
+                authorizationCache.put(code, boundDeviceId, expireTimestamp);
                 // 校验设备一致性
                 if (deviceId.equals(boundDeviceId)) {
-                    return true;
+                    return validated("redis", "valid", start);
                 } else {
                     log.warn("授权码设备不匹配: token={}, reqDevice={}, boundDevice={}", code, deviceId, boundDeviceId);
-                    return false;
+                    return validated("redis", "device_mismatch", start);
                 }
             } else {
                 log.debug("授权码已过期（Redis）: {}", code);
                 redisTemplate.delete(codeKey);
-                return false;
+                authorizationCache.markInvalid(code);
+                return validated("redis", "expired", start);
             }
         }
 
+        if (unknownToFilter) {
+            log.debug("授权码无效（布隆过滤器与 Redis 均未命中）: {}", code);
+            return validated("memory", "invalid", start);
+        }
+
         // 2. 兜底逻辑：Redis 中缺失，查数据库
-        return validateWithDb(code, deviceId);
+        return validated("db", validateWithDb(code, deviceId), start);
     }
 
-    private boolean validateWithDb(String code, String deviceId) {
+    /**
+     * 记录授权校验的来源与结果
+     */
+    private boolean validated(String source, String result, long start) {
+        metrics.recordValidate(source, result, start);
+        return "valid".equals(result);
+    }
+
+    /**
+     * 数据库校验，返回 valid / invalid / device_mismatch / expired
+     */
+    private String validateWithDb(String code, String deviceId) {
         log.debug("Redis 未命中，查询数据库: code={}", code);
         ActivationCode activationCode = activationCodeMapper.findByCode(code);
         
-        if (activationCode == null || !activationCode.getIsUsed()) {
-            return false;
+        if (activationCode == null) {
+            authorizationCache.markInvalid(code);
+            return "invalid";
+        }
+        if (!activationCode.getIsUsed()) {
+            return "invalid";
         }
 
         // 校验数据库中的设备 ID
         if (activationCode.getDeviceId() != null && !activationCode.getDeviceId().equals(deviceId)) {
             log.warn("数据库校验：授权码设备不一致");
-            return false;
+            return "device_mismatch";
         }
 
         LocalDateTime expireAt = activationCode.getExpireAt();
         if (expireAt == null || expireAt.isBefore(LocalDateTime.now())) {
             log.warn("数据库校验：授权码已过期");
-            return false;
+            authorizationCache.markInvalid(code);
+            return "expired";
         }
 
         // 刷新 Redis
         saveToRedis(activationCode);
-        return true;
+        return "valid";
     }
 
     /**
@@ -0,0 +1,204 @@
+package com.translator.service;
+
+import com.translator.metrics.TranslationMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 多实例间的授权失效广播（Redis Pub/Sub）
+ *
+ * 激活码换绑、到期时间变化等写入 Redis 后广播失效消息，其他实例收到后丢弃本地授权缓存中的该激活码，
+ * 下次校验回源 Redis，本地缓存因此可以长时间持有授权信息而不必每个请求查 Redis。
+ *
+ * 消息：epoch|seq|instanceId|code，由 Lua 脚本原子地递增序号并发布，序号与发布顺序一致：
+ * - seq 跳号：中间的消息丢失，清空本地授权缓存
+ * - epoch 变化（Redis 被清空或重建，序号从头开始）：清空本地授权缓存
+ * - 定期读取当前序号：上次检查时已发布的序号到现在仍未收到（末尾消息丢失或订阅断开），清空本地授权缓存
+ * 清空只会让后续请求回源 Redis 一次，本地缓存的 TTL 仍是最终兜底。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuthInvalidationBus {
+
+    private final StringRedisTemplate redisTemplate;
+    private final AuthorizationCache authorizationCache;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+    private final TranslationMetrics metrics;
+
+    private static final String CHANNEL = "translator:auth:invalidate";
+    private static final String SEQ_KEY = "translator:auth:invalidate:seq";
+    private static final String EPOCH_KEY = "translator:auth:invalidate:epoch";
+
+    /**
+     * epoch 不存在时创建，序号递增后发布，返回序号
+     */
+    private static final RedisScript<Long> PUBLISH_SCRIPT = new DefaultRedisScript<>(
+            "local epoch = redis.call('GET', KEYS[2]) " +
+            "if not epoch then epoch = ARGV[1] redis.call('SET', KEYS[2], epoch) end " +
+            "local seq = redis.call('INCR', KEYS[1]) " +
+            "redis.call('PUBLISH', ARGV[2], epoch .. '|' .. seq .. '|' .. ARGV[3] .. '|' .. ARGV[4]) " +
+            "return seq",
+            Long.class);
+
+    @Value("${translation.auth.invalidation.enabled:true}")
+    private boolean enabled;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // 保护 epoch / lastSeq / checkedSeq（订阅线程与定时检查）
+    private final ReentrantLock lock = new ReentrantLock();
+    // 已知的 epoch 与收到的最大序号
+    private String epoch;
+    private long lastSeq;
+    // 上次检查时 Redis 中的序号
+    private long checkedSeq;
+
+    @PostConstruct
+    public void init() {
+        RedisMessageListenerContainer container = listenerContainer.getIfAvailable();
+        if (!enabled || container == null) {
+            enabled = false;
+            log.info("授权失效广播已关闭");
+            return;
+        }
+        container.addMessageListener((message, pattern) -> onMessage(message), new ChannelTopic(CHANNEL));
+        log.info("授权失效广播已启用: channel={}, instanceId={}", CHANNEL, instanceId);
+    }
+
+    /**
+     * 广播激活码失效（本实例的本地缓存由调用方维护）
+     */
+    public void publish(String code) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.execute(PUBLISH_SCRIPT, List.of(SEQ_KEY, EPOCH_KEY),
+                    UUID.randomUUID().toString(), CHANNEL, instanceId, code);
+            metrics.recordAuthInvalidation("published");
+        } catch (Exception e) {
+            // 广播失败时其他实例依赖本地缓存 TTL 过期
+            log.warn("授权失效广播发送失败: code={}, {}", code, e.getMessage());
+            metrics.recordAuthInvalidation("publish_failed");
+        }
+    }
+
+    private void onMessage(Message message) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 4);
+        if (parts.length != 4) {
+            log.warn("授权失效消息格式错误: {}", body);
+            return;
+        }
+        long seq;
+        try {
+            seq = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            log.warn("授权失效消息序号错误: {}", body);
+            return;
+        }
+
+        track(parts[0], seq);
+        if (!instanceId.equals(parts[2])) {
+            authorizationCache.invalidate(parts[3]);
+            metrics.recordAuthInvalidation("received");
+        }
+    }
+
+    /**
+     * 按 epoch 与序号检测丢失的消息
+     */
+    private void track(String messageEpoch, long seq) {
+        lock.lock();
+        try {
+            if (epoch == null) {
+                epoch = messageEpoch;
+                lastSeq = seq;
+                return;
+            }
+            if (!epoch.equals(messageEpoch)) {
+                reset("epoch 变化");
+                epoch = messageEpoch;
+                lastSeq = seq;
+                return;
+            }
+            if (seq > lastSeq + 1) {
+                reset("序号跳号 " + lastSeq + " -> " + seq);
+            }
+            lastSeq = Math.max(lastSeq, seq);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 定期核对 Redis 中的 epoch 与序号，发现末尾消息丢失或订阅中断
+     */
+    @Scheduled(fixedDelayString = "${translation.auth.invalidation.check-interval-ms:5000}")
+    public void check() {
+        if (!enabled) {
+            return;
+        }
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(List.of(EPOCH_KEY, SEQ_KEY));
+        } catch (Exception e) {
+            log.debug("授权失效序号检查失败: {}", e.getMessage());
+            return;
+        }
+        if (values == null) {
+            return;
+        }
+        String currentEpoch = values.get(0);
+        long currentSeq = values.get(1) != null ? Long.parseLong(values.get(1)) : 0;
+        lock.lock();
+        try {
+            if (currentEpoch == null) {
+                // 尚未发布过或 Redis 已清空：等待下一条消息建立 epoch
+                if (epoch != null) {
+                    reset("epoch 丢失");
+                    epoch = null;
+                }
+            } else if (epoch == null) {
+                epoch = currentEpoch;
+                lastSeq = currentSeq;
+            } else if (!epoch.equals(currentEpoch) || currentSeq < lastSeq) {
+                reset("epoch 变化");
+                epoch = currentEpoch;
+                lastSeq = currentSeq;
+            } else if (checkedSeq > lastSeq) {
+                // 上次检查时已发布的消息至今未收到
+                reset("消息未送达 " + lastSeq + " < " + checkedSeq);
+                lastSeq = checkedSeq;
+            }
+            checkedSeq = currentSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reset(String reason) {
+        log.warn("⚠️ 授权失效广播可能丢失消息（{}），清空本地授权缓存", reason);
+        authorizationCache.invalidateAll();
+        metrics.recordAuthInvalidation("reset");
+    }
+}
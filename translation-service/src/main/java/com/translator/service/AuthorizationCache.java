@@ -0,0 +1,125 @@
+package com.translator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 本地授权缓存
+ *
+ * 缓存已解析的授权信息（绑定设备 + 到期时间戳），热路径校验只需一次无锁 Map 读取，
+ * 不再每个请求都查 Redis 并解析 "expireTimestamp|deviceId" 字符串。
+ *
+ * 按激活码索引，条目内保存绑定设备，校验时比对 (code, deviceId)；
+ * 激活码换绑或刷新时由 ActivationService 覆盖或失效对应条目，并经 AuthInvalidationBus 通知其他实例失效。
+ * 条目按写入时间过期（默认 60 秒），作为广播丢失时的兜底一致性窗口。
+ *
+ * 另有短 TTL 的负缓存，记录已确认不存在或已过期的激活码，重复的无效 Token 直接在内存中拒绝。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+public class AuthorizationCache {
+
+    @Value("${translation.auth.local-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${translation.auth.local-cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${translation.auth.local-cache.ttl:60s}")
+    private Duration ttl;
+
+    @Value("${translation.auth.negative-cache.max-size:100000}")
+    private long negativeMaxSize;
+
+    @Value("${translation.auth.negative-cache.ttl:30s}")
+    private Duration negativeTtl;
+
+    private Cache<String, Entry> cache;
+    private Cache<String, Boolean> invalidCodes;
+
+    @PostConstruct
+    public void init() {
+        invalidCodes = Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(negativeTtl)
+                .build();
+
+        if (!enabled) {
+            log.info("本地授权缓存已关闭");
+            return;
+        }
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        log.info("本地授权缓存已启用: maxSize={}, ttl={}", maxSize, ttl);
+    }
+
+    /**
+     * 查询激活码的已解析授权信息，未缓存时返回 null
+     */
+    public Entry get(String code) {
+        return cache != null ? cache.getIfPresent(code) : null;
+    }
+
+    /**
+     * 写入（覆盖）激活码的授权信息
+     */
+    public void put(String code, String deviceId, long expireTimestamp) {
+        invalidCodes.invalidate(code);
+        if (cache != null) {
+            cache.put(code, new Entry(deviceId, expireTimestamp));
+        }
+    }
+
+    /**
+     * 失效激活码（换绑、吊销、过期时调用）
+     */
+    public void invalidate(String code) {
+        invalidCodes.invalidate(code);
+        if (cache != null) {
+            cache.invalidate(code);
+        }
+    }
+
+    /**
+     * 清空全部条目
+     */
+    public void invalidateAll() {
+        invalidCodes.invalidateAll();
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * 记录已确认无效（不存在或已过期）的激活码
+     */
+    public void markInvalid(String code) {
+        invalidCodes.put(code, Boolean.TRUE);
+    }
+
+    /**
+     * 激活码是否在负缓存中
+     */
+    public boolean isKnownInvalid(String code) {
+        return invalidCodes.getIfPresent(code) != null;
+    }
+
+    /**
+     * 已解析的授权信息
+     *
+     * @param deviceId        绑定的设备 ID
+     * @param expireTimestamp 到期时间戳（毫秒，已含 10 秒缓冲）
+     */
+    public record Entry(String deviceId, long expireTimestamp) {
+    }
+}
@@ -0,0 +1,252 @@
+package com.translator.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 翻译缓存在 Redis 中的编码
+ *
+ * 进程内（L1、合并、快照）始终使用 "translator:translation:" + 32 位十六进制 MD5 形式的逻辑 Key，
+ * 只有读写 Redis 时才经过本类转换：
+ * - string：Key 与译文都是 UTF-8 字符串（原有格式）
+ * - compact：Key 为短前缀 + 16 字节原始摘要（55 字节 -> 19 字节）；译文为二进制信封
+ * - migrate：按 compact 写入，读取时同时查询 compact 与 string 两种 Key（同一次 MGET），
+ *   旧格式命中后按 compact 重新写入；运行超过缓存 TTL（7 天）后即可切换为 compact
+ *
+ * 信封格式：version(1 字节) flags(1 字节) [原始长度(varint)，仅压缩时] payload
+ * - flags bit0：payload 为 Deflate 压缩（原始字节数达到 compress-min-bytes 且压缩后更小时）
+ * - flags bit1：文本按 UTF-16BE 存储（中日韩文本比 UTF-8 少三分之一），否则为 UTF-8
+ *
+ * 源 / 目标语言已包含在 Key 的摘要中，信封不重复保存。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+public class CacheCodec {
+
+    public enum Mode {
+        STRING, COMPACT, MIGRATE
+    }
+
+    private static final String LOGICAL_PREFIX = "translator:translation:";
+    private static final int DIGEST_HEX_CHARS = 32;
+
+    private static final byte VERSION = 1;
+    private static final int FLAG_DEFLATE = 1;
+    private static final int FLAG_UTF16 = 1 << 1;
+
+    // 解压后长度上限，防止损坏的长度字段导致大块分配
+    private static final int MAX_RAW_BYTES = 16 * 1024 * 1024;
+
+    @Value("${translation.cache.encoding.mode:string}")
+    private String modeName;
+
+    @Value("${translation.cache.encoding.key-prefix:tt:}")
+    private String keyPrefix;
+
+    // 原始字节数达到该值才尝试压缩（短译文压缩收益小于开销）
+    @Value("${translation.cache.encoding.compress-min-bytes:256}")
+    private int compressMinBytes;
+
+    private Mode mode;
+    private byte[] prefixBytes;
+
+    @PostConstruct
+    public void init() {
+        mode = Mode.valueOf(modeName.trim().toUpperCase(Locale.ROOT));
+        prefixBytes = keyPrefix.getBytes(StandardCharsets.UTF_8);
+        log.info("翻译缓存 Redis 编码: mode={}, keyPrefix={}, compressMinBytes={}", mode, keyPrefix, compressMinBytes);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * migrate 模式下读取时需要同时查询旧格式 Key
+     */
+    public boolean readsLegacy() {
+        return mode == Mode.MIGRATE;
+    }
+
+    /**
+     * 当前模式下写入、续期使用的 Redis Key
+     */
+    public byte[] key(String cacheKey) {
+        if (mode == Mode.STRING) {
+            return legacyKey(cacheKey);
+        }
+        if (cacheKey.length() != LOGICAL_PREFIX.length() + DIGEST_HEX_CHARS || !cacheKey.startsWith(LOGICAL_PREFIX)) {
+            // 非摘要形式的 Key（生成摘要失败时的兜底）按原样保存
+            return legacyKey(cacheKey);
+        }
+        byte[] key = new byte[prefixBytes.length + DIGEST_HEX_CHARS / 2];
+        System.arraycopy(prefixBytes, 0, key, 0, prefixBytes.length);
+        for (int i = 0; i < DIGEST_HEX_CHARS / 2; i++) {
+            int offset = LOGICAL_PREFIX.length() + i * 2;
+            key[prefixBytes.length + i] = (byte) ((HexFormat.fromHexDigit(cacheKey.charAt(offset)) << 4)
+                    | HexFormat.fromHexDigit(cacheKey.charAt(offset + 1)));
+        }
+        return key;
+    }
+
+    /**
+     * 原有格式的 Redis Key
+     */
+    public byte[] legacyKey(String cacheKey) {
+        return cacheKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public byte[] encode(String value) {
+        if (mode == Mode.STRING) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+        int flags = 0;
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        if (raw.length > value.length() * 2) {
+            raw = value.getBytes(StandardCharsets.UTF_16BE);
+            flags |= FLAG_UTF16;
+        }
+        byte[] payload = raw;
+        if (raw.length >= compressMinBytes) {
+            byte[] compressed = deflate(raw);
+            if (compressed.length + varIntSize(raw.length) < raw.length) {
+                payload = compressed;
+                flags |= FLAG_DEFLATE;
+            }
+        }
+
+        int headerBytes = 2 + ((flags & FLAG_DEFLATE) != 0 ? varIntSize(raw.length) : 0);
+        byte[] envelope = new byte[headerBytes + payload.length];
+        envelope[0] = VERSION;
+        envelope[1] = (byte) flags;
+        if ((flags & FLAG_DEFLATE) != 0) {
+            writeVarInt(envelope, 2, raw.length);
+        }
+        System.arraycopy(payload, 0, envelope, headerBytes, payload.length);
+        return envelope;
+    }
+
+    /**
+     * 解码当前模式 Key 下的值
+     *
+     * @return 译文；信封版本不支持或数据损坏时返回 null（按未命中处理）
+     */
+    public String decode(byte[] bytes) {
+        if (mode == Mode.STRING) {
+            return decodeLegacy(bytes);
+        }
+        if (bytes.length < 2 || bytes[0] != VERSION) {
+            log.warn("翻译缓存信封版本不支持: {}", bytes.length > 0 ? bytes[0] : -1);
+            return null;
+        }
+        int flags = bytes[1];
+        int offset = 2;
+        byte[] raw;
+        int rawOffset;
+        int rawLength;
+        if ((flags & FLAG_DEFLATE) != 0) {
+            rawLength = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (offset >= bytes.length || shift > 28) {
+                    log.warn("翻译缓存信封长度字段损坏");
+                    return null;
+                }
+                b = bytes[offset++];
+                rawLength |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            raw = inflate(bytes, offset, rawLength);
+            if (raw == null) {
+                return null;
+            }
+            rawOffset = 0;
+        } else {
+            raw = bytes;
+            rawOffset = offset;
+            rawLength = bytes.length - offset;
+        }
+        return new String(raw, rawOffset, rawLength,
+                (flags & FLAG_UTF16) != 0 ? StandardCharsets.UTF_16BE : StandardCharsets.UTF_8);
+    }
+
+    public String decodeLegacy(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] buffer = new byte[Math.min(raw.length, 8192)];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset, int rawLength) {
+        if (rawLength < 0 || rawLength > MAX_RAW_BYTES) {
+            log.warn("翻译缓存信封长度非法: {}", rawLength);
+            return null;
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength) {
+                int inflated = inflater.inflate(raw, n, rawLength - n);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                n += inflated;
+            }
+            if (n != rawLength) {
+                log.warn("翻译缓存解压长度不一致: 期望 {}，实际 {}", rawLength, n);
+                return null;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            log.warn("翻译缓存解压失败: {}", e.getMessage());
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static void writeVarInt(byte[] out, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[offset] = (byte) value;
+    }
+}
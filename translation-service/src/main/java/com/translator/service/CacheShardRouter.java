@@ -0,0 +1,292 @@
+package com.translator.service;
+
+import io.lettuce.core.RedisURI;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionCommands;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * 翻译缓存的 Redis 分片（一致性哈希）
+ *
+ * translation.cache.shards.nodes 为空时所有 Key 使用默认 Redis（spring.data.redis）；配置多个节点后，
+ * 每个节点在哈希环上放置 virtual-nodes 个虚拟节点，缓存 Key 按摘要落到顺时针方向的第一个虚拟节点。
+ * 激活码、限流等其他 Key 始终使用默认 Redis，不参与分片。
+ *
+ * 后台定期 PING 各节点：连续 failure-threshold 次失败的节点移出哈希环，恢复后重新加入；
+ * 哈希环整体替换（不可变数组），增删一个节点只影响该节点负责的约 1/N 的 Key，其余 Key 不迁移。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheShardRouter {
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private static final String LOGICAL_PREFIX = "translator:translation:";
+
+    // 分片节点（逗号分隔）：redis://[:password@]host:port[/database]，为空时不分片
+    @Value("${translation.cache.shards.nodes:}")
+    private List<String> nodes;
+
+    // 每个节点的虚拟节点数，越多分布越均匀
+    @Value("${translation.cache.shards.virtual-nodes:160}")
+    private int virtualNodes;
+
+    @Value("${translation.cache.shards.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${spring.data.redis.timeout:3000ms}")
+    private Duration commandTimeout;
+
+    private final List<Shard> shards = new ArrayList<>();
+    // 多个分片的查询并行发出
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile Ring ring;
+
+    /**
+     * 一个 Redis 分片节点
+     */
+    public static final class Shard {
+
+        private final String name;
+        private final StringRedisTemplate template;
+        private final LettuceConnectionFactory factory;
+        private volatile boolean up = true;
+        private int failures;
+
+        private Shard(String name, StringRedisTemplate template, LettuceConnectionFactory factory) {
+            this.name = name;
+            this.template = template;
+            this.factory = factory;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public StringRedisTemplate template() {
+            return template;
+        }
+    }
+
+    /**
+     * 哈希环：points 升序，owners[i] 为 points[i] 处虚拟节点所属的分片
+     */
+    private record Ring(long[] points, Shard[] owners) {
+
+        Shard locate(long hash) {
+            int index = Arrays.binarySearch(points, hash);
+            if (index < 0) {
+                index = -index - 1;
+                if (index == points.length) {
+                    index = 0;
+                }
+            }
+            return owners[index];
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        List<String> configured = nodes.stream().map(String::trim).filter(node -> !node.isEmpty()).toList();
+        if (configured.isEmpty()) {
+            shards.add(new Shard("default", redisTemplate, null));
+            ring = new Ring(new long[]{0}, new Shard[]{shards.get(0)});
+            log.info("翻译缓存未分片，使用默认 Redis");
+            return;
+        }
+
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .commandTimeout(commandTimeout)
+                .build();
+        for (String node : configured) {
+            RedisURI uri = RedisURI.create(node);
+            RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(uri.getHost(), uri.getPort());
+            config.setDatabase(uri.getDatabase());
+            if (uri.getUsername() != null) {
+                config.setUsername(uri.getUsername());
+            }
+            if (uri.getPassword() != null) {
+                config.setPassword(RedisPassword.of(uri.getPassword()));
+            }
+            LettuceConnectionFactory factory = new LettuceConnectionFactory(config, clientConfig);
+            factory.afterPropertiesSet();
+            factory.start();
+
+            Shard shard = new Shard(uri.getHost() + ":" + uri.getPort() + "/" + uri.getDatabase(),
+                    new StringRedisTemplate(factory), factory);
+            shards.add(shard);
+            Gauge.builder("translation.cache.shard.up", shard, s -> s.up ? 1 : 0)
+                    .description("翻译缓存分片节点是否在哈希环上")
+                    .tag("shard", shard.name)
+                    .register(meterRegistry);
+        }
+        rebuild();
+        log.info("翻译缓存分片: {} 个节点 {}, 每节点 {} 个虚拟节点",
+                shards.size(), shards.stream().map(Shard::name).toList(), virtualNodes);
+    }
+
+    public boolean sharded() {
+        return shards.size() > 1 || shards.get(0).factory != null;
+    }
+
+    /**
+     * 缓存 Key 所在的分片
+     */
+    public Shard shardFor(String cacheKey) {
+        Ring current = ring;
+        return current.owners().length == 1 ? current.owners()[0] : current.locate(hash(cacheKey));
+    }
+
+    /**
+     * 按分片分组（保持每组内的原有顺序），多 Key 操作按组各发一次 MGET / pipeline
+     */
+    public <T> Map<Shard, List<T>> partition(Collection<T> items, Function<T, String> cacheKeyOf) {
+        Ring current = ring;
+        if (current.owners().length == 1) {
+            return Map.of(current.owners()[0], items instanceof List<T> list ? list : new ArrayList<>(items));
+        }
+        Map<Shard, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(current.locate(hash(cacheKeyOf.apply(item))), shard -> new ArrayList<>())
+                    .add(item);
+        }
+        return groups;
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * 健康检查：连续失败达到阈值移出哈希环，恢复后重新加入
+     */
+    @Scheduled(fixedDelayString = "${translation.cache.shards.health-check-interval-ms:1000}")
+    public void checkHealth() {
+        if (!sharded()) {
+            return;
+        }
+        boolean changed = false;
+        for (Shard shard : shards) {
+            boolean ok;
+            try {
+                ok = "PONG".equalsIgnoreCase(shard.template.execute(
+                        (RedisCallback<String>) RedisConnectionCommands::ping));
+            } catch (Exception e) {
+                ok = false;
+            }
+            if (ok) {
+                shard.failures = 0;
+                if (!shard.up) {
+                    shard.up = true;
+                    changed = true;
+                    log.info("✅ 翻译缓存分片恢复，重新加入哈希环: {}", shard.name);
+                }
+            } else if (++shard.failures >= failureThreshold && shard.up) {
+                shard.up = false;
+                changed = true;
+                log.warn("⚠️ 翻译缓存分片连续 {} 次 PING 失败，移出哈希环: {}", shard.failures, shard.name);
+            }
+        }
+        if (changed) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 按在线节点重建哈希环；全部节点不可用时保留全部节点（请求失败按缓存未命中处理）
+     */
+    private void rebuild() {
+        List<Shard> live = shards.stream().filter(shard -> shard.up).toList();
+        if (live.isEmpty()) {
+            live = shards;
+        }
+        TreeMap<Long, Shard> points = new TreeMap<>();
+        for (Shard shard : live) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // 极少数哈希冲突时保留先放入的节点
+                points.putIfAbsent(digest64(shard.name + "#" + i), shard);
+            }
+        }
+        long[] hashes = new long[points.size()];
+        Shard[] owners = new Shard[points.size()];
+        int i = 0;
+        for (Map.Entry<Long, Shard> point : points.entrySet()) {
+            hashes[i] = point.getKey();
+            owners[i++] = point.getValue();
+        }
+        ring = new Ring(hashes, owners);
+    }
+
+    /**
+     * Key 的哈希：摘要形式的 Key 直接取前 16 位十六进制，其余按 MD5 计算
+     */
+    private static long hash(String cacheKey) {
+        if (cacheKey.length() >= LOGICAL_PREFIX.length() + 16 && cacheKey.startsWith(LOGICAL_PREFIX)) {
+            try {
+                return Long.parseUnsignedLong(cacheKey, LOGICAL_PREFIX.length(), LOGICAL_PREFIX.length() + 16, 16);
+            } catch (NumberFormatException ignored) {
+                // 非十六进制，按 MD5 计算
+            }
+        }
+        return digest64(cacheKey);
+    }
+
+    private static long digest64(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 关闭分片连接（在 CacheWriteBehind 等停机写入完成之后）
+     */
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+        for (Shard shard : shards) {
+            if (shard.factory != null) {
+                shard.factory.destroy();
+            }
+        }
+    }
+}
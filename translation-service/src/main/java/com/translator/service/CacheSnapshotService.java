@@ -0,0 +1,240 @@
+package com.translator.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 翻译缓存快照与预热
+ *
+ * 定期（以及停机时）把 L1 中最热的 N 条译文写入本地快照文件；启动时（ApplicationRunner，
+ * 在应用报告 readiness 之前）把快照读入 L1 与 Redis，重启或 Redis 被清理后热点短语不必重新请求上游。
+ *
+ * 文件格式（大端）：
+ * magic(int) version(int) createdAt(long, 毫秒) count(int)
+ * count × [keyLength(int) key(UTF-8) valueLength(int) value(UTF-8)]
+ * crc32(long，覆盖之前的全部字节)
+ *
+ * 写入先落到临时文件再原子替换，读取时整个文件内存映射后顺序解析，校验失败则忽略快照。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheSnapshotService implements ApplicationRunner {
+
+    private final TranslationCache translationCache;
+
+    private static final int MAGIC = 0x54534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+
+    // 预热时每次 Redis pipeline 写入的条数
+    private static final int WARM_CHUNK = 1000;
+
+    @Value("${translation.cache.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${translation.cache.snapshot.path:data/translation-cache.snap}")
+    private Path path;
+
+    // 快照保存的最热条目数
+    @Value("${translation.cache.snapshot.max-entries:20000}")
+    private int maxEntries;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile SnapshotResult lastSnapshot;
+    private volatile SnapshotResult lastLoad;
+
+    /**
+     * 一次快照写入或加载的结果
+     *
+     * @param entries    条目数
+     * @param bytes      文件字节数
+     * @param tookMillis 耗时
+     * @param at         完成时间（毫秒）
+     */
+    public record SnapshotResult(int entries, long bytes, long tookMillis, long at) {
+    }
+
+    /**
+     * 启动预热：加载快照写入 L1 与 Redis（失败只记录日志，不影响启动）
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            log.info("翻译缓存快照已关闭");
+            return;
+        }
+        if (!Files.isRegularFile(path)) {
+            log.info("未找到翻译缓存快照，跳过预热: {}", path.toAbsolutePath());
+            return;
+        }
+        try {
+            lastLoad = load();
+        } catch (Exception e) {
+            log.warn("加载翻译缓存快照失败，跳过预热: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${translation.cache.snapshot.interval-ms:600000}",
+            fixedDelayString = "${translation.cache.snapshot.interval-ms:600000}")
+    public void scheduledSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.warn("翻译缓存快照写入失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 停机前再写一次，部署重启时快照最新
+     */
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        scheduledSnapshot();
+    }
+
+    /**
+     * 写入快照（定时任务与管理端点共用，同一时间只有一个写入）
+     *
+     * @return 写入结果；L1 为空时不覆盖已有快照，返回 null
+     */
+    public SnapshotResult snapshot() throws IOException {
+        lock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, String> hottest = translationCache.hottest(maxEntries);
+            if (hottest.isEmpty()) {
+                log.debug("L1 为空，跳过翻译缓存快照");
+                return null;
+            }
+
+            Path absolute = path.toAbsolutePath();
+            if (absolute.getParent() != null) {
+                Files.createDirectories(absolute.getParent());
+            }
+            Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024), new CRC32());
+            try (DataOutputStream out = new DataOutputStream(checked)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(start);
+                out.writeInt(hottest.size());
+                for (Map.Entry<String, String> entry : hottest.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue());
+                }
+                out.flush();
+                out.writeLong(checked.getChecksum().getValue());
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            SnapshotResult result = new SnapshotResult(hottest.size(), Files.size(absolute),
+                    System.currentTimeMillis() - start, System.currentTimeMillis());
+            lastSnapshot = result;
+            log.info("翻译缓存快照已写入: {} 条, {} 字节, 耗时 {}ms -> {}",
+                    result.entries(), result.bytes(), result.tookMillis(), absolute);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 读取快照并写入 L1 与 Redis（Redis 中已有的 Key 不覆盖）
+     */
+    SnapshotResult load() throws IOException {
+        long start = System.currentTimeMillis();
+        int count = 0;
+        long warmedRedis = 0;
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size < HEADER_BYTES + 8) {
+                throw new IOException("快照文件过短: " + size + " 字节");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - 8));
+            if (crc.getValue() != buffer.getLong((int) size - 8)) {
+                throw new IOException("快照校验和不一致");
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("快照格式或版本不支持");
+            }
+            long createdAt = buffer.getLong();
+            count = buffer.getInt();
+            buffer.limit((int) size - 8);
+
+            Map<String, String> chunk = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                chunk.put(readString(buffer), readString(buffer));
+                if (chunk.size() >= WARM_CHUNK) {
+                    warmedRedis += translationCache.warm(chunk);
+                    chunk.clear();
+                }
+            }
+            warmedRedis += translationCache.warm(chunk);
+            log.info("翻译缓存预热完成: 快照 {} 条（写于 {} 秒前），其中 {} 条补入 Redis，耗时 {}ms",
+                    count, (start - createdAt) / 1000, warmedRedis, System.currentTimeMillis() - start);
+        }
+        return new SnapshotResult(count, size, System.currentTimeMillis() - start, System.currentTimeMillis());
+    }
+
+    public SnapshotResult lastSnapshot() {
+        return lastSnapshot;
+    }
+
+    public SnapshotResult lastLoad() {
+        return lastLoad;
+    }
+
+    public Path path() {
+        return path.toAbsolutePath();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("快照条目长度非法: " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
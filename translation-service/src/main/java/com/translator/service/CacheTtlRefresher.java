@@ -0,0 +1,146 @@
+package com.translator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.translator.metrics.TranslationMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 翻译缓存的异步续期（替代每次 Redis 命中后同步 EXPIRE）
+ *
+ * 本实例记录每个 Key 最近一次写入或续期的时间：距今不足 refresh-after 时剩余 TTL 仍然充足，命中时不续期；
+ * 超过后（或本实例从未记录过该 Key）放入续期队列，由定时任务按批 pipeline 发送 EXPIRE，不占用请求线程。
+ * 热点 Key 在每个实例上每 refresh-after 最多续期一次，Redis 命中从两次命令降为一次。
+ *
+ * 续期为尽力而为：队列满时丢弃，Key 下次命中会再次入队；停机时（Redis 连接工厂关闭之前）再发送一次。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheTtlRefresher implements SmartLifecycle {
+
+    private final CacheShardRouter shardRouter;
+    private final TranslationMetrics metrics;
+    private final CacheCodec codec;
+
+    // 距上次写入 / 续期超过该时长才再次续期（TTL 7 天时，热点 Key 的剩余 TTL 始终大于 6 天）
+    @Value("${translation.cache.ttl-refresh.refresh-after:1d}")
+    private Duration refreshAfter;
+
+    @Value("${translation.cache.ttl-refresh.max-tracked-keys:200000}")
+    private long maxTrackedKeys;
+
+    @Value("${translation.cache.ttl-refresh.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // 单个 pipeline 的 EXPIRE 条数
+    @Value("${translation.cache.ttl-refresh.batch-size:500}")
+    private int batchSize;
+
+    // 最近 refresh-after 内写入或续期（含已入队）的 Key
+    private Cache<String, Boolean> recentlyRefreshed;
+    private BlockingQueue<String> queue;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        recentlyRefreshed = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterWrite(refreshAfter)
+                .build();
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        log.info("翻译缓存异步续期: refreshAfter={}, batchSize={}, queueCapacity={}",
+                refreshAfter, batchSize, queueCapacity);
+    }
+
+    /**
+     * Redis 命中：需要续期时入队
+     */
+    public void touch(String cacheKey) {
+        if (recentlyRefreshed.asMap().putIfAbsent(cacheKey, Boolean.TRUE) != null) {
+            return;
+        }
+        if (!queue.offer(cacheKey)) {
+            // 队列已满：撤销记录，下次命中再尝试
+            recentlyRefreshed.invalidate(cacheKey);
+            metrics.recordTtlRefresh("dropped", 1);
+        }
+    }
+
+    public void touchAll(List<String> cacheKeys) {
+        cacheKeys.forEach(this::touch);
+    }
+
+    /**
+     * 写入时已设置完整 TTL，refresh-after 内无需续期
+     */
+    public void written(String cacheKey) {
+        recentlyRefreshed.put(cacheKey, Boolean.TRUE);
+    }
+
+    @Scheduled(fixedDelayString = "${translation.cache.ttl-refresh.flush-interval-ms:1000}")
+    public void flush() {
+        List<String> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                expire(batch);
+                metrics.recordTtlRefresh("refreshed", batch.size());
+            } catch (Exception e) {
+                log.warn("翻译缓存批量续期失败（{} 个 Key）: {}", batch.size(), e.getMessage());
+                batch.forEach(recentlyRefreshed::invalidate);
+                metrics.recordTtlRefresh("failed", batch.size());
+            }
+            batch.clear();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return CacheWriteBehind.SHUTDOWN_PHASE;
+    }
+
+    private void expire(List<String> cacheKeys) {
+        long ttlSeconds = TranslationCache.CACHE_TTL.getSeconds();
+        shardRouter.partition(cacheKeys, cacheKey -> cacheKey).forEach((shard, keys) -> {
+            long start = System.nanoTime();
+            shard.template().executePipelined((RedisCallback<Object>) connection -> {
+                for (String cacheKey : keys) {
+                    connection.keyCommands().expire(codec.key(cacheKey), ttlSeconds);
+                }
+                return null;
+            });
+            metrics.recordRedis("expire_pipeline", start);
+        });
+    }
+}
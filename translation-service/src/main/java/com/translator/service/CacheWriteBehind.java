@@ -0,0 +1,252 @@
+package com.translator.service;
+
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 翻译缓存的 Redis 异步批量写入（write-behind）
+ *
+ * 上游返回后译文先写入 L1 并立即响应，Redis 写入放入有界无锁队列，由后台线程在攒够 batch-size 条
+ * 或距上次写入满 flush-interval 时按批 pipeline 发送 SETEX，请求线程不再等待 Redis 往返。
+ *
+ * 队列满（overflow）时：
+ * - drop：丢弃本次 Redis 写入（L1 中仍有，其他实例稍后未命中时重新翻译），请求延迟不受影响
+ * - sync：在调用线程上直接写入 Redis，以请求延迟换取不丢写入（背压）
+ *
+ * 后台线程随应用上下文启动；停机时（Web 服务器停止之后、Redis 连接工厂关闭之前）先停止后台线程，
+ * 再把队列中剩余的条目全部写入，此后的写入改为同步。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheWriteBehind implements SmartLifecycle {
+
+    private final CacheShardRouter shardRouter;
+    private final TranslationMetrics metrics;
+    private final MeterRegistry meterRegistry;
+    private final CacheCodec codec;
+
+    @Value("${translation.cache.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${translation.cache.write-behind.queue-capacity:20000}")
+    private int queueCapacity;
+
+    // 单个 pipeline 的 SETEX 条数，队列中攒够即触发写入
+    @Value("${translation.cache.write-behind.batch-size:200}")
+    private int batchSize;
+
+    // 队列未攒够一批时的最长等待时间
+    @Value("${translation.cache.write-behind.flush-interval:50ms}")
+    private Duration flushInterval;
+
+    // 队列满时的处理方式：drop / sync
+    @Value("${translation.cache.write-behind.overflow:drop}")
+    private String overflow;
+
+    static final int SHUTDOWN_PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final ConcurrentLinkedQueue<Write> queue = new ConcurrentLinkedQueue<>();
+    // 队列长度（ConcurrentLinkedQueue.size() 需要遍历），同时用于容量限制
+    private final AtomicInteger pending = new AtomicInteger();
+
+    // 启动前与停机后同步写入
+    private volatile boolean running;
+    private Thread flusher;
+
+    private record Write(String cacheKey, String value) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("翻译缓存异步写入已关闭，Redis 同步写入");
+            return;
+        }
+        Gauge.builder("translation.cache.writes.pending", pending, AtomicInteger::get)
+                .description("等待写入 Redis 的翻译缓存条目数")
+                .register(meterRegistry);
+        log.info("翻译缓存异步写入: batchSize={}, flushInterval={}, queueCapacity={}, overflow={}",
+                batchSize, flushInterval, queueCapacity, overflow);
+    }
+
+    /**
+     * 提交一条 Redis 写入；关闭时同步写入
+     */
+    public void write(String cacheKey, String value) {
+        if (!running) {
+            writeNow(List.of(new Write(cacheKey, value)), "set");
+            return;
+        }
+        enqueue(new Write(cacheKey, value));
+    }
+
+    /**
+     * 批量提交；关闭时一次 pipeline 同步写入
+     */
+    public void writeAll(Map<String, String> entries) {
+        if (!running) {
+            List<Write> writes = new ArrayList<>(entries.size());
+            entries.forEach((cacheKey, value) -> writes.add(new Write(cacheKey, value)));
+            writeNow(writes, "set_pipeline");
+            return;
+        }
+        entries.forEach((cacheKey, value) -> enqueue(new Write(cacheKey, value)));
+    }
+
+    private void enqueue(Write write) {
+        int size = pending.incrementAndGet();
+        if (size > queueCapacity) {
+            pending.decrementAndGet();
+            if ("sync".equals(overflow)) {
+                writeNow(List.of(write), "set");
+                metrics.recordCacheWrite("sync", 1);
+            } else {
+                metrics.recordCacheWrite("dropped", 1);
+            }
+            return;
+        }
+        queue.offer(write);
+        if (size == batchSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void runFlusher() {
+        long intervalNanos = flushInterval.toNanos();
+        while (running) {
+            if (pending.get() < batchSize) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            try {
+                drain(false);
+            } catch (Exception e) {
+                log.error("翻译缓存异步写入线程异常", e);
+            }
+        }
+    }
+
+    /**
+     * 取出队列中的条目按批写入
+     *
+     * @param all true 时写完为止，false 时只写当前已满的批次与一个不满的批次
+     */
+    private void drain(boolean all) {
+        List<Write> batch = new ArrayList<>(batchSize);
+        do {
+            Write write;
+            while (batch.size() < batchSize && (write = queue.poll()) != null) {
+                batch.add(write);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            pending.addAndGet(-batch.size());
+            // 按分片各一次 pipeline，单个分片失败不影响其他分片
+            shardRouter.partition(batch, Write::cacheKey).forEach((shard, writes) -> {
+                try {
+                    writeShard(shard, writes, "set_pipeline");
+                    metrics.recordCacheWrite("written", writes.size());
+                } catch (Exception e) {
+                    log.warn("翻译缓存批量写入 Redis 失败（{} 条, shard={}）: {}", writes.size(), shard.name(), e.getMessage());
+                    metrics.recordCacheWrite("failed", writes.size());
+                }
+            });
+            boolean full = batch.size() == batchSize;
+            batch.clear();
+            if (!full && !all) {
+                return;
+            }
+        } while (true);
+    }
+
+    private void writeNow(List<Write> writes, String op) {
+        shardRouter.partition(writes, Write::cacheKey).forEach((shard, group) -> writeShard(shard, group, op));
+    }
+
+    private void writeShard(CacheShardRouter.Shard shard, List<Write> writes, String op) {
+        long ttlSeconds = TranslationCache.CACHE_TTL.getSeconds();
+        long start = System.nanoTime();
+        if (writes.size() == 1) {
+            Write write = writes.get(0);
+            byte[] key = codec.key(write.cacheKey());
+            byte[] value = codec.encode(write.value());
+            shard.template().execute((RedisCallback<Boolean>) connection ->
+                    connection.stringCommands().setEx(key, ttlSeconds, value));
+        } else {
+            shard.template().executePipelined((RedisCallback<Object>) connection -> {
+                RedisStringCommands commands = connection.stringCommands();
+                for (Write write : writes) {
+                    commands.setEx(codec.key(write.cacheKey()), ttlSeconds, codec.encode(write.value()));
+                }
+                return null;
+            });
+        }
+        metrics.recordRedis(op, start);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform()
+                .name("cache-write-behind")
+                .daemon(true)
+                .start(this::runFlusher);
+    }
+
+    /**
+     * 停机：停止后台线程后写完剩余条目（此后的写入同步进行）
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = pending.get();
+        drain(true);
+        log.info("翻译缓存异步写入已停止，停机前写入剩余 {} 条", remaining);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 晚于 Web 服务器停止、早于 Redis 连接工厂（phase 0）停止
+     */
+    @Override
+    public int getPhase() {
+        return SHUTDOWN_PHASE;
+    }
+}
@@ -0,0 +1,208 @@
+package com.translator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按设备限流（令牌桶，GCRA 实现）
+ *
+ * 两类配额：
+ * 1. request：所有翻译请求（含缓存命中），由 AuthInterceptor 检查，配额较高；批量请求按条数计，由 TranslationService 检查
+ * 2. upstream：缓存未命中、需要请求上游的条目数（合并到其他请求的在途翻译不计），由 TranslationService 检查，配额较低
+ *
+ * 单次消耗超过突发上限（如大批量未命中）时，只在令牌桶满时放行，并按实际消耗全额扣减：
+ * 超出部分记为欠账，之后的请求要等欠账按恢复速率还清才能通过，大批量请求不能绕过配额。
+ *
+ * 本地模式每个设备一个 AtomicLong（理论到达时间 TAT），CAS 更新，无锁、无分配；
+ * 长时间不活跃的设备由 Caffeine 自动淘汰。
+ * redis 模式通过 Lua 脚本在 Redis 上原子执行同样的算法，多实例共享配额；Redis 不可用时回退本地模式。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeviceRateLimiter {
+
+    private final StringRedisTemplate redisTemplate;
+
+    private static final String REDIS_PREFIX = "translator:ratelimit:";
+
+    /**
+     * GCRA：max(TAT, now) + min(cost, burst) * interval 超过 now + tolerance 时拒绝，放行时 TAT = max(TAT, now) + cost * interval
+     * 使用 Redis 服务器时间，各实例时钟不一致不影响结果
+     */
+    private static final RedisScript<Long> GCRA_SCRIPT = new DefaultRedisScript<>(
+            "local t = redis.call('TIME') " +
+            "local now = tonumber(t[1]) * 1000000 + tonumber(t[2]) " +
+            "local interval = tonumber(ARGV[1]) " +
+            "local tolerance = tonumber(ARGV[2]) " +
+            "local tat = tonumber(redis.call('GET', KEYS[1]) or now) " +
+            "if tat < now then tat = now end " +
+            "if tat + tonumber(ARGV[3]) * interval - now > tolerance then return 0 end " +
+            "local newTat = tat + tonumber(ARGV[4]) * interval " +
+            "redis.call('SET', KEYS[1], newTat, 'PX', math.ceil((newTat - now) / 1000) + 1000) " +
+            "return 1",
+            Long.class);
+
+    @Value("${translation.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    // local 或 redis
+    @Value("${translation.rate-limit.mode:local}")
+    private String mode;
+
+    @Value("${translation.rate-limit.request.rate:20}")
+    private double requestRate;
+
+    @Value("${translation.rate-limit.request.burst:60}")
+    private int requestBurst;
+
+    @Value("${translation.rate-limit.upstream.rate:2}")
+    private double upstreamRate;
+
+    @Value("${translation.rate-limit.upstream.burst:40}")
+    private int upstreamBurst;
+
+    @Value("${translation.rate-limit.max-devices:100000}")
+    private long maxDevices;
+
+    @Value("${translation.rate-limit.idle-expire:10m}")
+    private Duration idleExpire;
+
+    private final long origin = System.nanoTime();
+
+    private Limit requestLimit;
+    private Limit upstreamLimit;
+    private boolean redisMode;
+
+    @PostConstruct
+    public void init() {
+        requestLimit = new Limit("request", requestRate, requestBurst);
+        upstreamLimit = new Limit("upstream", upstreamRate, upstreamBurst);
+        redisMode = "redis".equalsIgnoreCase(mode);
+        if (enabled) {
+            log.info("设备限流已启用: mode={}, request={}/s (突发 {}), upstream={}/s (突发 {})",
+                    redisMode ? "redis" : "local", requestRate, requestBurst, upstreamRate, upstreamBurst);
+        } else {
+            log.info("设备限流已关闭");
+        }
+    }
+
+    /**
+     * 翻译请求配额（含缓存命中）
+     */
+    public boolean tryAcquireRequest(String deviceId) {
+        return tryAcquire(requestLimit, deviceId, 1);
+    }
+
+    /**
+     * 批量请求的请求配额：cost 为条目数，配额不足时抛出 RateLimitExceededException
+     */
+    public void checkRequest(String deviceId, int cost) {
+        if (!tryAcquire(requestLimit, deviceId, cost)) {
+            throw new RateLimitExceededException("翻译请求过于频繁，请稍后再试");
+        }
+    }
+
+    /**
+     * 上游配额：cost 为本次需要请求上游的条目数
+     */
+    public boolean tryAcquireUpstream(String deviceId, int cost) {
+        return tryAcquire(upstreamLimit, deviceId, cost);
+    }
+
+    /**
+     * 上游配额不足时抛出 RateLimitExceededException
+     */
+    public void checkUpstream(String deviceId, int cost) {
+        if (!tryAcquireUpstream(deviceId, cost)) {
+            throw new RateLimitExceededException("翻译请求过于频繁，请稍后再试");
+        }
+    }
+
+    private boolean tryAcquire(Limit limit, String deviceId, int cost) {
+        if (!enabled || deviceId == null || cost <= 0) {
+            return true;
+        }
+        boolean allowed;
+        if (redisMode) {
+            allowed = tryAcquireRedis(limit, deviceId, cost);
+        } else {
+            allowed = tryAcquireLocal(limit, deviceId, cost);
+        }
+        if (!allowed) {
+            log.debug("设备限流: device={}, {} 配额不足 (cost={})", deviceId, limit.name, cost);
+        }
+        return allowed;
+    }
+
+    /**
+     * 放行判断按 min(cost, burst) 计算（超过突发上限的消耗须等令牌桶满），扣减按 cost 全额计算
+     */
+    private boolean tryAcquireLocal(Limit limit, String deviceId, int cost) {
+        AtomicLong tat = limit.buckets.get(deviceId, k -> new AtomicLong());
+        long admission = Math.min(cost, limit.burst) * limit.intervalNanos;
+        long increment = cost * limit.intervalNanos;
+        while (true) {
+            long now = System.nanoTime() - origin;
+            long current = tat.get();
+            long base = Math.max(current, now);
+            if (base + admission - now > limit.toleranceNanos) {
+                return false;
+            }
+            if (tat.compareAndSet(current, base + increment)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean tryAcquireRedis(Limit limit, String deviceId, int cost) {
+        try {
+            Long allowed = redisTemplate.execute(GCRA_SCRIPT,
+                    List.of(REDIS_PREFIX + limit.name + ":" + deviceId),
+                    String.valueOf(limit.intervalNanos / 1000),
+                    String.valueOf(limit.toleranceNanos / 1000),
+                    String.valueOf(Math.min(cost, limit.burst)),
+                    String.valueOf(cost));
+            return allowed == null || allowed == 1L;
+        } catch (Exception e) {
+            log.warn("Redis 限流失败，回退本地限流: {}", e.getMessage());
+            return tryAcquireLocal(limit, deviceId, cost);
+        }
+    }
+
+    /**
+     * 一类配额：每 interval 恢复一个令牌，最多累积 burst 个
+     */
+    private final class Limit {
+        private final String name;
+        private final int burst;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final Cache<String, AtomicLong> buckets;
+
+        private Limit(String name, double rate, int burst) {
+            this.name = name;
+            this.burst = Math.max(1, burst);
+            this.intervalNanos = (long) (1_000_000_000L / Math.max(rate, 0.001));
+            this.toleranceNanos = intervalNanos * this.burst;
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxDevices)
+                    .expireAfterAccess(idleExpire)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.translator.service;
+
+import java.util.Locale;
+
+/**
+ * 轻量语言识别：按 Unicode 文字（script）统计字母，单次遍历、不分配中间字符串
+ *
+ * - 汉字与假名：假名占比达到 10% 判为日文，否则为中文；韩文、俄文（西里尔）、阿拉伯文、泰文等按文字直接判定
+ * - 拉丁字母：按特征字母区分越南文（đ ơ ư 及带声调字母）、德文（ß ä ö ü）、西班牙文（ñ ¿ ¡）、
+ *   葡萄牙文（ã õ）、法文（ç œ è ê à …）；都没有时只有出现英文常用词（the、you、please …）才判为英文，
+ *   否则无法识别（无重音的西班牙文、印尼文、荷兰文等不会被误判为英文）
+ * - 链接（http://、https://、www.）与 @用户 整段跳过，数字、标点、表情不计入
+ *
+ * 汉字、假名、韩文每字按 3 个字母计权（与西文单词的信息量相当），ratio 为主要文字的权重占比，
+ * 用于判断中英混排消息的主要语言。
+ *
+ * @author mac
+ */
+public final class LanguageDetector {
+
+    private LanguageDetector() {
+    }
+
+    // 汉字、假名、韩文每字的权重
+    private static final int CJK_WEIGHT = 3;
+
+    // 英文常用词（只收其他拉丁语言中不常见的词，is / in / was / will 等在荷兰文、德文中也常见）
+    private static final String[] ENGLISH_WORDS = {
+            "the", "and", "you", "your", "to", "of", "for", "with", "this", "that", "it", "what", "have",
+            "can", "please", "not", "are", "be", "we", "my", "our", "they", "there", "hello", "hi", "thanks", "thank"
+    };
+
+    // 简体、繁体各自特有的常用字（一一对应）
+    private static final String SIMPLIFIED_CHARS = "这个们说来时会对么为国过发后还没实关开见现问边样听书长让东车门";
+    private static final String TRADITIONAL_CHARS = "這個們說來時會對麼為國過發後還沒實關開見現問邊樣聽書長讓東車門";
+
+    /**
+     * 识别结果
+     *
+     * @param language 语言代码（zh / ja / ko / ru / ar / th / el / he / hi / en / vi / de / es / pt / fr），
+     *                 有文字但无法识别时为 null
+     * @param letters  计入统计的字母数，为 0 表示没有可翻译的文字（纯表情、数字、链接）
+     * @param ratio    主要文字的权重占比（0~1）
+     */
+    public record Detection(String language, int letters, double ratio) {
+    }
+
+    public static Detection detect(String text) {
+        int han = 0;
+        int kana = 0;
+        int hangul = 0;
+        int cyrillic = 0;
+        int arabic = 0;
+        int thai = 0;
+        int greek = 0;
+        int hebrew = 0;
+        int devanagari = 0;
+        int latin = 0;
+        int other = 0;
+        int vi = 0;
+        int de = 0;
+        int es = 0;
+        int pt = 0;
+        int fr = 0;
+        int en = 0;
+        // 当前 ASCII 单词的起点，-1 表示不在单词中
+        int wordStart = -1;
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (wordStart >= 0 && !isAsciiLetter(c)) {
+                if (isEnglishWord(text, wordStart, i)) {
+                    en++;
+                }
+                wordStart = -1;
+            }
+            // 链接与 @用户 跳到下一个空白
+            if ((i == 0 || Character.isWhitespace(text.charAt(i - 1))) && startsSkippedToken(text, i, c)) {
+                while (i < length && !Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                continue;
+            }
+            if (c < 0x80) {
+                if (isAsciiLetter(c)) {
+                    latin++;
+                    if (wordStart < 0) {
+                        wordStart = i;
+                    }
+                }
+                i++;
+                continue;
+            }
+
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (cp == 0xBF || cp == 0xA1) {
+                // ¿ ¡
+                es++;
+                continue;
+            }
+            if (!Character.isLetter(cp)) {
+                continue;
+            }
+            switch (Character.UnicodeScript.of(cp)) {
+                case HAN -> han++;
+                case HIRAGANA, KATAKANA -> kana++;
+                case HANGUL -> hangul++;
+                case CYRILLIC -> cyrillic++;
+                case ARABIC -> arabic++;
+                case THAI -> thai++;
+                case GREEK -> greek++;
+                case HEBREW -> hebrew++;
+                case DEVANAGARI -> devanagari++;
+                case LATIN -> {
+                    latin++;
+                    int lower = Character.toLowerCase(cp);
+                    if ((lower >= 0x1EA0 && lower <= 0x1EF9) || lower == 'ă' || lower == 'đ' || lower == 'ơ' || lower == 'ư') {
+                        vi++;
+                    } else if (lower == 'ß' || lower == 'ä' || lower == 'ö' || lower == 'ü') {
+                        de++;
+                    } else if (lower == 'ñ') {
+                        es++;
+                    } else if (lower == 'ã' || lower == 'õ') {
+                        pt++;
+                    } else if (lower == 'ç' || lower == 'œ' || lower == 'è' || lower == 'ê' || lower == 'à'
+                            || lower == 'â' || lower == 'ô' || lower == 'î' || lower == 'û' || lower == 'ë' || lower == 'ï') {
+                        fr++;
+                    }
+                }
+                default -> other++;
+            }
+        }
+
+        if (wordStart >= 0 && isEnglishWord(text, wordStart, length)) {
+            en++;
+        }
+
+        int letters = han + kana + hangul + cyrillic + arabic + thai + greek + hebrew + devanagari + latin + other;
+        if (letters == 0) {
+            return new Detection(null, 0, 0);
+        }
+
+        int cjk = (han + kana) * CJK_WEIGHT;
+        int total = cjk + hangul * CJK_WEIGHT + cyrillic + arabic + thai + greek + hebrew + devanagari + latin + other;
+        String language = null;
+        int best = other;
+        if (cjk > best) {
+            best = cjk;
+            language = kana * 10 >= han + kana ? "ja" : "zh";
+        }
+        if (hangul * CJK_WEIGHT > best) {
+            best = hangul * CJK_WEIGHT;
+            language = "ko";
+        }
+        if (cyrillic > best) {
+            best = cyrillic;
+            language = "ru";
+        }
+        if (arabic > best) {
+            best = arabic;
+            language = "ar";
+        }
+        if (thai > best) {
+            best = thai;
+            language = "th";
+        }
+        if (greek > best) {
+            best = greek;
+            language = "el";
+        }
+        if (hebrew > best) {
+            best = hebrew;
+            language = "he";
+        }
+        if (devanagari > best) {
+            best = devanagari;
+            language = "hi";
+        }
+        if (latin > best) {
+            best = latin;
+            language = latinLanguage(vi, de, es, pt, fr, en);
+        }
+        return new Detection(language, letters, (double) best / total);
+    }
+
+    /**
+     * 语言代码归一化为小写主标签：zh-CN -> zh，en_US -> en
+     */
+    public static String normalize(String lang) {
+        if (lang == null) {
+            return null;
+        }
+        int end = lang.length();
+        for (int i = 0; i < lang.length(); i++) {
+            char c = lang.charAt(i);
+            if (c == '-' || c == '_') {
+                end = i;
+                break;
+            }
+        }
+        return lang.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean startsSkippedToken(String text, int index, char c) {
+        return c == '@'
+                || (c == 'h' && (text.startsWith("http://", index) || text.startsWith("https://", index)))
+                || (c == 'w' && text.startsWith("www.", index));
+    }
+
+    /**
+     * 文本是否已是目标语言：中文还需比较简繁（zh-TW / zh-HK / zh-Hant 为繁体，其余为简体），
+     * 其他语言的目标带地区时（pt-BR、es-MX …）不判断，交给引擎处理（英文除外）
+     */
+    public static boolean matchesTarget(Detection detection, String text, String targetLang) {
+        String target = normalize(targetLang);
+        if (detection.language() == null || !detection.language().equals(target)) {
+            return false;
+        }
+        if ("zh".equals(target)) {
+            String script = chineseScript(text);
+            return script != null && script.equals(targetScript(targetLang));
+        }
+        return "en".equals(target) || target.length() == targetLang.length();
+    }
+
+    /**
+     * 按简繁特有字判断中文文本的字形：Hans / Hant，两者都没有或数量相同时返回 null
+     */
+    public static String chineseScript(String text) {
+        int simplified = 0;
+        int traditional = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x4E00) {
+                continue;
+            }
+            if (SIMPLIFIED_CHARS.indexOf(c) >= 0) {
+                simplified++;
+            } else if (TRADITIONAL_CHARS.indexOf(c) >= 0) {
+                traditional++;
+            }
+        }
+        if (simplified == traditional) {
+            return null;
+        }
+        return simplified > traditional ? "Hans" : "Hant";
+    }
+
+    /**
+     * 中文语言代码对应的字形
+     */
+    private static String targetScript(String lang) {
+        String lower = lang.toLowerCase(Locale.ROOT).replace('_', '-');
+        return lower.contains("hant") || lower.endsWith("-tw") || lower.endsWith("-hk") || lower.endsWith("-mo")
+                ? "Hant" : "Hans";
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c | 0x20) >= 'a' && (c | 0x20) <= 'z';
+    }
+
+    private static boolean isEnglishWord(String text, int start, int end) {
+        int length = end - start;
+        for (String word : ENGLISH_WORDS) {
+            if (word.length() == length && text.regionMatches(true, start, word, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String latinLanguage(int vi, int de, int es, int pt, int fr, int en) {
+        // 越南文的特征字母最明确，优先判定
+        if (vi > 0) {
+            return "vi";
+        }
+        int best = Math.max(Math.max(de, es), Math.max(pt, fr));
+        if (best == 0) {
+            // 没有特征字母时需要英文常用词作为正向依据
+            return en > 0 ? "en" : null;
+        }
+        if (best == de) {
+            return "de";
+        }
+        if (best == es) {
+            return "es";
+        }
+        return best == pt ? "pt" : "fr";
+    }
+}
@@ -0,0 +1,13 @@
+package com.translator.service;
+
+/**
+ * 设备请求超出限流配额
+ *
+ * @author mac
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    public RateLimitExceededException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,256 @@
+package com.translator.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 翻译前预处理：规范化文本并把不需要翻译的片段替换为占位符，译文返回后再还原
+ *
+ * - 规范化：Unicode NFC，换行统一为 \n，行内连续空白合并为一个空格，去掉行首尾空白，最多保留一个空行
+ * - 占位符 {0}、{1} …（按出现顺序编号）替换：代码块与行内代码、URL、@用户、独立数字、表情，
+ *   原文中本来就形如 {0} 的片段也作为占位符，保证还原无歧义、重复预处理结果不变
+ *
+ * 缓存 Key 与 Prompt 都基于预处理后的文本：只差数字、链接或空白的消息共用同一条缓存，
+ * URL 与 @用户不经过模型，原样保留。
+ *
+ * @author mac
+ */
+public final class TextMasker {
+
+    private TextMasker() {
+    }
+
+    private static final Pattern SPAN = Pattern.compile(
+            // 代码块与行内代码
+            "```.*?```|`[^`\\n]+`"
+                    // 原文中已有的占位符形式
+                    + "|\\{\\d+}"
+                    // URL（末尾的标点不算）
+                    + "|(?:https?://|www\\.)\\S*[^\\s.,!?;:'\"。，！？；：、)）\\]}>]"
+                    // @用户
+                    + "|(?<![\\w@])@[\\p{L}\\p{N}_.]*[\\p{L}\\p{N}_]"
+                    // 独立数字（不与拉丁字母、数字相连，"订单1234号" 中的数字也算）
+                    + "|(?<![A-Za-z0-9_])\\p{Nd}+(?:[.,:/-]\\p{Nd}+)*(?![A-Za-z0-9_])"
+                    // 表情（含肤色修饰、变体选择符与连接符）
+                    + "|[\\p{So}\\x{1F3FB}-\\x{1F3FF}\\x{FE0F}\\x{200D}]+",
+            Pattern.DOTALL);
+
+    /**
+     * 预处理结果
+     *
+     * @param text  规范化并替换占位符后的文本
+     * @param spans 被替换的原始片段，下标即占位符编号
+     */
+    public record Masked(String text, List<String> spans) {
+
+        /**
+         * 把译文中的占位符还原为原始片段
+         */
+        public String restore(String translation) {
+            return TextMasker.restore(translation, spans);
+        }
+    }
+
+    public static Masked mask(String text) {
+        String normalized = Normalizer.isNormalized(text, Normalizer.Form.NFC)
+                ? text
+                : Normalizer.normalize(text, Normalizer.Form.NFC);
+        if (normalized.indexOf('\r') >= 0) {
+            normalized = normalized.replace("\r\n", "\n").replace('\r', '\n');
+        }
+
+        StringBuilder masked = new StringBuilder(normalized.length());
+        List<String> spans = List.of();
+        Matcher matcher = SPAN.matcher(normalized);
+        int last = 0;
+        while (matcher.find()) {
+            appendNormalized(masked, normalized, last, matcher.start());
+            if (spans.isEmpty()) {
+                spans = new ArrayList<>(4);
+            }
+            masked.append('{').append(spans.size()).append('}');
+            spans.add(matcher.group());
+            last = matcher.end();
+        }
+        appendNormalized(masked, normalized, last, normalized.length());
+
+        int end = masked.length();
+        while (end > 0 && Character.isWhitespace(masked.charAt(end - 1))) {
+            end--;
+        }
+        masked.setLength(end);
+        return new Masked(masked.toString(), spans);
+    }
+
+    /**
+     * 译文是否完整保留了原文的占位符（每个编号恰好出现一次）
+     */
+    public static boolean placeholdersPreserved(String maskedSource, String translation) {
+        int count = countPlaceholders(maskedSource, Integer.MAX_VALUE, null);
+        if (count == 0) {
+            return true;
+        }
+        int[] seen = new int[count];
+        countPlaceholders(translation, count, seen);
+        for (int occurrences : seen) {
+            if (occurrences != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 还原占位符；编号超出范围的保持原样
+     */
+    public static String restore(String translation, List<String> spans) {
+        if (spans.isEmpty() || translation.indexOf('{') < 0) {
+            return translation;
+        }
+        StringBuilder restored = new StringBuilder(translation.length() + 32);
+        int length = translation.length();
+        int i = 0;
+        while (i < length) {
+            char c = translation.charAt(i);
+            int close = c == '{' ? placeholderEnd(translation, i) : -1;
+            if (close > 0) {
+                int index = parseIndex(translation, i + 1, close);
+                if (index >= 0 && index < spans.size()) {
+                    restored.append(spans.get(index));
+                    i = close + 1;
+                    continue;
+                }
+            }
+            restored.append(c);
+            i++;
+        }
+        return restored.toString();
+    }
+
+    /**
+     * 流式译文的占位符还原：增量结尾可能是不完整的占位符（如 "{1"），暂存到下一个增量再还原
+     */
+    public static final class StreamRestorer {
+
+        // 占位符最长字符数（"{" + 编号 + "}"）
+        private static final int MAX_PLACEHOLDER_CHARS = 8;
+
+        private final List<String> spans;
+        private final StringBuilder pending = new StringBuilder();
+
+        public StreamRestorer(List<String> spans) {
+            this.spans = spans;
+        }
+
+        public String push(String delta) {
+            if (spans.isEmpty()) {
+                return delta;
+            }
+            pending.append(delta);
+            int cut = pending.length();
+            int open = pending.lastIndexOf("{");
+            if (open >= 0 && pending.length() - open < MAX_PLACEHOLDER_CHARS && digitsOnly(pending, open + 1)) {
+                cut = open;
+            }
+            String ready = pending.substring(0, cut);
+            pending.delete(0, cut);
+            return restore(ready, spans);
+        }
+
+        public String flush() {
+            String rest = restore(pending.toString(), spans);
+            pending.setLength(0);
+            return rest;
+        }
+
+        private static boolean digitsOnly(CharSequence text, int from) {
+            for (int i = from; i < text.length(); i++) {
+                if (!Character.isDigit(text.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 追加两个占位符之间的普通文本，同时合并空白
+     */
+    private static void appendNormalized(StringBuilder out, String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                trimTrailingSpace(out);
+                int length = out.length();
+                // 开头的换行去掉，连续空行最多保留一个
+                if (length > 0 && !(length >= 2 && out.charAt(length - 1) == '\n' && out.charAt(length - 2) == '\n')) {
+                    out.append('\n');
+                }
+            } else if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                int length = out.length();
+                if (length > 0 && out.charAt(length - 1) != ' ' && out.charAt(length - 1) != '\n') {
+                    out.append(' ');
+                }
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    private static void trimTrailingSpace(StringBuilder out) {
+        int length = out.length();
+        while (length > 0 && out.charAt(length - 1) == ' ') {
+            length--;
+        }
+        out.setLength(length);
+    }
+
+    /**
+     * 统计占位符：seen 不为 null 时按编号计数（只计 limit 以内的编号）
+     *
+     * @return 占位符个数
+     */
+    private static int countPlaceholders(String text, int limit, int[] seen) {
+        int count = 0;
+        for (int i = text.indexOf('{'); i >= 0; i = text.indexOf('{', i + 1)) {
+            int close = placeholderEnd(text, i);
+            if (close < 0) {
+                continue;
+            }
+            int index = parseIndex(text, i + 1, close);
+            if (index >= 0 && index < limit) {
+                count++;
+                if (seen != null) {
+                    seen[index]++;
+                }
+            }
+            i = close;
+        }
+        return count;
+    }
+
+    /**
+     * open 处为 "{" 且后跟数字与 "}" 时返回 "}" 的位置，否则返回 -1
+     */
+    private static int placeholderEnd(String text, int open) {
+        int i = open + 1;
+        while (i < text.length() && Character.isDigit(text.charAt(i))) {
+            i++;
+        }
+        return i > open + 1 && i < text.length() && text.charAt(i) == '}' ? i : -1;
+    }
+
+    private static int parseIndex(String text, int from, int to) {
+        if (to - from > 6) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = from; i < to; i++) {
+            index = index * 10 + Character.digit(text.charAt(i), 10);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,158 @@
+package com.translator.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 句子 / 行切分
+ *
+ * 按换行与句末标点切分消息，保留片段之间的分隔空白，译文按原顺序重新拼接。
+ * 中文句末标点（。！？）直接断句；西文标点（. ! ? …）仅在后跟空白或结尾时断句，避免切开 "3.14"、"a.b.c"。
+ * 缩写后的单个句点不断句：单个字母（"J. Smith"）、含句点的缩写（"e.g."、"U.S."）与常见缩写（"Mr."、"etc."），
+ * 避免 "Mr." 这样的片段被单独缓存和翻译。
+ *
+ * @author mac
+ */
+public final class TextSegmenter {
+
+    // 句点后不断句的常见缩写（小写，不含句点）；"no"、"min" 等也常作句末单词，不列入
+    private static final Set<String> ABBREVIATIONS = Set.of(
+            "mr", "mrs", "ms", "dr", "prof", "sr", "jr", "st", "mt", "vs", "etc", "inc", "ltd", "co", "corp",
+            "vol", "fig", "approx", "dept", "cf", "al",
+            "jan", "feb", "mar", "apr", "jun", "jul", "aug", "sep", "sept", "oct", "nov", "dec");
+
+    private TextSegmenter() {
+    }
+
+    /**
+     * 切分结果：separators 比 segments 多一个，separators[i] 位于 segments[i] 之前，最后一个为结尾空白
+     */
+    public record Segmentation(List<String> segments, List<String> separators) {
+    }
+
+    public static Segmentation split(String text) {
+        List<String> segments = new ArrayList<>();
+        List<String> separators = new ArrayList<>();
+        int length = text.length();
+
+        int start = skipWhitespace(text, 0);
+        separators.add(text.substring(0, start));
+
+        int pos = start;
+        while (pos < length) {
+            char c = text.charAt(pos);
+            int end;
+            if (c == '\n' || c == '\r') {
+                end = pos;
+            } else if (isSentenceEnd(c)) {
+                end = pos + 1;
+                while (end < length && (isSentenceEnd(text.charAt(end)) || isClosingMark(text.charAt(end)))) {
+                    end++;
+                }
+                if (!isCjkSentenceEnd(c) && end < length
+                        && (!Character.isWhitespace(text.charAt(end)) || c == '.' && end == pos + 1 && isAbbreviation(text, pos))) {
+                    pos = end;
+                    continue;
+                }
+            } else {
+                pos++;
+                continue;
+            }
+
+            // start 处一定是非空白字符，因此片段非空
+            int segmentEnd = trimEnd(text, start, end);
+            int next = skipWhitespace(text, end);
+            segments.add(text.substring(start, segmentEnd));
+            separators.add(text.substring(segmentEnd, next));
+            start = next;
+            pos = next;
+        }
+
+        if (start < length) {
+            int segmentEnd = trimEnd(text, start, length);
+            segments.add(text.substring(start, segmentEnd));
+            separators.add(text.substring(segmentEnd));
+        }
+
+        return new Segmentation(segments, separators);
+    }
+
+    /**
+     * 按原顺序拼接各片段译文
+     * 含换行的分隔保持原样；同一行内的分隔按目标语言处理：中文、日文不加空格，其余语言以单个空格连接
+     */
+    public static String join(Segmentation segmentation, List<String> translations, String targetLang) {
+        boolean spaced = usesSpaces(targetLang);
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < translations.size(); i++) {
+            if (i > 0) {
+                String separator = segmentation.separators().get(i);
+                if (separator.indexOf('\n') >= 0) {
+                    joined.append(separator);
+                } else if (spaced) {
+                    joined.append(' ');
+                }
+            }
+            joined.append(translations.get(i));
+        }
+        return joined.toString();
+    }
+
+    private static boolean usesSpaces(String lang) {
+        String lower = lang.toLowerCase();
+        return !(lower.startsWith("zh") || lower.startsWith("ja"));
+    }
+
+    private static boolean isSentenceEnd(char c) {
+        return c == '。' || c == '！' || c == '？' || c == '!' || c == '?' || c == '.' || c == '…';
+    }
+
+    /**
+     * dot 处的句点是否跟在缩写之后：取句点前连续的拉丁字母与句点
+     */
+    private static boolean isAbbreviation(String text, int dot) {
+        int i = dot;
+        while (i > 0 && (isLatinLetter(text.charAt(i - 1)) || text.charAt(i - 1) == '.')) {
+            i--;
+        }
+        if (i > 0 && Character.isLetterOrDigit(text.charAt(i - 1))) {
+            return false;
+        }
+        String token = text.substring(i, dot);
+        if (token.isEmpty() || token.charAt(token.length() - 1) == '.') {
+            return false;
+        }
+        return token.length() == 1 || token.indexOf('.') >= 0 || ABBREVIATIONS.contains(token.toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean isLatinLetter(char c) {
+        return c < 0x250 && Character.isLetter(c);
+    }
+
+    private static boolean isCjkSentenceEnd(char c) {
+        return c == '。' || c == '！' || c == '？';
+    }
+
+    private static boolean isClosingMark(char c) {
+        return c == '"' || c == '\'' || c == '”' || c == '’' || c == '」' || c == '』'
+                || c == ')' || c == '）' || c == ']' || c == '】';
+    }
+
+    private static int skipWhitespace(String text, int from) {
+        int i = from;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int trimEnd(String text, int start, int end) {
+        int i = end;
+        while (i > start && Character.isWhitespace(text.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+}
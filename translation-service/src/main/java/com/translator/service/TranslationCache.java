@@ -0,0 +1,303 @@
+package com.translator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.translator.metrics.TranslationMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ * 翻译结果两级缓存
+ *
+ * L1：进程内 Caffeine（W-TinyLFU 准入，按近似字节数限制容量），命中时无网络往返
+ * L2：Redis（7天过期，命中后由 CacheTtlRefresher 异步批量续期），L2 命中后回填 L1
+ *
+ * 写入时 L1 立即生效，Redis 写入交给 CacheWriteBehind 在后台按批 pipeline 发送
+ * Redis 中的 Key 与译文格式由 CacheCodec 决定（字符串 / 紧凑二进制），本类对外只使用逻辑 Key
+ * L2 可按 CacheShardRouter 的一致性哈希分布到多个 Redis 节点，多 Key 操作按分片分组
+ *
+ * L1 按写入时间过期（默认 1 小时），保证热点条目会定期回到 Redis 续期，不会先于 L2 过期
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TranslationCache {
+
+    private final TranslationMetrics metrics;
+    private final CacheTtlRefresher ttlRefresher;
+    private final CacheWriteBehind writeBehind;
+    private final CacheCodec codec;
+    private final CacheShardRouter shardRouter;
+
+    static final Duration CACHE_TTL = Duration.ofDays(7);
+
+    // 每个条目的固定开销估算（Key 字符串、节点对象等）
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    @Value("${translation.cache.local.enabled:true}")
+    private boolean localEnabled;
+
+    // L1 总容量（近似字节数）
+    @Value("${translation.cache.local.max-weight-bytes:67108864}")
+    private long localMaxWeightBytes;
+
+    // 超过该长度的译文不进入 L1，避免长消息挤占热点短语
+    @Value("${translation.cache.local.max-entry-chars:2000}")
+    private int localMaxEntryChars;
+
+    @Value("${translation.cache.local.expire-after-write:1h}")
+    private Duration localExpireAfterWrite;
+
+    private Cache<String, String> localCache;
+
+    @PostConstruct
+    public void init() {
+        if (!localEnabled) {
+            log.info("L1 本地翻译缓存已关闭");
+            return;
+        }
+        localCache = Caffeine.newBuilder()
+                .maximumWeight(localMaxWeightBytes)
+                .weigher((String key, String value) -> weigh(key, value))
+                .expireAfterWrite(localExpireAfterWrite)
+                .recordStats()
+                .build();
+        log.info("L1 本地翻译缓存已启用: maxWeight={}B, maxEntryChars={}, expireAfterWrite={}",
+                localMaxWeightBytes, localMaxEntryChars, localExpireAfterWrite);
+    }
+
+    /**
+     * 查询单个 Key：L1 -> L2（命中时回填 L1，续期异步进行）
+     */
+    public String get(String cacheKey) {
+        String value = getLocal(cacheKey);
+        if (localCache != null) {
+            metrics.recordCacheLookup("l1", value != null, 1);
+        }
+        if (value != null) {
+            return value;
+        }
+
+        value = fetch(List.of(cacheKey)).get(0);
+        metrics.recordCacheLookup("l2", value != null, 1);
+        if (value != null) {
+            putLocal(cacheKey, value);
+        }
+        return value;
+    }
+
+    /**
+     * 批量查询：先查 L1，剩余 Key 一次 MGET，L2 命中的回填 L1 并交给异步续期
+     *
+     * @return 与 cacheKeys 顺序一致的结果，未命中位置为 null
+     */
+    public List<String> getAll(List<String> cacheKeys) {
+        String[] values = new String[cacheKeys.size()];
+        List<String> remoteKeys = new ArrayList<>();
+        List<Integer> remoteIndexes = new ArrayList<>();
+
+        for (int i = 0; i < cacheKeys.size(); i++) {
+            String value = getLocal(cacheKeys.get(i));
+            if (value != null) {
+                values[i] = value;
+            } else {
+                remoteKeys.add(cacheKeys.get(i));
+                remoteIndexes.add(i);
+            }
+        }
+
+        if (localCache != null) {
+            metrics.recordCacheLookup("l1", true, cacheKeys.size() - remoteKeys.size());
+            metrics.recordCacheLookup("l1", false, remoteKeys.size());
+        }
+
+        if (!remoteKeys.isEmpty()) {
+            List<String> remoteValues = fetch(remoteKeys);
+            int hits = 0;
+            for (int j = 0; j < remoteKeys.size(); j++) {
+                String value = remoteValues.get(j);
+                if (value != null) {
+                    values[remoteIndexes.get(j)] = value;
+                    hits++;
+                    putLocal(remoteKeys.get(j), value);
+                }
+            }
+            metrics.recordCacheLookup("l2", true, hits);
+            metrics.recordCacheLookup("l2", false, remoteKeys.size() - hits);
+        }
+
+        return Arrays.asList(values);
+    }
+
+    /**
+     * 写入 L1，L2 异步写入
+     */
+    public void put(String cacheKey, String value) {
+        putLocal(cacheKey, value);
+        ttlRefresher.written(cacheKey);
+        writeBehind.write(cacheKey, value);
+    }
+
+    /**
+     * 批量写入 L1，L2 异步写入
+     */
+    public void putAll(Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        entries.forEach((cacheKey, value) -> {
+            putLocal(cacheKey, value);
+            ttlRefresher.written(cacheKey);
+        });
+        writeBehind.writeAll(entries);
+    }
+
+    /**
+     * L1 中最热的条目（按 W-TinyLFU 访问频率从高到低），供缓存快照使用；L1 关闭时为空
+     */
+    public Map<String, String> hottest(int limit) {
+        if (localCache == null) {
+            return Collections.emptyMap();
+        }
+        return localCache.policy().eviction()
+                .map(eviction -> eviction.hottest(limit))
+                .orElse(Collections.emptyMap());
+    }
+
+    /**
+     * 预热：写入 L1，L2 只补齐缺失的 Key（SET NX，不覆盖 Redis 中更新的译文），pipeline 一次往返
+     *
+     * @return 写入 Redis 的条目数
+     */
+    public long warm(Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        Expiration expiration = Expiration.seconds(CACHE_TTL.getSeconds());
+        long warmed = 0;
+        for (Map.Entry<CacheShardRouter.Shard, List<Map.Entry<String, String>>> group
+                : shardRouter.partition(entries.entrySet(), Map.Entry::getKey).entrySet()) {
+            long start = System.nanoTime();
+            List<Object> replies = group.getKey().template().executePipelined((RedisCallback<Object>) connection -> {
+                RedisStringCommands commands = connection.stringCommands();
+                for (Map.Entry<String, String> entry : group.getValue()) {
+                    commands.set(codec.key(entry.getKey()), codec.encode(entry.getValue()),
+                            expiration, RedisStringCommands.SetOption.SET_IF_ABSENT);
+                }
+                return null;
+            });
+            metrics.recordRedis("set_pipeline", start);
+            warmed += replies.stream().filter(Boolean.TRUE::equals).count();
+        }
+        entries.forEach(this::putLocal);
+        return warmed;
+    }
+
+    /**
+     * 查询 Redis：按分片分组，每个分片一次 GET 或 MGET（多个分片并行），命中的 Key 交给异步续期
+     *
+     * migrate 模式下同一次 MGET 同时查询新旧两种 Key，只有旧格式命中的按新格式重新写入
+     *
+     * @return 与 cacheKeys 顺序一致的结果，未命中位置为 null
+     */
+    private List<String> fetch(List<String> cacheKeys) {
+        String[] values = new String[cacheKeys.size()];
+        List<Integer> indexes = IntStream.range(0, cacheKeys.size()).boxed().toList();
+        Map<CacheShardRouter.Shard, List<Integer>> groups = shardRouter.partition(indexes, cacheKeys::get);
+        if (groups.size() == 1) {
+            groups.forEach((shard, group) -> fetchShard(shard, cacheKeys, group, values));
+        } else {
+            CompletableFuture.allOf(groups.entrySet().stream()
+                    .map(group -> CompletableFuture.runAsync(
+                            () -> fetchShard(group.getKey(), cacheKeys, group.getValue(), values), shardRouter.executor()))
+                    .toArray(CompletableFuture[]::new)).join();
+        }
+        return Arrays.asList(values);
+    }
+
+    /**
+     * 查询一个分片上的 Key；分片模式下单个节点失败按未命中处理，不影响其他分片
+     */
+    private void fetchShard(CacheShardRouter.Shard shard, List<String> cacheKeys, List<Integer> group, String[] values) {
+        int size = group.size();
+        boolean legacy = codec.readsLegacy();
+        byte[][] keys = new byte[legacy ? size * 2 : size][];
+        for (int i = 0; i < size; i++) {
+            String cacheKey = cacheKeys.get(group.get(i));
+            keys[i] = codec.key(cacheKey);
+            if (legacy) {
+                keys[size + i] = codec.legacyKey(cacheKey);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<byte[]> replies;
+        try {
+            replies = keys.length == 1
+                    ? Collections.singletonList(shard.template().execute(
+                            (RedisCallback<byte[]>) connection -> connection.stringCommands().get(keys[0])))
+                    : shard.template().execute(
+                            (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(keys));
+        } catch (RuntimeException e) {
+            if (!shardRouter.sharded()) {
+                throw e;
+            }
+            log.warn("翻译缓存分片查询失败，按未命中处理: shard={}, {}", shard.name(), e.getMessage());
+            return;
+        }
+        metrics.recordRedis(keys.length == 1 ? "get" : "mget", start);
+
+        List<String> hitKeys = new ArrayList<>();
+        for (int i = 0; replies != null && i < size; i++) {
+            int index = group.get(i);
+            String cacheKey = cacheKeys.get(index);
+            byte[] bytes = replies.get(i);
+            if (bytes != null) {
+                values[index] = codec.decode(bytes);
+            } else if (legacy && replies.get(size + i) != null) {
+                values[index] = codec.decodeLegacy(replies.get(size + i));
+                ttlRefresher.written(cacheKey);
+                writeBehind.write(cacheKey, values[index]);
+                continue;
+            }
+            if (values[index] != null) {
+                hitKeys.add(cacheKey);
+            }
+        }
+        ttlRefresher.touchAll(hitKeys);
+    }
+
+    private String getLocal(String cacheKey) {
+        return localCache != null ? localCache.getIfPresent(cacheKey) : null;
+    }
+
+    private void putLocal(String cacheKey, String value) {
+        if (localCache != null && value.length() <= localMaxEntryChars) {
+            localCache.put(cacheKey, value);
+        }
+    }
+
+    /**
+     * 条目权重：UTF-16 字符按 2 字节估算，加固定开销
+     */
+    private static int weigh(String key, String value) {
+        return ENTRY_OVERHEAD_BYTES + (key.length() + value.length()) * 2;
+    }
+}
@@ -0,0 +1,291 @@
+package com.translator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.translator.engine.TranslationReference;
+import com.translator.metrics.TranslationMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
+
+/**
+ * 翻译记忆：近似重复消息的模糊匹配
+ *
+ * 只差数字、链接、@用户或表情的消息在占位符预处理（TextMasker）后已共用同一个缓存 Key，由缓存直接命中，
+ * 这里不再按模板替换变量直接复用译文（关闭占位符预处理时这类消息各自请求上游）。
+ * 这里只处理措辞相近的消息：原文中的变量（URL、@用户、数字、表情）替换为占位符得到模板，
+ * 模板相似（字符 3-gram Jaccard 系数不低于阈值）时，相似原文及其译文作为参考交给翻译引擎，保持术语一致。
+ *
+ * 相似检索为 MinHash + LSH：32 个哈希分 8 段，每段 4 行，任一段相同即为候选，再按精确 Jaccard 系数确认。
+ * 相似度 0.8 的文本成为候选的概率约 98.5%，0.5 约 40%。
+ *
+ * 存储：条目放在定长环形数组中（按序号取模，写满后覆盖最旧的条目），模板索引与 LSH 桶放在 Caffeine 中，
+ * 桶中只记录条目序号，读取时校验序号，已被覆盖的条目直接跳过。只记录上游返回的译文，缓存命中不写入。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TranslationMemory {
+
+    private final TranslationMetrics metrics;
+
+    @Value("${translation.memory.enabled:true}")
+    private boolean enabled;
+
+    // 最多记住的原文条数（环形覆盖）
+    @Value("${translation.memory.max-entries:100000}")
+    private int maxEntries;
+
+    // 作为参考译文的最低相似度（字符 3-gram Jaccard 系数）
+    @Value("${translation.memory.similarity-threshold:0.8}")
+    private double similarityThreshold;
+
+    // 只记忆与检索该长度范围内的原文：太短的句子相似没有意义，太长的计算开销大且很少近似重复
+    @Value("${translation.memory.min-chars:8}")
+    private int minChars;
+
+    @Value("${translation.memory.max-chars:500}")
+    private int maxChars;
+
+    private static final int NUM_HASHES = 32;
+    private static final int BANDS = 8;
+    private static final int ROWS = NUM_HASHES / BANDS;
+
+    // 每个 LSH 桶保留最近写入的条目数
+    private static final int BUCKET_SIZE = 8;
+
+    // 模板中的变量占位符（私用区字符）
+    private static final char SLOT = '\uE000';
+
+    // 变量：URL、@用户、数字（含小数点、千分位、时间、日期分隔符）、表情（含肤色修饰、变体选择符与连接符）
+    private static final Pattern VARIABLE = Pattern.compile(
+            "https?://\\S+|www\\.\\S+|@[\\p{L}\\p{N}_]+|\\p{Nd}+(?:[.,:/-]\\p{Nd}+)*"
+                    + "|[\\p{So}\\x{1F3FB}-\\x{1F3FF}\\x{FE0F}\\x{200D}]+");
+
+    private static final long[] SEEDS = new SplittableRandom(0x7E57L).longs(NUM_HASHES).toArray();
+
+    private AtomicReferenceArray<Entry> entries;
+    private final AtomicLong sequence = new AtomicLong();
+    // 语言对 + 模板 -> 条目序号
+    private Cache<String, Long> templates;
+    // LSH 桶 -> 最近的条目序号
+    private Cache<Long, long[]> buckets;
+
+    private record Entry(long id, String pair, String sourceText, String template, String translatedText) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("翻译记忆已关闭");
+            return;
+        }
+        entries = new AtomicReferenceArray<>(maxEntries);
+        templates = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+        buckets = Caffeine.newBuilder()
+                .maximumSize((long) maxEntries * BANDS)
+                .build();
+        log.info("翻译记忆已启用: maxEntries={}, similarityThreshold={}, chars=[{}, {}]",
+                maxEntries, similarityThreshold, minChars, maxChars);
+    }
+
+    /**
+     * 检索相似原文作为参考译文
+     *
+     * @return 无足够相似的记忆时返回 null
+     */
+    public TranslationReference lookup(String text, String sourceLang, String targetLang) {
+        if (!eligible(text)) {
+            return null;
+        }
+        String pair = sourceLang + ":" + targetLang;
+        long[] shingles = shingles(template(text));
+        Entry best = null;
+        double bestSimilarity = 0;
+        if (shingles.length > 0) {
+            Set<Long> seen = new HashSet<>();
+            for (long bandKey : bandKeys(pair, shingles)) {
+                long[] ids = buckets.getIfPresent(bandKey);
+                if (ids == null) {
+                    continue;
+                }
+                for (long id : ids) {
+                    Entry candidate = entry(id);
+                    if (candidate == null || !candidate.pair().equals(pair) || !seen.add(id)) {
+                        continue;
+                    }
+                    double similarity = jaccard(shingles, shingles(candidate.template()));
+                    if (similarity > bestSimilarity) {
+                        best = candidate;
+                        bestSimilarity = similarity;
+                    }
+                }
+            }
+        }
+
+        if (best != null && bestSimilarity >= similarityThreshold) {
+            metrics.recordMemory("reference");
+            return new TranslationReference(best.sourceText(), best.translatedText(), bestSimilarity);
+        }
+        metrics.recordMemory("miss");
+        return null;
+    }
+
+    /**
+     * 记录一条译文；同一模板已有条目时不重复记录
+     */
+    public void remember(String text, String sourceLang, String targetLang, String translatedText) {
+        if (translatedText == null || translatedText.isEmpty() || !eligible(text)) {
+            return;
+        }
+        String pair = sourceLang + ":" + targetLang;
+        String template = template(text);
+        String templateKey = pair + ":" + template;
+        if (entry(templates.getIfPresent(templateKey)) != null) {
+            return;
+        }
+
+        long id = sequence.getAndIncrement();
+        entries.set(slot(id), new Entry(id, pair, text, template, translatedText));
+        templates.put(templateKey, id);
+
+        long[] shingles = shingles(template);
+        if (shingles.length == 0) {
+            return;
+        }
+        for (long bandKey : bandKeys(pair, shingles)) {
+            buckets.asMap().compute(bandKey, (k, ids) -> append(ids, id));
+        }
+    }
+
+    private boolean eligible(String text) {
+        return enabled && text != null && text.length() >= minChars && text.length() <= maxChars;
+    }
+
+    private Entry entry(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Entry entry = entries.get(slot(id));
+        return entry != null && entry.id() == id ? entry : null;
+    }
+
+    private int slot(long id) {
+        return (int) (id % maxEntries);
+    }
+
+    /**
+     * 变量替换为占位符，得到模板
+     */
+    private static String template(String text) {
+        return VARIABLE.matcher(text).replaceAll(String.valueOf(SLOT));
+    }
+
+    /**
+     * 模板小写后的字符 3-gram 集合（3 个 UTF-16 字符无损编码为一个 long），升序去重
+     */
+    private static long[] shingles(String template) {
+        String text = template.toLowerCase(Locale.ROOT);
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] shingles = new long[text.length() - 2];
+        for (int i = 0; i < shingles.length; i++) {
+            shingles[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(shingles);
+        int distinct = 1;
+        for (int i = 1; i < shingles.length; i++) {
+            if (shingles[i] != shingles[distinct - 1]) {
+                shingles[distinct++] = shingles[i];
+            }
+        }
+        return Arrays.copyOf(shingles, distinct);
+    }
+
+    /**
+     * 两个升序去重集合的 Jaccard 系数
+     */
+    private static double jaccard(long[] a, long[] b) {
+        if (Math.min(a.length, b.length) == 0) {
+            return 0;
+        }
+        int i = 0;
+        int j = 0;
+        int intersection = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                intersection++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) intersection / (a.length + b.length - intersection);
+    }
+
+    /**
+     * MinHash 签名按段哈希为 LSH 桶 Key（含语言对，不同语言对互不干扰）
+     */
+    private static long[] bandKeys(String pair, long[] shingles) {
+        long[] signature = new long[NUM_HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int h = 0; h < NUM_HASHES; h++) {
+                long value = mix64(shingle ^ SEEDS[h]);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        long[] keys = new long[BANDS];
+        long pairHash = pair.hashCode();
+        for (int band = 0; band < BANDS; band++) {
+            long key = mix64(pairHash + band * 0x9E3779B97F4A7C15L);
+            for (int row = 0; row < ROWS; row++) {
+                key = mix64(key ^ signature[band * ROWS + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static long[] append(long[] ids, long id) {
+        if (ids == null) {
+            return new long[] {id};
+        }
+        if (ids.length < BUCKET_SIZE) {
+            long[] grown = Arrays.copyOf(ids, ids.length + 1);
+            grown[ids.length] = id;
+            return grown;
+        }
+        long[] shifted = new long[BUCKET_SIZE];
+        System.arraycopy(ids, 1, shifted, 0, BUCKET_SIZE - 1);
+        shifted[BUCKET_SIZE - 1] = id;
+        return shifted;
+    }
+}
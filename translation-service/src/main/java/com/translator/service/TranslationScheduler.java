@@ -0,0 +1,493 @@
+package com.translator.service;
+
+import com.translator.engine.UpstreamGuard;
+import com.translator.engine.UpstreamGuardRegistry;
+import com.translator.engine.UpstreamUnavailableException;
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 上游翻译请求的优先级调度（在翻译引擎之前，只调度缓存未命中后的上游调用）
+ *
+ * 两个优先级：
+ * - interactive：发送框翻译，用户等待结果才能发送（流式与单条接口默认）
+ * - background：聊天气泡翻译，可以稍后显示（批量接口默认）
+ * 由 X-Translate-Priority 请求头或请求体 priority 字段指定。
+ *
+ * 调度规则：
+ * - 全部在途上游请求不超过总名额，其中 interactive-reserved-ratio 比例的名额只给 interactive 使用，
+ *   后台请求再多也占不满全部名额。总名额默认跟随首选引擎的自适应并发上限（见 UpstreamGuard），
+ *   请求在这里按优先级排队，而不是在引擎的 FIFO 队列中与后台请求混排
+ * - 名额释放时先放行 interactive 队列，再放行 background 队列
+ * - 每个优先级一个有界队列：interactive 队列满时拒绝新请求；background 队列满时丢弃最早排队的请求
+ *   （群聊刷屏时最旧的气泡最不重要）
+ * - 排队超过各自的 max-wait 的请求直接丢弃，不再占用上游（background 的等待上限更短）
+ * - 调用凭证（Ticket）可以在排队期间提升为 interactive：相同请求合并时，interactive 请求加入 background 请求的在途调用后
+ *   由 TranslationSingleFlight 提升，仍在 background 队列中的调用移到 interactive 队列，等待上限改按 interactive 计算
+ * 被拒绝或丢弃的请求抛出 UpstreamUnavailableException，按上游繁忙处理。
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TranslationScheduler {
+
+    private final UpstreamGuardRegistry upstreamGuards;
+    private final TranslationMetrics metrics;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 请求优先级
+     */
+    public enum Priority {
+        INTERACTIVE, BACKGROUND;
+
+        /**
+         * 解析请求头 / 请求体中的优先级，为空或无法识别时返回 fallback
+         */
+        public static Priority of(String value, Priority fallback) {
+            if (value == null || value.isBlank()) {
+                return fallback;
+            }
+            return switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "interactive", "high" -> INTERACTIVE;
+                case "background", "low" -> BACKGROUND;
+                default -> fallback;
+            };
+        }
+
+        public String value() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * 一次上游调用的优先级凭证，排队期间可以提升为 interactive
+     */
+    public final class Ticket {
+        // 受 lock 保护写入
+        private volatile Priority priority;
+        // 本凭证被提升时一并提升的凭证（多个请求打包成的一次调用，见 combine）
+        private final List<Ticket> dependents = new CopyOnWriteArrayList<>();
+
+        private Ticket(Priority priority) {
+            this.priority = priority;
+        }
+
+        public Priority priority() {
+            return priority;
+        }
+
+        /**
+         * 提升为 interactive：仍在 background 队列中排队的调用移到 interactive 队列；已获得名额的调用不受影响
+         */
+        public void promote() {
+            if (priority == Priority.INTERACTIVE) {
+                return;
+            }
+            TranslationScheduler.this.promote(this);
+            for (Ticket dependent : dependents) {
+                dependent.promote();
+            }
+        }
+    }
+
+    @Value("${translation.scheduler.enabled:true}")
+    private boolean enabled;
+
+    // 全部优先级合计的在途上游请求数，0 表示跟随首选引擎的自适应并发上限
+    @Value("${translation.scheduler.max-concurrent:0}")
+    private int maxConcurrent;
+
+    // 只给 interactive 使用的名额比例（至少留 1 个名额给 background）
+    @Value("${translation.scheduler.interactive-reserved-ratio:0.25}")
+    private double interactiveReservedRatio;
+
+    @Value("${translation.engines.primary:openai}")
+    private String primaryEngine;
+
+    @Value("${translation.scheduler.interactive.queue-capacity:200}")
+    private int interactiveQueueCapacity;
+
+    @Value("${translation.scheduler.interactive.max-wait:5s}")
+    private Duration interactiveMaxWait;
+
+    @Value("${translation.scheduler.background.queue-capacity:500}")
+    private int backgroundQueueCapacity;
+
+    @Value("${translation.scheduler.background.max-wait:3s}")
+    private Duration backgroundMaxWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private UpstreamGuard primaryGuard;
+    private Lane interactive;
+    private Lane background;
+    // 全部优先级的在途数（受 lock 保护）
+    private int inFlight;
+
+    /**
+     * 一个优先级的队列与在途数
+     */
+    private static final class Lane {
+        private final Priority priority;
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private final int capacity;
+        private final long maxWaitNanos;
+        private volatile int inFlight;
+        private volatile int queued;
+
+        private Lane(Priority priority, int capacity, Duration maxWait) {
+            this.priority = priority;
+            this.capacity = capacity;
+            this.maxWaitNanos = maxWait.toNanos();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("翻译优先级调度已关闭");
+            return;
+        }
+        primaryGuard = upstreamGuards.get(primaryEngine);
+        interactive = new Lane(Priority.INTERACTIVE, interactiveQueueCapacity, interactiveMaxWait);
+        background = new Lane(Priority.BACKGROUND, backgroundQueueCapacity, backgroundMaxWait);
+        for (Lane lane : List.of(interactive, background)) {
+            Gauge.builder("translation.scheduler.inflight", lane, l -> l.inFlight)
+                    .tag("priority", lane.priority.value())
+                    .description("各优先级的在途上游请求数")
+                    .register(meterRegistry);
+            Gauge.builder("translation.scheduler.queued", lane, l -> l.queued)
+                    .tag("priority", lane.priority.value())
+                    .description("各优先级等待上游名额的请求数")
+                    .register(meterRegistry);
+        }
+        log.info("翻译优先级调度: maxConcurrent={}, interactiveReservedRatio={}, interactive(queue={}, maxWait={}), background(queue={}, maxWait={})",
+                maxConcurrent > 0 ? maxConcurrent : "跟随引擎 " + primaryEngine, interactiveReservedRatio,
+                interactiveQueueCapacity, interactiveMaxWait,
+                backgroundQueueCapacity, backgroundMaxWait);
+    }
+
+    /**
+     * 新建一个调用凭证
+     */
+    public Ticket ticket(Priority priority) {
+        return new Ticket(priority);
+    }
+
+    /**
+     * 多个请求打包成一次上游调用时合并凭证：任一为 interactive 时为 interactive，之后任一被提升时一并提升
+     */
+    public Ticket combine(List<Ticket> tickets) {
+        if (tickets.size() == 1) {
+            return tickets.get(0);
+        }
+        Ticket combined = new Ticket(Priority.BACKGROUND);
+        for (Ticket ticket : tickets) {
+            ticket.dependents.add(combined);
+        }
+        // 先登记再检查，登记之前已被提升的凭证在这里补上
+        if (tickets.stream().anyMatch(ticket -> ticket.priority == Priority.INTERACTIVE)) {
+            combined.promote();
+        }
+        return combined;
+    }
+
+    /**
+     * 按优先级调度一次上游调用：获得名额后才订阅 call，调用结束（成功、失败或取消）时归还名额
+     */
+    public <T> Mono<T> schedule(Priority priority, Mono<T> call) {
+        return schedule(ticket(priority), call);
+    }
+
+    /**
+     * 按凭证调度一次上游调用，排队期间凭证被提升时改按 interactive 排队
+     */
+    public <T> Mono<T> schedule(Ticket ticket, Mono<T> call) {
+        if (!enabled) {
+            return call;
+        }
+        return acquire(ticket).flatMap(permit -> call.doFinally(signal -> permit.release()));
+    }
+
+    /**
+     * 按优先级调度一次流式上游调用，名额占用到流结束
+     */
+    public <T> Flux<T> scheduleStream(Priority priority, Flux<T> call) {
+        if (!enabled) {
+            return call;
+        }
+        return acquire(ticket(priority)).flatMapMany(permit -> call.doFinally(signal -> permit.release()));
+    }
+
+    private Lane lane(Priority priority) {
+        return priority == Priority.BACKGROUND ? background : interactive;
+    }
+
+    /**
+     * 有空闲名额时立即获得（background 不能占用预留名额，且 interactive 有排队时让行），否则排队
+     */
+    private Mono<Permit> acquire(Ticket ticket) {
+        Lane initial = lane(ticket.priority);
+        return Mono.<Permit>create(sink -> {
+            Waiter waiter = null;
+            Waiter evicted = null;
+            boolean granted = false;
+            boolean full = false;
+            Lane lane;
+            lock.lock();
+            try {
+                lane = lane(ticket.priority);
+                if (canRun(lane)) {
+                    take(lane);
+                    granted = true;
+                } else if (lane.waiters.size() >= lane.capacity) {
+                    if (lane == background && lane.capacity > 0) {
+                        evicted = pollWaiting(lane);
+                    }
+                    full = evicted == null;
+                }
+                if (!granted && !full) {
+                    waiter = new Waiter(sink, lane, ticket);
+                    lane.waiters.addLast(waiter);
+                    lane.queued = lane.waiters.size();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (evicted != null) {
+                drop(evicted, "evicted");
+            }
+            if (granted) {
+                metrics.recordSchedulerWait(lane.priority.value(), 0);
+                sink.success(new Permit(lane));
+            } else if (full) {
+                metrics.recordSchedulerDrop(lane.priority.value(), "queue_full");
+                sink.error(new UpstreamUnavailableException("翻译请求排队已满，请稍后重试"));
+            } else {
+                Waiter registered = waiter;
+                sink.onCancel(() -> cancelWaiter(registered));
+            }
+        }).timeout(expiry(initial, ticket), Mono.defer(() -> {
+            metrics.recordSchedulerDrop(ticket.priority.value(), "expired");
+            return Mono.error(new UpstreamUnavailableException("翻译请求排队超时，请稍后重试"));
+        }));
+    }
+
+    /**
+     * 排队超时：按开始排队时的优先级计时，期间被提升时延长到 interactive 的 max-wait
+     */
+    private Mono<Long> expiry(Lane initial, Ticket ticket) {
+        return Mono.delay(Duration.ofNanos(initial.maxWaitNanos))
+                .flatMap(tick -> {
+                    long extra = lane(ticket.priority).maxWaitNanos - initial.maxWaitNanos;
+                    return extra > 0 ? Mono.delay(Duration.ofNanos(extra)) : Mono.just(tick);
+                });
+    }
+
+    private boolean canRun(Lane lane) {
+        int capacity = capacity();
+        if (inFlight >= capacity) {
+            return false;
+        }
+        if (lane == interactive) {
+            return true;
+        }
+        int reserved = Math.min(capacity - 1, (int) Math.ceil(capacity * interactiveReservedRatio));
+        return interactive.waiters.isEmpty() && background.inFlight < capacity - reserved;
+    }
+
+    /**
+     * 当前总名额：配置值，或首选引擎当前的自适应并发上限
+     */
+    private int capacity() {
+        return maxConcurrent > 0 ? maxConcurrent : Math.max(1, (int) primaryGuard.limit());
+    }
+
+    private void take(Lane lane) {
+        inFlight++;
+        lane.inFlight++;
+    }
+
+    /**
+     * 取出队首仍在等待的请求（已取消的跳过）
+     */
+    private Waiter pollWaiting(Lane lane) {
+        Waiter waiter;
+        while ((waiter = lane.waiters.pollFirst()) != null) {
+            if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.DROPPED)) {
+                break;
+            }
+        }
+        lane.queued = lane.waiters.size();
+        return waiter;
+    }
+
+    /**
+     * 排队请求被取消（超时或客户端断开）：仍在队列中则移除；名额已转交但未送达则归还
+     */
+    private void cancelWaiter(Waiter waiter) {
+        if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED)) {
+            lock.lock();
+            try {
+                waiter.lane.waiters.remove(waiter);
+                waiter.lane.queued = waiter.lane.waiters.size();
+            } finally {
+                lock.unlock();
+            }
+        } else if (waiter.state.get() == Waiter.GRANTED) {
+            release(waiter.lane);
+        }
+    }
+
+    /**
+     * 凭证提升为 interactive：background 队列中属于该凭证的排队请求移到 interactive 队列（可能立即获得预留名额）
+     */
+    private void promote(Ticket ticket) {
+        if (!enabled) {
+            ticket.priority = Priority.INTERACTIVE;
+            return;
+        }
+        List<Waiter> granted = new ArrayList<>();
+        List<Waiter> expired = new ArrayList<>();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            ticket.priority = Priority.INTERACTIVE;
+            boolean moved = false;
+            Iterator<Waiter> iterator = background.waiters.iterator();
+            while (iterator.hasNext()) {
+                Waiter waiter = iterator.next();
+                if (waiter.ticket == ticket && waiter.state.get() == Waiter.WAITING) {
+                    iterator.remove();
+                    waiter.lane = interactive;
+                    interactive.waiters.addLast(waiter);
+                    moved = true;
+                }
+            }
+            if (moved) {
+                log.debug("后台翻译请求被合并的 interactive 请求提升优先级");
+                dispatch(now, granted, expired);
+            }
+        } finally {
+            lock.unlock();
+        }
+        deliver(now, granted, expired);
+    }
+
+    /**
+     * 归还一个名额，先放行 interactive 队列，再放行 background 队列；排队已超过 max-wait 的请求直接丢弃
+     */
+    private void release(Lane lane) {
+        List<Waiter> granted = new ArrayList<>();
+        List<Waiter> expired = new ArrayList<>();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            inFlight--;
+            lane.inFlight--;
+            dispatch(now, granted, expired);
+        } finally {
+            lock.unlock();
+        }
+        deliver(now, granted, expired);
+    }
+
+    /**
+     * 按空闲名额从队首放行（调用方持有 lock），结果在释放 lock 后由 deliver 通知
+     */
+    private void dispatch(long now, List<Waiter> granted, List<Waiter> expired) {
+        for (Lane next : List.of(interactive, background)) {
+            while (canRun(next) && !next.waiters.isEmpty()) {
+                Waiter waiter = next.waiters.pollFirst();
+                if (now - waiter.enqueuedNanos >= next.maxWaitNanos) {
+                    if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.DROPPED)) {
+                        expired.add(waiter);
+                    }
+                } else if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.GRANTED)) {
+                    take(next);
+                    granted.add(waiter);
+                }
+            }
+            next.queued = next.waiters.size();
+        }
+    }
+
+    private void deliver(long now, List<Waiter> granted, List<Waiter> expired) {
+        for (Waiter waiter : expired) {
+            drop(waiter, "expired");
+        }
+        for (Waiter waiter : granted) {
+            metrics.recordSchedulerWait(waiter.lane.priority.value(), now - waiter.enqueuedNanos);
+            waiter.sink.success(new Permit(waiter.lane));
+        }
+    }
+
+    private void drop(Waiter waiter, String reason) {
+        metrics.recordSchedulerDrop(waiter.lane.priority.value(), reason);
+        waiter.sink.error(new UpstreamUnavailableException("翻译请求排队过久已丢弃，请稍后重试"));
+    }
+
+    /**
+     * 一个在途名额，只归还一次
+     */
+    private final class Permit {
+        private final Lane lane;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Lane lane) {
+            this.lane = lane;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                TranslationScheduler.this.release(lane);
+            }
+        }
+    }
+
+    /**
+     * 排队中的请求
+     */
+    private static final class Waiter {
+        private static final int WAITING = 0;
+        private static final int GRANTED = 1;
+        private static final int CANCELLED = 2;
+        private static final int DROPPED = 3;
+
+        private final MonoSink<Permit> sink;
+        private final Ticket ticket;
+        private final long enqueuedNanos = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        // 所在队列，凭证提升时改为 interactive（受 lock 保护写入）
+        private volatile Lane lane;
+
+        private Waiter(MonoSink<Permit> sink, Lane lane, Ticket ticket) {
+            this.sink = sink;
+            this.lane = lane;
+            this.ticket = ticket;
+        }
+    }
+}
@@ -1,30 +1,47 @@
 package com.translator.service;
 
-import com.translator.dto.ChatCompletionRequest;
-import com.translator.dto.ChatCompletionResponse;
+import com.translator.dto.BatchTranslateResponse;
 import com.translator.dto.TranslateRequest;
 import com.translator.dto.TranslateResponse;
+import com.translator.engine.TranslationEngineRouter;
+import com.translator.engine.TranslationReference;
+import com.translator.engine.UpstreamUnavailableException;
+import com.translator.metrics.TranslationMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
-import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.Objects;
 
 /**
- * 翻译服务 - 使用专用翻译接口（OpenAI Chat Completions 格式）
+ * 翻译服务 - 缓存、合并与批量编排，实际翻译交给翻译引擎（见 TranslationEngineRouter）
  * 
  * 优化策略：
- * 1. Redis 缓存翻译结果（7天过期，命中时自动续期）
- * 2. 使用专用翻译 API（稳定可靠，无 429 限流，不限量）
+ * 1. 两级缓存翻译结果：进程内 L1 + Redis L2（7天过期，命中后异步批量续期）
+ * 2. 可插拔翻译引擎：LLM 专用翻译 API 为主，可选本地 LibreTranslate，按文本长度与延迟路由并失败切换
+ * 3. 批量翻译：一次 MGET 查缓存，未命中条目打包成编号 Prompt 合并请求
+ * 4. 相同 Key 的并发未命中合并为一次上游请求（single-flight）
+ * 5. 流式翻译：上游 stream=true，增量通过 SSE 推给客户端，完成后写入缓存
+ * 6. 分句缓存：多句消息按句/行切分，一次 MGET 查询各句，只翻译缺失的句子后按序拼接
+ * 7. 上游保护：每个引擎独立熔断与自适应并发限制，上游故障时快速失败或切换到其他引擎
+ * 8. 翻译记忆：措辞相近的消息附带已有的相似原文及译文作为参考请求引擎
+ * 9. 语言识别：纯表情 / 数字 / 链接，以及 sourceLang=auto 时已是目标语言的文本直接返回原文
+ * 10. 占位符预处理：规范化空白与 Unicode，URL、@用户、数字、表情、代码替换为占位符后再算缓存 Key 和 Prompt，译文返回后还原
+ * 11. 优先级调度：上游调用按 interactive / background 排队，后台气泡翻译不挤占发送框翻译（见 TranslationScheduler）
  * 
  * @author mac
  */
@@ -33,84 +50,160 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class TranslationService {
 
-    private final WebClient.Builder webClientBuilder;
-    private final StringRedisTemplate redisTemplate;
+    private final TranslationEngineRouter engineRouter;
+    private final TranslationCache translationCache;
+    private final TranslationSingleFlight singleFlight;
+    private final TranslationMemory translationMemory;
+    private final DeviceRateLimiter deviceRateLimiter;
+    private final TranslationScheduler scheduler;
+    private final TranslationMetrics metrics;
 
-    // 翻译 API 配置
-    @Value("${translation.api.url}")
-    private String apiUrl;
+    // 批量翻译配置：单个 Prompt 最多打包的条数 / 字符数，以及并发请求数
+    @Value("${translation.batch.max-items-per-prompt:20}")
+    private int batchMaxItemsPerPrompt;
 
-    @Value("${translation.api.key}")
-    private String apiKey;
+    @Value("${translation.batch.max-chars-per-prompt:3000}")
+    private int batchMaxCharsPerPrompt;
 
-    @Value("${translation.api.model:gpt-3.5-turbo}")
-    private String model;
+    @Value("${translation.batch.concurrency:4}")
+    private int batchConcurrency;
+
+    @Value("${translation.batch.max-items:100}")
+    private int batchMaxItems;
+
+    // 分句缓存配置
+    @Value("${translation.segment.enabled:true}")
+    private boolean segmentEnabled;
+
+    @Value("${translation.segment.max-segments:32}")
+    private int segmentMaxSegments;
+
+    // 语言识别配置
+    @Value("${translation.language-detect.enabled:true}")
+    private boolean languageDetectEnabled;
+
+    // 目标语言文字的权重占比达到该值时视为已是目标语言（中英混排按主要语言判断）
+    @Value("${translation.language-detect.same-language-ratio:0.6}")
+    private double sameLanguageRatio;
+
+    private static final String AUTO_LANG = "auto";
+
+    // 占位符预处理（关闭后按原文计算缓存 Key 与 Prompt）
+    @Value("${translation.masking.enabled:true}")
+    private boolean maskingEnabled;
 
     // 缓存配置
     private static final String CACHE_PREFIX = "translator:translation:";
-    private static final Duration CACHE_TTL = Duration.ofDays(7);
 
     /**
      * 翻译文本（主入口）
      * 
      * 流程：
-     * 1. 检查 Redis 缓存
-     * 2. 调用翻译 API
-     * 3. 缓存结果
+     * 0. 语言识别：无需翻译时直接返回原文；sourceLang=auto 时填入识别结果；规范化并替换占位符
+     * 1. 检查缓存（L1 本地 -> L2 Redis，缓存中为带占位符的译文）
+     * 2. 未命中时合并相同的在途请求；只有实际请求上游的 leader 检查设备上游配额（超出时抛出 RateLimitExceededException）
+     * 3. 多句消息按句切分，只翻译缓存中缺失的句子；单句消息直接调用翻译 API
+     * 4. 缓存结果
      */
     public TranslateResponse translate(TranslateRequest request) {
+        long start = System.nanoTime();
+        request.setPriority(TranslationScheduler.Priority.of(request.getPriority(),
+                TranslationScheduler.Priority.INTERACTIVE).value());
+        if (request.getText() != null) {
+            metrics.recordTextLength("translate", request.getText().length());
+        }
         try {
+            // 0. 语言识别
+            String skipped = detectLanguage(request);
+            if (skipped != null) {
+                log.debug("无需翻译，直接返回原文");
+                metrics.recordRequest("translate", "skipped", start);
+                return successResponse(request, skipped);
+            }
+
             log.debug("翻译请求: {} -> {} | {}",
                     request.getSourceLang(),
                     request.getTargetLang(),
                     request.getText().substring(0, Math.min(50, request.getText().length())));
 
+            TextMasker.Masked masked = mask(request.getText());
+            TranslateRequest maskedRequest = withText(request, masked.text());
+
             // 1. 检查缓存
-            String cacheKey = buildCacheKey(request);
-            String cachedResult = redisTemplate.opsForValue().get(cacheKey);
+            String cacheKey = buildCacheKey(maskedRequest);
+            String cachedResult = translationCache.get(cacheKey);
 
             if (cachedResult != null) {
-                // 刷新缓存过期时间（续期为7天）
-                redisTemplate.expire(cacheKey, CACHE_TTL);
-                log.debug("✅ 命中缓存，直接返回（已刷新过期时间）");
+                log.debug("✅ 命中缓存，直接返回");
+                metrics.recordRequest("translate", "hit", start);
 
                 return TranslateResponse.builder()
-                        .translatedText(cachedResult)
+                        .translatedText(masked.restore(cachedResult))
                         .sourceLang(request.getSourceLang())
                         .targetLang(request.getTargetLang())
                         .success(true)
                         .build();
             }
 
-            // 2. 调用翻译 API
-            String translatedText = callTranslationApi(request);
+            // 2. 缓存未命中：相同 Key 的并发未命中只请求一次
+            // 3. 分句查缓存 / 调用翻译 API
+            TranslationScheduler.Ticket ticket = scheduler.ticket(priorityOf(request));
+            String translatedText;
+            try {
+                translatedText = singleFlight.execute(cacheKey, ticket, () -> {
+                    // 只有请求上游的 leader 消耗设备的上游配额，合并到在途请求的 follower 不计
+                    deviceRateLimiter.checkUpstream(request.getDeviceId(), 1);
+                    String result = translateUncached(maskedRequest, ticket);
+                    if (result != null) {
+                        // 4. 缓存结果
+                        translationCache.put(cacheKey, result);
+                    }
+                    return result;
+                });
+            } catch (PlaceholderMismatchException e) {
+                // 合并在同一请求上的各条原文不同（只差数字、链接等），各自用原文重试
+                return translateUnmasked(request, start);
+            }
 
             if (translatedText != null) {
-                // 3. 缓存结果
-                redisTemplate.opsForValue().set(cacheKey, translatedText, CACHE_TTL);
                 log.debug("✅ 翻译成功并已缓存: {}", translatedText.substring(0, Math.min(50, translatedText.length())));
+                metrics.recordRequest("translate", "miss", start);
 
                 return TranslateResponse.builder()
-                        .translatedText(translatedText)
+                        .translatedText(masked.restore(translatedText))
                         .sourceLang(request.getSourceLang())
                         .targetLang(request.getTargetLang())
                         .success(true)
                         .build();
             } else {
+                metrics.recordRequest("translate", "error", start);
                 return TranslateResponse.builder()
                         .success(false)
                         .error("翻译失败：API 返回为空")
                         .build();
             }
 
+        } catch (RateLimitExceededException e) {
+            // 交给 Controller 返回 429
+            metrics.recordRequest("translate", "rate_limited", start);
+            throw e;
+        } catch (UpstreamUnavailableException e) {
+            log.warn("⚠️ 翻译上游不可用，快速失败: {}", e.getMessage());
+            metrics.recordRequest("translate", "error", start);
+            return TranslateResponse.builder()
+                    .success(false)
+                    .error("翻译服务繁忙，请稍后重试（" + e.getMessage() + "）")
+                    .build();
         } catch (WebClientResponseException e) {
             log.error("❌ 翻译 API 请求失败 ({}): {}", e.getStatusCode(), e.getMessage());
+            metrics.recordRequest("translate", "error", start);
             return TranslateResponse.builder()
                     .success(false)
                     .error("翻译服务异常: " + e.getStatusCode())
                     .build();
         } catch (Exception e) {
             log.error("❌ 翻译失败", e);
+            metrics.recordRequest("translate", "error", start);
             return TranslateResponse.builder()
                     .success(false)
                     .error("翻译失败: " + e.getMessage())
@@ -119,92 +212,576 @@ public class TranslationService {
     }
 
     /**
-     * 调用翻译 API（OpenAI Chat Completions 格式）
+     * 整句缓存未命中后的翻译
+     * 可切分为多句时按句查缓存、只翻译缺失的句子，任一句失败则回退整段翻译；整段翻译时附带翻译记忆中的参考译文
+     * ticket 为整段请求的调度凭证，各句的上游调用共用（整段被合并的 interactive 请求提升时一并提升）
      */
-    private String callTranslationApi(TranslateRequest request) {
-        // 构建翻译 Prompt
-        String prompt = buildTranslationPrompt(request);
+    private String translateUncached(TranslateRequest request, TranslationScheduler.Ticket ticket) {
+        if (segmentEnabled) {
+            TextSegmenter.Segmentation segmentation = TextSegmenter.split(request.getText());
+            int count = segmentation.segments().size();
+            if (count > 1 && count <= segmentMaxSegments) {
+                String joined = translateSegments(request, segmentation, ticket);
+                if (joined != null) {
+                    // 各句译文已在 translateChunk 中记忆，整段也记一条，供相似的多句消息整段翻译时参考
+                    translationMemory.remember(request.getText(), request.getSourceLang(), request.getTargetLang(), joined);
+                    return joined;
+                }
+                log.warn("分句翻译未能完成，回退整段翻译");
+            }
+        }
+        TranslationReference reference = translationMemory.lookup(
+                request.getText(), request.getSourceLang(), request.getTargetLang());
+        String result = callTranslationApi(request, reference, ticket);
+        translationMemory.remember(request.getText(), request.getSourceLang(), request.getTargetLang(), result);
+        return result;
+    }
 
-        // 构建请求体
-        ChatCompletionRequest chatRequest = ChatCompletionRequest.builder()
-                .model(model)
-                .messages(Collections.singletonList(
-                        ChatCompletionRequest.Message.builder()
-                                .role("user")
-                                .content(prompt)
-                                .build()))
-                .build();
+    /**
+     * 分句翻译：各句一次批量查缓存，缺失的句子合并为编号 Prompt 请求，按原顺序拼接
+     * 各句的占位符重新从 {0} 编号（整段的占位符作为句内片段），与单独发送该句时共用缓存
+     */
+    private String translateSegments(TranslateRequest request, TextSegmenter.Segmentation segmentation,
+                                     TranslationScheduler.Ticket ticket) {
+        List<String> segments = segmentation.segments();
+        List<TextMasker.Masked> segmentMasks = new ArrayList<>(segments.size());
+        List<TranslateRequest> segmentRequests = new ArrayList<>(segments.size());
+        List<String> segmentKeys = new ArrayList<>(segments.size());
+        for (String segment : segments) {
+            TextMasker.Masked segmentMask = mask(segment);
+            segmentMasks.add(segmentMask);
+            TranslateRequest segmentRequest = new TranslateRequest();
+            segmentRequest.setText(segmentMask.text());
+            segmentRequest.setSourceLang(request.getSourceLang());
+            segmentRequest.setTargetLang(request.getTargetLang());
+            segmentRequest.setPriority(request.getPriority());
+            segmentRequests.add(segmentRequest);
+            segmentKeys.add(buildCacheKey(segmentRequest));
+        }
+
+        List<String> cached = translationCache.getAll(segmentKeys);
+        Map<String, BatchMiss> missesByKey = new LinkedHashMap<>();
+        for (int i = 0; i < segments.size(); i++) {
+            if (cached.get(i) == null) {
+                int index = i;
+                missesByKey.computeIfAbsent(segmentKeys.get(i), k -> new BatchMiss(segmentRequests.get(index), k, ticket))
+                        .indexes.add(i);
+            }
+        }
+        log.debug("分句翻译: 共 {} 句，命中缓存 {} 句", segments.size(), segments.size() - missesByKey.size());
+
+        // 整段请求的 leader 已消耗上游配额，各句不再计数
+        translateMisses(new ArrayList<>(missesByKey.values()), null);
+
+        List<String> translations = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            String translated = cached.get(i) != null ? cached.get(i) : missesByKey.get(segmentKeys.get(i)).translatedText;
+            if (translated == null) {
+                return null;
+            }
+            translations.add(segmentMasks.get(i).restore(translated));
+        }
+        return TextSegmenter.join(segmentation, translations, request.getTargetLang());
+    }
+
+    /**
+     * 流式翻译（/api/translate/stream）
+     *
+     * 事件：
+     * - delta：译文增量
+     * - done：完整译文（已去除首尾空白，以此为准）
+     * - error：失败原因
+     *
+     * 无需翻译或命中缓存时直接发送一个 delta 和 done；未命中时透传上游增量，流结束后写入缓存
+     * 设备上游配额不足时在返回 Flux 前抛出 RateLimitExceededException，由 Controller 返回 429
+     */
+    public Flux<ServerSentEvent<String>> translateStream(TranslateRequest request) {
+        long start = System.nanoTime();
+        if (request.getText() == null || request.getText().isBlank()
+                || request.getSourceLang() == null || request.getTargetLang() == null) {
+            metrics.recordRequest("stream", "error", start);
+            return Flux.just(streamEvent("error", "翻译失败：参数缺失"));
+        }
+        metrics.recordTextLength("stream", request.getText().length());
+        request.setPriority(TranslationScheduler.Priority.of(request.getPriority(),
+                TranslationScheduler.Priority.INTERACTIVE).value());
+
+        String skipped = detectLanguage(request);
+        if (skipped != null) {
+            metrics.recordRequest("stream", "skipped", start);
+            return Flux.just(streamEvent("delta", skipped), streamEvent("done", skipped));
+        }
+
+        TextMasker.Masked masked = mask(request.getText());
+        TranslateRequest maskedRequest = withText(request, masked.text());
+        String cacheKey = buildCacheKey(maskedRequest);
+        String cachedResult;
+        try {
+            cachedResult = translationCache.get(cacheKey);
+        } catch (Exception e) {
+            log.warn("流式翻译查询缓存失败，直接请求上游: {}", e.getMessage());
+            cachedResult = null;
+        }
+
+        if (cachedResult != null) {
+            log.debug("✅ 命中缓存，直接返回");
+            metrics.recordRequest("stream", "hit", start);
+            String restored = masked.restore(cachedResult);
+            return Flux.just(streamEvent("delta", restored), streamEvent("done", restored));
+        }
 
-        // 调用 API
-        WebClient client = webClientBuilder
-                .baseUrl(apiUrl)
-                .defaultHeader("Authorization", "Bearer " + apiKey)
+        try {
+            deviceRateLimiter.checkUpstream(request.getDeviceId(), 1);
+        } catch (RateLimitExceededException e) {
+            metrics.recordRequest("stream", "rate_limited", start);
+            throw e;
+        }
+
+        StringBuilder assembled = new StringBuilder();
+        TextMasker.StreamRestorer restorer = new TextMasker.StreamRestorer(masked.spans());
+        TranslationReference reference = translationMemory.lookup(
+                maskedRequest.getText(), maskedRequest.getSourceLang(), maskedRequest.getTargetLang());
+        return scheduler.scheduleStream(priorityOf(request),
+                        engineRouter.translateStream(masked.text(), request.getSourceLang(), request.getTargetLang(), reference))
+                .doOnNext(assembled::append)
+                .map(restorer::push)
+                .concatWith(Mono.fromCallable(restorer::flush))
+                .filter(delta -> !delta.isEmpty())
+                .map(delta -> streamEvent("delta", delta))
+                .concatWith(Mono.fromCallable(() -> completeStream(maskedRequest, masked, cacheKey, assembled.toString().trim(), start))
+                        // 写 Redis 为阻塞调用，不在 Netty 事件循环线程上执行
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .onErrorResume(e -> {
+                    log.error("❌ 流式翻译失败: {}", e.getMessage());
+                    metrics.recordRequest("stream", "error", start);
+                    metrics.recordUpstream("stream", "error", start);
+                    return Mono.just(streamEvent("error", "翻译失败: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * 流结束：缓存完整译文（占位符不完整时不缓存）并生成 done 事件（已还原占位符）
+     */
+    private ServerSentEvent<String> completeStream(TranslateRequest maskedRequest, TextMasker.Masked masked,
+                                                   String cacheKey, String translatedText, long start) {
+        if (translatedText.isEmpty()) {
+            metrics.recordRequest("stream", "error", start);
+            metrics.recordUpstream("stream", "empty", start);
+            return streamEvent("error", "翻译失败：API 返回为空");
+        }
+        metrics.recordRequest("stream", "miss", start);
+        metrics.recordUpstream("stream", "success", start);
+        if (!TextMasker.placeholdersPreserved(maskedRequest.getText(), translatedText)) {
+            log.warn("⚠️ 流式译文中的占位符不完整，不写入缓存");
+            return streamEvent("done", masked.restore(translatedText));
+        }
+        translationMemory.remember(maskedRequest.getText(), maskedRequest.getSourceLang(),
+                maskedRequest.getTargetLang(), translatedText);
+        try {
+            translationCache.put(cacheKey, translatedText);
+            log.debug("✅ 流式翻译完成并已缓存: {}", translatedText.substring(0, Math.min(50, translatedText.length())));
+        } catch (Exception e) {
+            log.warn("流式翻译结果写入缓存失败: {}", e.getMessage());
+        }
+        return streamEvent("done", masked.restore(translatedText));
+    }
+
+    private ServerSentEvent<String> streamEvent(String event, String data) {
+        return ServerSentEvent.<String>builder()
+                .event(event)
+                .data(data)
                 .build();
+    }
+
+    /**
+     * 批量翻译（/api/translate/batch）
+     *
+     * 流程：
+     * 0. 按条目数检查设备请求配额（超出时抛出 RateLimitExceededException），逐条语言识别，无需翻译的条目直接返回原文；其余条目规范化并替换占位符
+     * 1. 批量查询两级缓存（L1 未命中的条目一次 MGET），命中的批量续期
+     * 2. 未命中条目按语言对分组、相同原文去重；其他请求正在翻译的条目直接等待其结果
+     * 3. 其余条目按语言对分组并发请求翻译引擎（LLM 引擎打包成编号 Prompt，无法可靠拆分时回退为逐条请求）
+     * 4. 新译文批量写回缓存（Redis 使用 pipeline）
+     */
+    public BatchTranslateResponse translateBatch(List<TranslateRequest> items) {
+        long start = System.nanoTime();
+        if (items == null || items.isEmpty() || items.size() > batchMaxItems) {
+            metrics.recordRequest("batch", "error", start);
+            return BatchTranslateResponse.builder()
+                    .success(false)
+                    .error("批量条数必须在 1 到 " + batchMaxItems + " 之间")
+                    .build();
+        }
+
+        // 0. 请求配额按条目数计（拦截器不解析请求体，不检查批量请求）
+        try {
+            deviceRateLimiter.checkRequest(deviceIdOf(items), items.size());
+        } catch (RateLimitExceededException e) {
+            metrics.recordRequest("batch", "rate_limited", start);
+            throw e;
+        }
 
-        ChatCompletionResponse response = client.post()
-                .bodyValue(chatRequest)
-                .retrieve()
-                .bodyToMono(ChatCompletionResponse.class)
-                .block();
+        metrics.recordBatchSize(items.size());
+        try {
+            int size = items.size();
+            TranslateResponse[] results = new TranslateResponse[size];
+            TextMasker.Masked[] masks = new TextMasker.Masked[size];
+            List<String> cacheKeys = new ArrayList<>(size);
+            List<Integer> validIndexes = new ArrayList<>(size);
+            // 同一优先级的条目共用一个调度凭证
+            Map<TranslationScheduler.Priority, TranslationScheduler.Ticket> tickets =
+                    new EnumMap<>(TranslationScheduler.Priority.class);
 
-        // 解析响应
-        if (response != null &&
-                response.getChoices() != null &&
-                !response.getChoices().isEmpty()) {
+            for (int i = 0; i < size; i++) {
+                TranslateRequest item = items.get(i);
+                if (item == null || item.getText() == null || item.getText().isBlank()
+                        || item.getSourceLang() == null || item.getTargetLang() == null) {
+                    results[i] = TranslateResponse.builder()
+                            .success(false)
+                            .error("翻译失败：参数缺失")
+                            .build();
+                    continue;
+                }
+                metrics.recordTextLength("batch", item.getText().length());
+                item.setPriority(TranslationScheduler.Priority.of(item.getPriority(),
+                        TranslationScheduler.Priority.BACKGROUND).value());
+                String skipped = detectLanguage(item);
+                if (skipped != null) {
+                    results[i] = successResponse(item, skipped);
+                    continue;
+                }
+                masks[i] = mask(item.getText());
+                validIndexes.add(i);
+                cacheKeys.add(buildCacheKey(withText(item, masks[i].text())));
+            }
 
-            String content = response.getChoices().get(0).getMessage().getContent();
-            return content != null ? content.trim() : null;
+            // 1. 先查 L1，其余一次 Redis 往返查询
+            List<String> cached = cacheKeys.isEmpty()
+                    ? Collections.emptyList()
+                    : translationCache.getAll(cacheKeys);
+
+            int hits = 0;
+            // 未命中条目：缓存 Key -> 待译条目，相同原文只翻译一次
+            Map<String, BatchMiss> missesByKey = new LinkedHashMap<>();
+
+            for (int j = 0; j < validIndexes.size(); j++) {
+                int index = validIndexes.get(j);
+                TranslateRequest item = items.get(index);
+                String cacheKey = cacheKeys.get(j);
+                String cachedResult = cached.get(j);
+
+                if (cachedResult != null) {
+                    hits++;
+                    results[index] = successResponse(item, masks[index].restore(cachedResult));
+                    continue;
+                }
+
+                // 只差数字、链接等占位符片段的条目预处理后相同，合并为一个待译条目，回填时各自还原
+                missesByKey.computeIfAbsent(cacheKey, k -> new BatchMiss(withText(item, masks[index].text()), cacheKey,
+                                tickets.computeIfAbsent(priorityOf(item), scheduler::ticket)))
+                        .indexes.add(index);
+            }
+
+            log.debug("批量翻译: 共 {} 条，命中缓存 {} 条", size, hits);
+
+            // 2. 翻译未命中条目（按本次负责请求上游的条数消耗设备上游配额，超出时这些条目标记失败）
+            List<BatchMiss> misses = new ArrayList<>(missesByKey.values());
+            int prompts = translateMisses(misses, deviceIdOf(items));
+            boolean rateLimited = misses.stream().anyMatch(miss -> miss.rateLimited);
+
+            // 3. 回填结果
+            for (BatchMiss miss : misses) {
+                String translatedText = miss.translatedText;
+                for (int index : miss.indexes) {
+                    results[index] = translatedText != null
+                            ? successResponse(items.get(index), masks[index].restore(translatedText))
+                            : TranslateResponse.builder()
+                                    .success(false)
+                                    .error(miss.rateLimited ? "翻译请求过于频繁，请稍后再试" : "翻译失败：API 返回为空")
+                                    .build();
+                }
+            }
+            log.debug("✅ 批量翻译完成: 未命中 {} 条，请求上游 {} 次 Prompt", misses.size(), prompts);
+            metrics.recordRequest("batch", rateLimited ? "rate_limited" : misses.isEmpty() ? "hit" : "miss", start);
+
+            return BatchTranslateResponse.builder()
+                    .results(List.of(results))
+                    .success(true)
+                    .build();
+
+        } catch (Exception e) {
+            log.error("❌ 批量翻译失败", e);
+            metrics.recordRequest("batch", "error", start);
+            return BatchTranslateResponse.builder()
+                    .success(false)
+                    .error("批量翻译失败: " + e.getMessage())
+                    .build();
         }
+    }
 
-        return null;
+    /**
+     * 翻译一组未命中条目（各条目缓存 Key 互不相同），结果写入各条目的 translatedText，失败为 null
+     *
+     * 1. 登记在途请求：已有相同请求在途的条目改为等待其结果，不再打包（interactive 条目提升在途请求的优先级）
+     * 2. 其余本次负责的条目按条数消耗 deviceId 的上游配额（deviceId 为 null 时不计），配额不足时这些条目标记 rateLimited，
+     *    否则按语言对打包成编号 Prompt 并发请求
+     * 3. 批量写缓存并完成在途记录，再等待其他请求负责的条目
+     *
+     * @return 请求上游的 Prompt 数
+     */
+    private int translateMisses(List<BatchMiss> misses, String deviceId) {
+        if (misses.isEmpty()) {
+            return 0;
+        }
+
+        // 1. 登记在途请求
+        for (BatchMiss miss : misses) {
+            miss.flight = singleFlight.begin(miss.cacheKey, miss.ticket);
+        }
+
+        // 2. 只按本次负责请求上游的条数计配额
+        List<BatchMiss> leaders = misses.stream().filter(miss -> miss.flight.isLeader()).toList();
+        if (deviceId != null && !leaders.isEmpty() && !deviceRateLimiter.tryAcquireUpstream(deviceId, leaders.size())) {
+            RateLimitExceededException limited = new RateLimitExceededException("翻译请求过于频繁，请稍后再试");
+            for (BatchMiss miss : leaders) {
+                miss.rateLimited = true;
+                miss.flight.fail(limited);
+            }
+        }
+
+        // 2. 打包本次负责的条目并发请求
+        List<List<BatchMiss>> chunks = buildBatchChunks(misses);
+        try {
+            if (!chunks.isEmpty()) {
+                Flux.fromIterable(chunks)
+                        .flatMap(this::translateChunk, batchConcurrency)
+                        .then()
+                        .block();
+            }
+        } catch (RuntimeException e) {
+            misses.stream().filter(miss -> miss.flight.isLeader() && !miss.rateLimited).forEach(miss -> miss.flight.fail(e));
+            throw e;
+        }
+
+        // 3. 批量写缓存并完成在途记录，再等待其他请求负责的条目
+        Map<String, String> toCache = new LinkedHashMap<>();
+        for (BatchMiss miss : misses) {
+            if (miss.flight.isLeader() && miss.translatedText != null) {
+                toCache.put(miss.cacheKey, miss.translatedText);
+            }
+        }
+        try {
+            translationCache.putAll(toCache);
+        } finally {
+            misses.stream().filter(miss -> miss.flight.isLeader() && !miss.rateLimited)
+                    .forEach(miss -> miss.flight.complete(miss.translatedText));
+        }
+        for (BatchMiss miss : misses) {
+            if (!miss.flight.isLeader()) {
+                try {
+                    miss.translatedText = singleFlight.await(miss.flight);
+                } catch (Exception e) {
+                    log.warn("等待相同翻译请求失败: {}", e.getMessage());
+                }
+            }
+        }
+        return chunks.size();
     }
 
     /**
-     * 构建翻译 Prompt
+     * 将本次负责的条目按语言对切分为若干 Prompt（受条数、字符数上限约束）
      */
-    private String buildTranslationPrompt(TranslateRequest request) {
-        String sourceLang = mapLanguageNameChinese(request.getSourceLang());
-        String targetLang = mapLanguageNameChinese(request.getTargetLang());
+    private List<List<BatchMiss>> buildBatchChunks(List<BatchMiss> misses) {
+        Map<String, List<BatchMiss>> byPair = new LinkedHashMap<>();
+        for (BatchMiss miss : misses) {
+            if (miss.flight.isLeader() && !miss.rateLimited && miss.translatedText == null) {
+                String pair = miss.request.getSourceLang() + ":" + miss.request.getTargetLang();
+                byPair.computeIfAbsent(pair, k -> new ArrayList<>()).add(miss);
+            }
+        }
 
-        return String.format(
-                "请将以下%s翻译成%s，只返回翻译结果，不要有任何其他内容：\n\n%s",
-                sourceLang,
-                targetLang,
-                request.getText());
+        List<List<BatchMiss>> chunks = new ArrayList<>();
+        for (List<BatchMiss> group : byPair.values()) {
+            List<BatchMiss> current = new ArrayList<>();
+            int currentChars = 0;
+            for (BatchMiss miss : group) {
+                int length = miss.request.getText().length();
+                if (!current.isEmpty() && (current.size() >= batchMaxItemsPerPrompt
+                        || currentChars + length > batchMaxCharsPerPrompt)) {
+                    chunks.add(current);
+                    current = new ArrayList<>();
+                    currentChars = 0;
+                }
+                current.add(miss);
+                currentChars += length;
+            }
+            if (!current.isEmpty()) {
+                chunks.add(current);
+            }
+        }
+        return chunks;
     }
 
     /**
-     * 语言代码转中文名称
+     * 翻译一个分组（同一语言对），由引擎决定打包方式（LLM 引擎使用编号 Prompt，拆分失败时回退逐条请求）
      */
-    private String mapLanguageNameChinese(String lang) {
-        switch (lang.toLowerCase()) {
-            case "zh":
-            case "zh-cn":
-                return "中文";
-            case "en":
-            case "en-us":
-                return "英文";
-            case "ja":
-                return "日文";
-            case "ko":
-                return "韩文";
-            case "fr":
-                return "法文";
-            case "de":
-                return "德文";
-            case "es":
-                return "西班牙文";
-            case "ru":
-                return "俄文";
-            default:
-                return lang;
+    private Mono<Void> translateChunk(List<BatchMiss> chunk) {
+        TranslateRequest first = chunk.get(0).request;
+        List<String> texts = chunk.stream().map(miss -> miss.request.getText()).toList();
+        // 分组中有 interactive 条目（发送框的多句消息）时整组按 interactive 调度，排队期间任一条目被提升时整组提升
+        TranslationScheduler.Ticket ticket = scheduler.combine(chunk.stream().map(miss -> miss.ticket).distinct().toList());
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return scheduler.schedule(ticket,
+                            engineRouter.translateBatch(texts, first.getSourceLang(), first.getTargetLang()))
+                    .doOnNext(translated -> {
+                        boolean complete = true;
+                        for (int i = 0; i < chunk.size(); i++) {
+                            BatchMiss miss = chunk.get(i);
+                            miss.translatedText = checkPlaceholders(miss.request.getText(), translated.get(i));
+                            complete &= miss.translatedText != null;
+                            translationMemory.remember(miss.request.getText(), miss.request.getSourceLang(),
+                                    miss.request.getTargetLang(), miss.translatedText);
+                        }
+                        metrics.recordUpstream("batch", complete ? "success" : "empty", start);
+                    })
+                    .onErrorResume(e -> {
+                        log.error("❌ 批量翻译请求失败: {}", e.getMessage());
+                        metrics.recordUpstream("batch", "error", start);
+                        return Mono.empty();
+                    })
+                    .then();
+        });
+    }
+
+    /**
+     * 调用翻译引擎（按路由选择引擎并失败切换），reference 为翻译记忆中的参考译文，可为 null
+     * 按调度凭证排队获得上游名额（见 TranslationScheduler）；
+     * 虚拟线程模式下 block() 只挂起当前虚拟线程，不占用 Tomcat 平台线程
+     */
+    private String callTranslationApi(TranslateRequest request, TranslationReference reference,
+                                      TranslationScheduler.Ticket ticket) {
+        return callTranslationApi(request, reference, ticket, true);
+    }
+
+    /**
+     * @param masked 为 true 时 request 为替换占位符后的文本，译文丢失或改写占位符时抛出 PlaceholderMismatchException
+     */
+    private String callTranslationApi(TranslateRequest request, TranslationReference reference,
+                                      TranslationScheduler.Ticket ticket, boolean masked) {
+        long start = System.nanoTime();
+        String result;
+        try {
+            result = scheduler.schedule(ticket,
+                    engineRouter.translate(request.getText(), request.getSourceLang(), request.getTargetLang(), reference))
+                    .block();
+        } catch (RuntimeException e) {
+            metrics.recordUpstream("single", "error", start);
+            throw e;
         }
+        if (masked && result != null && checkPlaceholders(request.getText(), result) == null) {
+            metrics.recordUpstream("single", "empty", start);
+            throw new PlaceholderMismatchException();
+        }
+        metrics.recordUpstream("single", result != null ? "success" : "empty", start);
+        return result;
+    }
+
+    /**
+     * 整段译文的占位符不完整：用未替换占位符的原文重试一次
+     * 译文不写缓存（缓存中保存的是带占位符的译文），也不写翻译记忆
+     */
+    private TranslateResponse translateUnmasked(TranslateRequest request, long start) {
+        log.info("译文占位符不完整，改用原文重试");
+        String result = callTranslationApi(request, null, scheduler.ticket(priorityOf(request)), false);
+        if (result == null) {
+            metrics.recordRequest("translate", "error", start);
+            return TranslateResponse.builder()
+                    .success(false)
+                    .error("翻译失败：API 返回为空")
+                    .build();
+        }
+        metrics.recordRequest("translate", "miss", start);
+        return successResponse(request, result);
+    }
+
+    /**
+     * 整段翻译的译文丢失或改写了占位符（无法还原），由 translate 用原文重试
+     */
+    private static final class PlaceholderMismatchException extends RuntimeException {
+
+        private PlaceholderMismatchException() {
+            super("译文中的占位符不完整", null, false, false);
+        }
+    }
+
+    /**
+     * 占位符不完整的译文无法可靠还原，按翻译失败处理（不缓存）
+     */
+    private String checkPlaceholders(String maskedText, String translatedText) {
+        if (translatedText != null && !TextMasker.placeholdersPreserved(maskedText, translatedText)) {
+            log.warn("⚠️ 译文中的占位符不完整，丢弃: {}", translatedText.substring(0, Math.min(50, translatedText.length())));
+            return null;
+        }
+        return translatedText;
+    }
+
+    private static TranslationScheduler.Priority priorityOf(TranslateRequest request) {
+        return TranslationScheduler.Priority.of(request.getPriority(), TranslationScheduler.Priority.INTERACTIVE);
+    }
+
+    /**
+     * 批量请求的设备 ID（Controller 为每个条目设置同一个 X-Device-Id）
+     */
+    private static String deviceIdOf(List<TranslateRequest> items) {
+        return items.stream().filter(Objects::nonNull).map(TranslateRequest::getDeviceId)
+                .filter(Objects::nonNull).findFirst().orElse(null);
+    }
+
+    private TextMasker.Masked mask(String text) {
+        return maskingEnabled ? TextMasker.mask(text) : new TextMasker.Masked(text, List.of());
+    }
+
+    private static TranslateRequest withText(TranslateRequest request, String text) {
+        TranslateRequest copy = new TranslateRequest();
+        copy.setText(text);
+        copy.setSourceLang(request.getSourceLang());
+        copy.setTargetLang(request.getTargetLang());
+        copy.setDeviceId(request.getDeviceId());
+        copy.setPriority(request.getPriority());
+        return copy;
+    }
+
+    /**
+     * 语言识别（在缓存与上游之前）：sourceLang=auto 时改为识别出的语言（无法识别时保持 auto，由引擎处理）
+     *
+     * @return 没有可翻译的文字（纯表情、数字、链接），或 sourceLang=auto 且已是目标语言（中文需简繁一致）时返回原文，否则返回 null
+     */
+    private String detectLanguage(TranslateRequest request) {
+        if (!languageDetectEnabled || request.getText() == null || request.getTargetLang() == null) {
+            return null;
+        }
+        LanguageDetector.Detection detection = LanguageDetector.detect(request.getText());
+        if (detection.letters() == 0) {
+            return request.getText();
+        }
+        // 客户端明确指定了源语言时以客户端为准，不按识别结果跳过翻译
+        if (detection.language() == null || !AUTO_LANG.equalsIgnoreCase(request.getSourceLang())) {
+            return null;
+        }
+        request.setSourceLang(detection.language());
+        if (detection.ratio() >= sameLanguageRatio
+                && LanguageDetector.matchesTarget(detection, request.getText(), request.getTargetLang())) {
+            return request.getText();
+        }
+        return null;
     }
 
     /**
      * 构建缓存 Key: MD5(原文 + 源语言 + 目标语言)
+     * 包级可见，供 JMH 基准测试（src/jmh）直接调用
      */
-    private String buildCacheKey(TranslateRequest request) {
+    static String buildCacheKey(TranslateRequest request) {
         try {
             String raw = request.getText() + ":" +
                     request.getSourceLang() + ":" +
@@ -228,6 +805,15 @@ public class TranslationService {
         }
     }
 
+    private TranslateResponse successResponse(TranslateRequest request, String translatedText) {
+        return TranslateResponse.builder()
+                .translatedText(translatedText)
+                .sourceLang(request.getSourceLang())
+                .targetLang(request.getTargetLang())
+                .success(true)
+                .build();
+    }
+
     /**
      * 获取支持的语言列表
      */
@@ -238,4 +824,24 @@ public class TranslationService {
                 },
                 "note", "专用翻译API - 已启用缓存优化");
     }
+
+    /**
+     * 批量翻译中的一个待译条目（同一缓存 Key 的重复条目合并）
+     */
+    private static class BatchMiss {
+        private final TranslateRequest request;
+        private final String cacheKey;
+        private final TranslationScheduler.Ticket ticket;
+        private final List<Integer> indexes = new ArrayList<>();
+        private TranslationSingleFlight.Flight flight;
+        private volatile String translatedText;
+        // 设备上游配额不足，未请求上游
+        private boolean rateLimited;
+
+        private BatchMiss(TranslateRequest request, String cacheKey, TranslationScheduler.Ticket ticket) {
+            this.request = request;
+            this.cacheKey = cacheKey;
+            this.ticket = ticket;
+        }
+    }
 }
@@ -0,0 +1,151 @@
+package com.translator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 相同翻译请求合并（single-flight）
+ *
+ * 同一缓存 Key 的并发未命中只由第一个请求（leader）调用上游，
+ * 其余请求（follower）等待同一个 Future 并拿到相同结果。
+ *
+ * 异常与超时：
+ * 1. leader 失败时 follower 收到同一异常；leader 因自己设备的上游配额不足失败时，
+ *    execute 中的 follower 重新登记（可能成为 leader，按自己设备的配额判断），不继承其他设备的限流
+ * 2. follower 最多等待 wait-timeout，超时后移除该 Key 的在途记录，
+ *    后续请求会重新成为 leader，卡住的 leader 不会永久阻塞其他请求
+ *
+ * 优先级：在途记录保存 leader 的调度凭证，interactive 请求加入 background leader 时提升该凭证，
+ * 避免发送框翻译继承后台请求的排队等待与更短的丢弃时限（见 TranslationScheduler.Ticket）
+ *
+ * @author mac
+ */
+@Slf4j
+@Component
+public class TranslationSingleFlight {
+
+    private final ConcurrentHashMap<String, Call> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 在途调用：leader 的结果与调度凭证
+     */
+    private record Call(CompletableFuture<String> future, TranslationScheduler.Ticket ticket) {
+    }
+
+    @Value("${translation.single-flight.wait-timeout:30s}")
+    private Duration waitTimeout;
+
+    /**
+     * 执行或加入同 Key 的在途请求，ticket 为本请求的调度凭证（leader 用它请求上游）
+     */
+    public String execute(String key, TranslationScheduler.Ticket ticket, Callable<String> loader) throws Exception {
+        while (true) {
+            Flight flight = begin(key, ticket);
+            if (!flight.isLeader()) {
+                log.debug("合并相同翻译请求，等待在途结果: {}", key);
+                try {
+                    return await(flight);
+                } catch (RateLimitExceededException e) {
+                    log.debug("在途请求的设备配额不足，重新发起: {}", key);
+                    continue;
+                }
+            }
+
+            try {
+                String result = loader.call();
+                flight.complete(result);
+                return result;
+            } catch (Exception e) {
+                flight.fail(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 登记一次在途请求：Key 无在途请求时成为 leader，否则加入已有请求（本请求为 interactive 时提升 leader 的凭证）
+     * leader 必须调用 complete 或 fail
+     */
+    public Flight begin(String key, TranslationScheduler.Ticket ticket) {
+        Call call = new Call(new CompletableFuture<>(), ticket);
+        Call existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            if (ticket.priority() == TranslationScheduler.Priority.INTERACTIVE) {
+                existing.ticket().promote();
+            }
+            return new Flight(key, existing, false);
+        }
+        return new Flight(key, call, true);
+    }
+
+    /**
+     * follower 等待 leader 的结果（带超时）
+     */
+    public String await(Flight flight) throws Exception {
+        try {
+            return flight.call.future().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // leader 迟迟不返回：移除在途记录，让后续请求重新发起
+            inFlight.remove(flight.key, flight.call);
+            throw new TimeoutException("等待相同翻译请求超时 (" + waitTimeout.toMillis() + "ms)");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 当前在途的 Key 数量
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * 一次在途请求
+     */
+    public class Flight {
+        private final String key;
+        private final Call call;
+        private final boolean leader;
+
+        private Flight(String key, Call call, boolean leader) {
+            this.key = key;
+            this.call = call;
+            this.leader = leader;
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * leader 的调度凭证（follower 与 leader 共用）
+         */
+        public TranslationScheduler.Ticket ticket() {
+            return call.ticket();
+        }
+
+        public void complete(String result) {
+            inFlight.remove(key, call);
+            call.future().complete(result);
+        }
+
+        public void fail(Throwable error) {
+            inFlight.remove(key, call);
+            call.future().completeExceptionally(error);
+        }
+    }
+}
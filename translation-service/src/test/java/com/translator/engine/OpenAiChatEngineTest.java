@@ -0,0 +1,150 @@
+package com.translator.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * OpenAiChatEngine：批量输出按 [[n]] 拆分，无法拆分时回退逐条请求
+ *
+ * @author mac
+ */
+class OpenAiChatEngineTest {
+
+    @Test
+    void splitsOutputByMarkerNumber() {
+        assertThat(OpenAiChatEngine.splitBatchOutput("[[1]]\nHello\n\n[[2]]\nGood night\n", 2))
+                .containsExactly("Hello", "Good night");
+    }
+
+    @Test
+    void reorderedMarkersAreMappedByNumber() {
+        assertThat(OpenAiChatEngine.splitBatchOutput("[[2]] second\n[[3]]\nthird\n[[1]]\nfirst", 3))
+                .containsExactly("first", "second", "third");
+    }
+
+    @Test
+    void missingOrInvalidMarkersCannotBeSplit() {
+        // 缺少编号
+        assertThat(OpenAiChatEngine.splitBatchOutput("[[1]]\nHello\n\n[[3]]\nBye", 3)).isNull();
+        // 重复编号
+        assertThat(OpenAiChatEngine.splitBatchOutput("[[1]]\nHello\n[[1]]\nBye", 2)).isNull();
+        // 超出范围
+        assertThat(OpenAiChatEngine.splitBatchOutput("[[1]]\nHello\n[[3]]\nBye", 2)).isNull();
+        // 空译文
+        assertThat(OpenAiChatEngine.splitBatchOutput("[[1]]\n\n[[2]]\nBye", 2)).isNull();
+        // 没有标记
+        assertThat(OpenAiChatEngine.splitBatchOutput("Hello\nBye", 2)).isNull();
+    }
+
+    @Test
+    void markerMustStartALine() {
+        assertThat(OpenAiChatEngine.splitBatchOutput("[[1]]\nsee [[2]] below\n[[2]]\nok", 2))
+                .containsExactly("see [[2]] below", "ok");
+    }
+
+    @Test
+    void packedBatchUsesSingleRequest() {
+        AtomicInteger calls = new AtomicInteger();
+        OpenAiChatEngine engine = engine(calls, "[[1]]\n你好\n\n[[2]]\n晚安");
+
+        assertThat(engine.translateBatch(List.of("Hello", "Good night"), "en", "zh").block())
+                .containsExactly("你好", "晚安");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void unsplittableOutputFallsBackToPerItemRequests() {
+        AtomicInteger calls = new AtomicInteger();
+        // 批量回复漏掉 [[2]]，随后三条逐条请求
+        OpenAiChatEngine engine = engine(calls, "[[1]]\n你好\n[[3]]\n再见", "单条", "单条", "单条");
+
+        assertThat(engine.translateBatch(List.of("Hello", "Good night", "Bye"), "en", "zh").block())
+                .containsExactly("单条", "单条", "单条");
+        assertThat(calls).hasValue(4);
+    }
+
+    @Test
+    void failedPerItemRequestLeavesOnlyThatItemEmpty() {
+        AtomicInteger calls = new AtomicInteger();
+        // 批量回复无编号；逐条请求中第二条返回空内容
+        OpenAiChatEngine engine = engine(calls, "你好 晚安", "你好", null);
+
+        assertThat(engine.translateBatch(List.of("Hello", "Good night"), "en", "zh").block())
+                .containsExactly("你好", null);
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void textContainingMarkerIsTranslatedSeparately() {
+        AtomicInteger calls = new AtomicInteger();
+        OpenAiChatEngine engine = engine(calls, "单条", "单条");
+
+        assertThat(engine.translateBatch(List.of("Hello", "[[1]]\nquoted"), "en", "zh").block())
+                .containsExactly("单条", "单条");
+        assertThat(calls).hasValue(2);
+    }
+
+    /**
+     * 按请求顺序依次返回 replies 中的内容（null 表示回复不含 content）
+     */
+    private static OpenAiChatEngine engine(AtomicInteger calls, String... replies) {
+        Deque<String> queue = new ArrayDeque<>();
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String reply : replies) {
+            queue.add(body(objectMapper, reply));
+        }
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    calls.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(queue.remove())
+                            .build());
+                })
+                .build();
+
+        UpstreamGuard guard = mock(UpstreamGuard.class);
+        when(guard.protect(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        UpstreamGuardRegistry guards = mock(UpstreamGuardRegistry.class);
+        when(guards.get(anyString())).thenReturn(guard);
+
+        OpenAiChatEngine engine = new OpenAiChatEngine(webClient, objectMapper, guards,
+                new TranslationMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(engine, "model", "test-model");
+        // 逐条回退串行执行，保证回复顺序与条目顺序一致
+        ReflectionTestUtils.setField(engine, "batchConcurrency", 1);
+        return engine;
+    }
+
+    private static String body(ObjectMapper objectMapper, String content) {
+        try {
+            return objectMapper.writeValueAsString(Map.of("choices", List.of(
+                    Map.of("message", content == null
+                            ? Map.of("role", "assistant")
+                            : Map.of("role", "assistant", "content", content)))));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.translator.engine;
+
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * TranslationEngineRouter：失败切换、对冲请求与批量补译
+ *
+ * @author mac
+ */
+class TranslationEngineRouterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void failsOverToNextEngine() {
+        FakeEngine primary = new FakeEngine("a", text -> Mono.error(new IllegalStateException("boom")));
+        FakeEngine backup = new FakeEngine("b", text -> Mono.just("b:" + text));
+
+        TranslationEngineRouter router = router(false, Duration.ofSeconds(2), primary, backup);
+
+        assertThat(router.translate("hi", "en", "zh").block()).isEqualTo("b:hi");
+        assertThat(primary.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void emptyFromAllEnginesIsEmpty() {
+        TranslationEngineRouter router = router(false, Duration.ofSeconds(2),
+                new FakeEngine("a", text -> Mono.empty()), new FakeEngine("b", text -> Mono.empty()));
+
+        assertThat(router.translate("hi", "en", "zh").blockOptional()).isEmpty();
+    }
+
+    @Test
+    void hedgeTakesFasterEngine() {
+        FakeEngine primary = new FakeEngine("a", text -> Mono.delay(Duration.ofSeconds(2)).thenReturn("a:" + text));
+        FakeEngine backup = new FakeEngine("b", text -> Mono.just("b:" + text));
+
+        TranslationEngineRouter router = router(true, Duration.ofMillis(50), primary, backup);
+
+        long start = System.nanoTime();
+        assertThat(router.translate("hi", "en", "zh").block()).isEqualTo("b:hi");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void hedgeDoesNotCallBackupWhenPrimaryIsFast() {
+        FakeEngine primary = new FakeEngine("a", text -> Mono.just("a:" + text));
+        FakeEngine backup = new FakeEngine("b", text -> Mono.just("b:" + text));
+
+        TranslationEngineRouter router = router(true, Duration.ofSeconds(1), primary, backup);
+
+        assertThat(router.translate("hi", "en", "zh").block()).isEqualTo("a:hi");
+        assertThat(backup.calls.get()).isZero();
+    }
+
+    @Test
+    void hedgeFailsOverImmediatelyWhenPrimaryErrors() {
+        FakeEngine primary = new FakeEngine("a", text -> Mono.delay(Duration.ofMillis(20))
+                .then(Mono.error(new IllegalStateException("boom"))));
+        FakeEngine backup = new FakeEngine("b", text -> Mono.just("b:" + text));
+
+        // 对冲延迟远大于首选引擎失败的时间：不应等到对冲延迟才请求备选引擎
+        TranslationEngineRouter router = router(true, Duration.ofSeconds(5), primary, backup);
+
+        long start = System.nanoTime();
+        assertThat(router.translate("hi", "en", "zh").block()).isEqualTo("b:hi");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void hedgeReportsBothFailures() {
+        TranslationEngineRouter router = router(true, Duration.ofMillis(10),
+                new FakeEngine("a", text -> Mono.error(new IllegalStateException("first"))),
+                new FakeEngine("b", text -> Mono.error(new IllegalStateException("second"))));
+
+        assertThatThrownBy(() -> router.translate("hi", "en", "zh").block())
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("first")
+                .satisfies(e -> assertThat(e.getSuppressed()).anyMatch(s -> "second".equals(s.getMessage())));
+    }
+
+    @Test
+    void batchFailoverOnlyRetriesMissingItems() {
+        FakeEngine primary = new FakeEngine("a", null) {
+            @Override
+            public Mono<List<String>> translateBatch(List<String> texts, String sourceLang, String targetLang) {
+                return Mono.just(Arrays.asList("a:" + texts.get(0), null, "a:" + texts.get(2)));
+            }
+        };
+        FakeEngine backup = new FakeEngine("b", text -> Mono.just("b:" + text));
+
+        TranslationEngineRouter router = router(false, Duration.ofSeconds(2), primary, backup);
+
+        assertThat(router.translateBatch(List.of("x", "y", "z"), "en", "zh").block())
+                .containsExactly("a:x", "b:y", "a:z");
+        assertThat(backup.texts).containsExactly("y");
+    }
+
+    @Test
+    void batchRecordsLatencyAndResult() {
+        FakeEngine primary = new FakeEngine("a", text -> Mono.just("a:" + text));
+        FakeEngine rejected = new FakeEngine("b", text -> Mono.error(new UpstreamUnavailableException("open")));
+
+        TranslationEngineRouter router = router(false, Duration.ofSeconds(2), primary, rejected);
+        router.translateBatch(List.of("x"), "en", "zh").block();
+
+        assertThat(latencyMillis(router, primary)).isGreaterThan(0).isLessThan(1000);
+
+        TranslationEngineRouter onlyRejected = router(false, Duration.ofSeconds(2),
+                new FakeEngine("c", null) {
+                    @Override
+                    public Mono<List<String>> translateBatch(List<String> texts, String sourceLang, String targetLang) {
+                        return Mono.error(new UpstreamUnavailableException("open"));
+                    }
+                });
+        onlyRejected.translateBatch(List.of("x"), "en", "zh").block();
+        assertThat(meterRegistry.find("translation.engine.latency").tags("engine", "c", "result", "rejected")
+                .timer()).isNotNull();
+    }
+
+    private TranslationEngineRouter router(boolean hedge, Duration hedgeDelay, TranslationEngine... engines) {
+        UpstreamGuardRegistry guards = mock(UpstreamGuardRegistry.class);
+        UpstreamGuard guard = mock(UpstreamGuard.class);
+        when(guard.isCallPermitted()).thenReturn(true);
+        when(guards.get(anyString())).thenReturn(guard);
+
+        TranslationEngineRouter router = new TranslationEngineRouter(List.of(engines), guards,
+                new TranslationMetrics(meterRegistry));
+        ReflectionTestUtils.setField(router, "primary", engines[0].name());
+        ReflectionTestUtils.setField(router, "shortTextEngine", "");
+        ReflectionTestUtils.setField(router, "shortTextMaxChars", 40);
+        ReflectionTestUtils.setField(router, "slowThreshold", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(router, "latencyWindow", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(router, "hedgeEnabled", hedge);
+        ReflectionTestUtils.setField(router, "hedgeDelay", hedgeDelay);
+        router.init();
+        return router;
+    }
+
+    private static double latencyMillis(TranslationEngineRouter router, TranslationEngine engine) {
+        Object stats = ReflectionTestUtils.invokeMethod(router, "stats", engine);
+        Double latency = ReflectionTestUtils.invokeMethod(stats, "latencyMillis", System.nanoTime());
+        return latency;
+    }
+
+    /**
+     * 按函数返回结果的引擎，记录调用次数与收到的原文
+     */
+    private static class FakeEngine implements TranslationEngine {
+        private final String name;
+        private final Function<String, Mono<String>> handler;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final List<String> texts = new ArrayList<>();
+
+        private FakeEngine(String name, Function<String, Mono<String>> handler) {
+            this.name = name;
+            this.handler = handler;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Mono<String> translate(String text, String sourceLang, String targetLang) {
+            return Mono.defer(() -> {
+                calls.incrementAndGet();
+                synchronized (texts) {
+                    texts.add(text);
+                }
+                return handler.apply(text);
+            });
+        }
+    }
+}
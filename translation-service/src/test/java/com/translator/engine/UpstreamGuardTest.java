@@ -0,0 +1,212 @@
+package com.translator.engine;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * UpstreamGuard：熔断（关闭 / 熔断 / 半开）、AIMD 并发上限与排队
+ *
+ * 默认参数：并发上限 4（1~8），最近 4 次中失败 50% 熔断 200ms，半开放行 2 个探测请求，队列 2 个、等待 200ms。
+ *
+ * @author mac
+ */
+class UpstreamGuardTest {
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        UpstreamGuard guard = guard(4, Duration.ofSeconds(1));
+        fail(guard);
+        fail(guard);
+        succeed(guard);
+        assertThat(guard.state()).isEqualTo(UpstreamGuard.State.CLOSED);
+
+        succeed(guard);
+
+        assertThat(guard.state()).isEqualTo(UpstreamGuard.State.OPEN);
+        assertThat(guard.isCallPermitted()).isFalse();
+        assertThatThrownBy(() -> guard.protect(Mono.just("ok")).block())
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("熔断中");
+        assertThat(guard.rejectedCircuitOpen()).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrorsDoNotCountAsUpstreamFailures() {
+        UpstreamGuard guard = guard(4, Duration.ofSeconds(1));
+        for (int i = 0; i < 4; i++) {
+            Mono<String> badRequest = Mono.error(WebClientResponseException.create(400, "Bad Request", null, null, null));
+            assertThatThrownBy(() -> guard.protect(badRequest).block()).isInstanceOf(WebClientResponseException.class);
+        }
+
+        assertThat(guard.state()).isEqualTo(UpstreamGuard.State.CLOSED);
+        assertThat(guard.limit()).isEqualTo(4.0);
+    }
+
+    @Test
+    void halfOpenProbesCloseTheBreaker() throws Exception {
+        UpstreamGuard guard = guard(4, Duration.ofSeconds(1));
+        open(guard);
+        Thread.sleep(250);
+        assertThat(guard.isCallPermitted()).isTrue();
+
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        CompletableFuture<String> probe1 = guard.protect(first.asMono()).toFuture();
+        CompletableFuture<String> probe2 = guard.protect(second.asMono()).toFuture();
+        assertThat(guard.state()).isEqualTo(UpstreamGuard.State.HALF_OPEN);
+        // 探测名额用完，其余请求仍被拒绝
+        assertThatThrownBy(() -> guard.protect(Mono.just("ok")).block())
+                .isInstanceOf(UpstreamUnavailableException.class);
+
+        first.tryEmitValue("ok");
+        assertThat(probe1).isCompletedWithValue("ok");
+        assertThat(guard.state()).isEqualTo(UpstreamGuard.State.HALF_OPEN);
+
+        second.tryEmitValue("ok");
+        assertThat(probe2).isCompletedWithValue("ok");
+        assertThat(guard.state()).isEqualTo(UpstreamGuard.State.CLOSED);
+        assertThat(guard.protect(Mono.just("ok")).block()).isEqualTo("ok");
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() throws Exception {
+        UpstreamGuard guard = guard(4, Duration.ofSeconds(1));
+        open(guard);
+        Thread.sleep(250);
+
+        fail(guard);
+
+        assertThat(guard.state()).isEqualTo(UpstreamGuard.State.OPEN);
+        assertThat(guard.isCallPermitted()).isFalse();
+    }
+
+    @Test
+    void failureShrinksLimitMultiplicatively() {
+        UpstreamGuard guard = guard(4, Duration.ofSeconds(1));
+
+        fail(guard);
+        assertThat(guard.limit()).isEqualTo(2.0);
+        fail(guard);
+        fail(guard);
+        assertThat(guard.limit()).isEqualTo(1.0);
+    }
+
+    @Test
+    void slowSuccessShrinksLimit() {
+        UpstreamGuard guard = guard(4, Duration.ofMillis(10));
+
+        assertThat(guard.protect(Mono.delay(Duration.ofMillis(50)).thenReturn("ok")).block()).isEqualTo("ok");
+
+        assertThat(guard.limit()).isEqualTo(2.0);
+    }
+
+    @Test
+    void fastSuccessGrowsLimitAdditivelyOnlyUnderLoad() {
+        UpstreamGuard guard = guard(4, Duration.ofSeconds(1));
+        // 空闲时（在途远低于上限）不增长
+        succeed(guard);
+        assertThat(guard.limit()).isEqualTo(4.0);
+
+        fail(guard);
+        assertThat(guard.limit()).isEqualTo(2.0);
+        succeed(guard);
+        assertThat(guard.limit()).isEqualTo(2.5);
+    }
+
+    @Test
+    void queuedCallRunsWhenSlotIsReleased() {
+        UpstreamGuard guard = guard(1, Duration.ofSeconds(1));
+        Sinks.One<String> running = Sinks.one();
+        CompletableFuture<String> first = guard.protect(running.asMono()).toFuture();
+        CompletableFuture<String> second = guard.protect(Mono.just("second")).toFuture();
+        assertThat(guard.inFlight()).isEqualTo(1);
+        assertThat(guard.queued()).isEqualTo(1);
+        assertThat(second).isNotDone();
+
+        running.tryEmitValue("first");
+
+        assertThat(first).isCompletedWithValue("first");
+        assertThat(second).isCompletedWithValue("second");
+        assertThat(guard.inFlight()).isZero();
+        assertThat(guard.queued()).isZero();
+    }
+
+    @Test
+    void fullQueueRejectsImmediately() {
+        UpstreamGuard guard = guard(1, Duration.ofSeconds(1));
+        guard.protect(Sinks.<String>one().asMono()).toFuture();
+        guard.protect(Sinks.<String>one().asMono()).toFuture();
+        guard.protect(Sinks.<String>one().asMono()).toFuture();
+
+        assertThatThrownBy(() -> guard.protect(Mono.just("ok")).block())
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("请求过多");
+        assertThat(guard.rejectedQueueFull()).isEqualTo(1);
+    }
+
+    @Test
+    void queuedCallTimesOut() {
+        UpstreamGuard guard = guard(1, Duration.ofSeconds(1));
+        guard.protect(Sinks.<String>one().asMono()).toFuture();
+        CompletableFuture<String> queued = guard.protect(Mono.just("ok")).toFuture();
+
+        assertThatThrownBy(() -> queued.get(2, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("排队超时");
+        assertThat(guard.rejectedQueueTimeout()).isEqualTo(1);
+        assertThat(guard.queued()).isZero();
+        assertThat(guard.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void callTimeoutCountsAsFailure() {
+        UpstreamGuard guard = new UpstreamGuard("test", settings(4, Duration.ofSeconds(1), Duration.ofMillis(100)));
+
+        assertThatThrownBy(() -> guard.protect(Mono.never()).block())
+                .hasCauseInstanceOf(TimeoutException.class);
+
+        assertThat(guard.limit()).isEqualTo(2.0);
+        assertThat(guard.inFlight()).isZero();
+    }
+
+    private static UpstreamGuard guard(int initialLimit, Duration latencyThreshold) {
+        return new UpstreamGuard("test", settings(initialLimit, latencyThreshold, Duration.ofSeconds(2)));
+    }
+
+    private static UpstreamGuard.Settings settings(int initialLimit, Duration latencyThreshold, Duration callTimeout) {
+        return new UpstreamGuard.Settings(callTimeout,
+                initialLimit, 1, 8, latencyThreshold, 0.5,
+                2, Duration.ofMillis(200),
+                4, 4, 50,
+                Duration.ofMillis(200), 2);
+    }
+
+    private static void open(UpstreamGuard guard) {
+        for (int i = 0; i < 4; i++) {
+            fail(guard);
+        }
+        assertThat(guard.state()).isEqualTo(UpstreamGuard.State.OPEN);
+    }
+
+    private static void succeed(UpstreamGuard guard) {
+        assertThat(guard.protect(Mono.just("ok")).block()).isEqualTo("ok");
+    }
+
+    private static void fail(UpstreamGuard guard) {
+        assertThatThrownBy(() -> guard.protect(Mono.error(new IOException("upstream down"))).block())
+                .hasCauseInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,153 @@
+package com.translator.service;
+
+import com.translator.entity.ActivationCode;
+import com.translator.mapper.ActivationCodeMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.translator.service.ActivationServiceTest.code;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ActivationCodeBloomFilter：全量加载、按生成时间回看的增量同步与扩容重建
+ *
+ * @author mac
+ */
+class ActivationCodeBloomFilterTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private ActivationCodeMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(ActivationCodeMapper.class);
+    }
+
+    @Test
+    void loadedFilterRejectsUnknownCodes() {
+        when(mapper.findCodesAfterId(eq(0), anyInt())).thenReturn(List.of(code(1, "A", T0), code(2, "B", T0)));
+
+        ActivationCodeBloomFilter filter = filter(1000);
+
+        assertThat(filter.mightContain("A")).isTrue();
+        assertThat(filter.mightContain("B")).isTrue();
+        assertThat(filter.mightContain("UNKNOWN")).isFalse();
+    }
+
+    @Test
+    void allowsEverythingWhenDisabledOrNotLoaded() {
+        ActivationCodeBloomFilter disabled = new ActivationCodeBloomFilter(mapper);
+        ReflectionTestUtils.setField(disabled, "enabled", false);
+        disabled.init();
+        assertThat(disabled.mightContain("UNKNOWN")).isTrue();
+        verify(mapper, never()).findCodesAfterId(anyInt(), anyInt());
+
+        when(mapper.findCodesAfterId(anyInt(), anyInt())).thenThrow(new IllegalStateException("db down"));
+        assertThat(filter(1000).mightContain("UNKNOWN")).isTrue();
+    }
+
+    @Test
+    void fullLoadFollowsIdPages() {
+        List<ActivationCode> firstPage = new ArrayList<>();
+        for (int id = 1; id <= 5000; id++) {
+            firstPage.add(code(id, "C" + id, T0));
+        }
+        when(mapper.findCodesAfterId(eq(0), anyInt())).thenReturn(firstPage);
+        when(mapper.findCodesAfterId(eq(5000), anyInt())).thenReturn(List.of(code(5001, "LAST", T0)));
+
+        ActivationCodeBloomFilter filter = filter(100_000);
+
+        assertThat(filter.mightContain("C1")).isTrue();
+        assertThat(filter.mightContain("LAST")).isTrue();
+        assertThat(ReflectionTestUtils.getField(filter, "count")).isEqualTo(5001L);
+    }
+
+    @Test
+    void incrementalSyncLooksBackOverlapAndPicksUpLateCommits() {
+        when(mapper.findCodesAfterId(eq(0), anyInt())).thenReturn(List.of(code(1, "A", T0), code(5, "E", T0)));
+        ActivationCodeBloomFilter filter = filter(1000);
+
+        // ID 3 的事务晚于 ID 5 提交：按 ID 水位会被永久漏掉，按生成时间回看仍能扫到
+        when(mapper.findCodesCreatedSince(eq(T0.minusSeconds(60)), eq(0), anyInt()))
+                .thenReturn(List.of(code(3, "LATE", T0.minusSeconds(1)), code(5, "E", T0), code(6, "F", T0.plusSeconds(5))));
+        filter.scheduledSync();
+
+        assertThat(filter.mightContain("LATE")).isTrue();
+        assertThat(filter.mightContain("F")).isTrue();
+        // 晚提交的较小 ID 与重复扫描的行不计入新增
+        assertThat(ReflectionTestUtils.getField(filter, "count")).isEqualTo(3L);
+
+        // 水位推进到已见到的最大生成时间
+        filter.scheduledSync();
+        verify(mapper).findCodesCreatedSince(eq(T0.plusSeconds(5).minusSeconds(60)), eq(0), anyInt());
+    }
+
+    @Test
+    void codesWithoutCreatedAtFallBackToFullLoad() {
+        when(mapper.findCodesAfterId(eq(0), anyInt())).thenReturn(List.of(code(1, "A", null)));
+        ActivationCodeBloomFilter filter = filter(1000);
+
+        filter.scheduledSync();
+
+        verify(mapper, times(2)).findCodesAfterId(eq(0), anyInt());
+        verify(mapper, never()).findCodesCreatedSince(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void onDemandSyncIsThrottled() {
+        when(mapper.findCodesAfterId(eq(0), anyInt())).thenReturn(List.of(code(1, "A", T0)));
+        ActivationCodeBloomFilter filter = filter(1000);
+        when(mapper.findCodesCreatedSince(any(), eq(0), anyInt())).thenReturn(List.of(code(2, "NEW", T0.plusSeconds(1))));
+
+        assertThat(filter.mightContainAfterSync("NEW")).isTrue();
+        assertThat(filter.mightContainAfterSync("UNKNOWN")).isFalse();
+
+        // 间隔内第二次未命中不再查询数据库
+        verify(mapper, times(1)).findCodesCreatedSince(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void rebuildsWithDoubleCapacityWhenFull() {
+        List<ActivationCode> codes = List.of(code(1, "A", T0), code(2, "B", T0), code(3, "C", T0));
+        when(mapper.findCodesAfterId(eq(0), anyInt())).thenReturn(codes);
+
+        ActivationCodeBloomFilter filter = filter(2);
+
+        // 加载一次 + 重建一次
+        verify(mapper, times(2)).findCodesAfterId(eq(0), anyInt());
+        assertThat(ReflectionTestUtils.getField(filter, "expectedInsertions")).isEqualTo(6L);
+        assertThat(filter.mightContain("A")).isTrue();
+        assertThat(filter.mightContain("B")).isTrue();
+        assertThat(filter.mightContain("C")).isTrue();
+
+        // 重建后仍按生成时间增量同步
+        when(mapper.findCodesCreatedSince(any(), eq(0), anyInt())).thenReturn(List.of(code(4, "D", T0.plusSeconds(1))));
+        filter.scheduledSync();
+        assertThat(filter.mightContain("D")).isTrue();
+    }
+
+    private ActivationCodeBloomFilter filter(long expectedInsertions) {
+        ActivationCodeBloomFilter filter = new ActivationCodeBloomFilter(mapper);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "expectedInsertions", expectedInsertions);
+        ReflectionTestUtils.setField(filter, "fpp", 0.001);
+        ReflectionTestUtils.setField(filter, "onDemandSyncIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(filter, "overlapMs", 60_000L);
+        filter.init();
+        return filter;
+    }
+}
@@ -0,0 +1,131 @@
+package com.translator.service;
+
+import com.translator.entity.ActivationCode;
+import com.translator.mapper.ActivationCodeMapper;
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ActivationService.validateCode：本地授权缓存，布隆过滤器未命中时的即时同步与 Redis 兜底
+ *
+ * @author mac
+ */
+class ActivationServiceTest {
+
+    private static final LocalDateTime LOADED_AT = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private ActivationCodeMapper mapper;
+    private ValueOperations<String, String> valueOperations;
+    private ActivationCodeBloomFilter bloomFilter;
+    private AuthorizationCache authorizationCache;
+    private ActivationService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mapper = mock(ActivationCodeMapper.class);
+        when(mapper.findCodesAfterId(eq(0), anyInt())).thenReturn(List.of(code(1, "OLD", LOADED_AT)));
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        bloomFilter = new ActivationCodeBloomFilter(mapper);
+        ReflectionTestUtils.setField(bloomFilter, "enabled", true);
+        ReflectionTestUtils.setField(bloomFilter, "expectedInsertions", 1000L);
+        ReflectionTestUtils.setField(bloomFilter, "fpp", 0.001);
+        ReflectionTestUtils.setField(bloomFilter, "onDemandSyncIntervalMs", 1000L);
+        ReflectionTestUtils.setField(bloomFilter, "overlapMs", 60000L);
+        bloomFilter.init();
+
+        authorizationCache = AuthorizationCacheTest.cache(true, Duration.ofSeconds(60), Duration.ofSeconds(30));
+        service = new ActivationService(mapper, redisTemplate, authorizationCache, bloomFilter,
+                new TranslationMetrics(new SimpleMeterRegistry()), mock(AuthInvalidationBus.class));
+    }
+
+    @Test
+    void repeatedValidationIsServedFromLocalCache() {
+        activatedInRedis("OLD", "device-1");
+
+        assertThat(service.validateCode("OLD", "device-1")).isTrue();
+        assertThat(service.validateCode("OLD", "device-1")).isTrue();
+        assertThat(service.validateCode("OLD", "device-2")).isFalse();
+
+        verify(valueOperations, times(1)).get("translator:code:OLD");
+    }
+
+    @Test
+    void expiredLocalEntryFallsBackToRedis() {
+        authorizationCache.put("OLD", "device-1", System.currentTimeMillis() - 1);
+        activatedInRedis("OLD", "device-1");
+
+        assertThat(service.validateCode("OLD", "device-1")).isTrue();
+        verify(valueOperations).get("translator:code:OLD");
+    }
+
+    @Test
+    void knownInvalidCodeIsRejectedInMemory() {
+        authorizationCache.markInvalid("OLD");
+
+        assertThat(service.validateCode("OLD", "device-1")).isFalse();
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    void validatesCodeCreatedAfterLastSync() {
+        // 其他实例在本实例上次同步之后生成并激活的激活码
+        when(mapper.findCodesCreatedSince(any(), eq(0), anyInt()))
+                .thenReturn(List.of(code(2, "NEW", LOADED_AT.plusSeconds(5))));
+        activatedInRedis("NEW", "device-1");
+
+        assertThat(service.validateCode("NEW", "device-1")).isTrue();
+        assertThat(bloomFilter.mightContain("NEW")).isTrue();
+    }
+
+    @Test
+    void trustsRedisWhenOnDemandSyncIsThrottled() {
+        ReflectionTestUtils.setField(bloomFilter, "onDemandSyncIntervalMs", Long.MAX_VALUE);
+        activatedInRedis("NEW", "device-1");
+
+        assertThat(service.validateCode("NEW", "device-1")).isTrue();
+        verify(mapper, never()).findCodesCreatedSince(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void rejectsUnknownCodeWithoutDatabaseLookup() {
+        assertThat(service.validateCode("UNKNOWN", "device-1")).isFalse();
+        verify(mapper, never()).findByCode(anyString());
+    }
+
+    private void activatedInRedis(String code, String deviceId) {
+        long expireTimestamp = System.currentTimeMillis() + 3_600_000;
+        when(valueOperations.get("translator:code:" + code)).thenReturn(expireTimestamp + "|" + deviceId);
+    }
+
+    static ActivationCode code(int id, String code, LocalDateTime createdAt) {
+        ActivationCode activationCode = new ActivationCode();
+        activationCode.setId(id);
+        activationCode.setCode(code);
+        activationCode.setCreatedAt(createdAt);
+        return activationCode;
+    }
+}
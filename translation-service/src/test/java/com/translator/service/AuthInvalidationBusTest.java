@@ -0,0 +1,187 @@
+package com.translator.service;
+
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * AuthInvalidationBus：序号跳号、epoch 变化与末尾消息未送达的检测
+ *
+ * @author mac
+ */
+class AuthInvalidationBusTest {
+
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private AuthorizationCache authorizationCache;
+    private AuthInvalidationBus bus;
+    private MessageListener listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        authorizationCache = mock(AuthorizationCache.class);
+        RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+        ObjectProvider<RedisMessageListenerContainer> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(container);
+
+        bus = new AuthInvalidationBus(redisTemplate, authorizationCache, provider,
+                new TranslationMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(bus, "enabled", true);
+        bus.init();
+
+        ArgumentCaptor<MessageListener> captor = ArgumentCaptor.forClass(MessageListener.class);
+        verify(container).addMessageListener(captor.capture(), any(ChannelTopic.class));
+        listener = captor.getValue();
+    }
+
+    @Test
+    void invalidatesCodeFromOtherInstance() {
+        receive("e1", 1, "other", "CODE1");
+
+        verify(authorizationCache).invalidate("CODE1");
+        verify(authorizationCache, never()).invalidateAll();
+    }
+
+    @Test
+    void ignoresOwnMessages() {
+        receive("e1", 1, (String) ReflectionTestUtils.getField(bus, "instanceId"), "CODE1");
+
+        verify(authorizationCache, never()).invalidate(any());
+    }
+
+    @Test
+    void consecutiveSequencesDoNotReset() {
+        receive("e1", 5, "other", "A");
+        receive("e1", 6, "other", "B");
+        receive("e1", 7, "other", "C");
+
+        verify(authorizationCache, never()).invalidateAll();
+    }
+
+    @Test
+    void sequenceGapResetsLocalCache() {
+        receive("e1", 1, "other", "A");
+        receive("e1", 3, "other", "C");
+
+        verify(authorizationCache).invalidateAll();
+        verify(authorizationCache).invalidate("C");
+    }
+
+    @Test
+    void duplicateOrOlderSequenceDoesNotReset() {
+        receive("e1", 4, "other", "A");
+        receive("e1", 4, "other", "A");
+        receive("e1", 2, "other", "B");
+        receive("e1", 5, "other", "C");
+
+        verify(authorizationCache, never()).invalidateAll();
+    }
+
+    @Test
+    void epochChangeResetsLocalCache() {
+        receive("e1", 10, "other", "A");
+        receive("e2", 1, "other", "B");
+        receive("e2", 2, "other", "C");
+
+        verify(authorizationCache, times(1)).invalidateAll();
+    }
+
+    @Test
+    void malformedMessageIsIgnored() {
+        listener.onMessage(new DefaultMessage("ch".getBytes(StandardCharsets.UTF_8),
+                "garbage".getBytes(StandardCharsets.UTF_8)), null);
+        listener.onMessage(new DefaultMessage("ch".getBytes(StandardCharsets.UTF_8),
+                "e1|x|other|A".getBytes(StandardCharsets.UTF_8)), null);
+
+        verify(authorizationCache, never()).invalidate(any());
+        verify(authorizationCache, never()).invalidateAll();
+    }
+
+    @Test
+    void checkDetectsUndeliveredTailMessages() {
+        receive("e1", 3, "other", "A");
+        redisState("e1", "5");
+
+        // 第一次检查只记录已发布的序号，给在途消息一个检查周期送达
+        bus.check();
+        verify(authorizationCache, never()).invalidateAll();
+
+        bus.check();
+        verify(authorizationCache).invalidateAll();
+
+        // 已按核对到的序号重新对齐，不重复清空
+        bus.check();
+        verify(authorizationCache, times(1)).invalidateAll();
+    }
+
+    @Test
+    void checkDoesNotResetWhenMessagesArriveInTime() {
+        receive("e1", 3, "other", "A");
+        redisState("e1", "5");
+
+        bus.check();
+        receive("e1", 4, "other", "B");
+        receive("e1", 5, "other", "C");
+        bus.check();
+
+        verify(authorizationCache, never()).invalidateAll();
+    }
+
+    @Test
+    void checkDetectsEpochChangeAndLostEpoch() {
+        receive("e1", 3, "other", "A");
+
+        redisState("e2", "1");
+        bus.check();
+        verify(authorizationCache, times(1)).invalidateAll();
+
+        redisState(null, null);
+        bus.check();
+        verify(authorizationCache, times(2)).invalidateAll();
+    }
+
+    @Test
+    void checkDetectsSequenceGoingBackwards() {
+        receive("e1", 8, "other", "A");
+        redisState("e1", "2");
+
+        bus.check();
+
+        verify(authorizationCache).invalidateAll();
+    }
+
+    private void receive(String epoch, long seq, String instanceId, String code) {
+        String body = epoch + "|" + seq + "|" + instanceId + "|" + code;
+        listener.onMessage(new DefaultMessage("translator:auth:invalidate".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    private void redisState(String epoch, String seq) {
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(epoch, seq));
+    }
+}
@@ -0,0 +1,86 @@
+package com.translator.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * AuthorizationCache：授权条目的写入、覆盖与失效，负缓存与过期
+ *
+ * @author mac
+ */
+class AuthorizationCacheTest {
+
+    @Test
+    void putOverwritesAndInvalidateRemoves() {
+        AuthorizationCache cache = cache(true, Duration.ofSeconds(60), Duration.ofSeconds(30));
+
+        cache.put("CODE", "device-1", 1000L);
+        cache.put("CODE", "device-2", 2000L);
+        assertThat(cache.get("CODE")).isEqualTo(new AuthorizationCache.Entry("device-2", 2000L));
+
+        cache.invalidate("CODE");
+        assertThat(cache.get("CODE")).isNull();
+    }
+
+    @Test
+    void putClearsNegativeEntry() {
+        AuthorizationCache cache = cache(true, Duration.ofSeconds(60), Duration.ofSeconds(30));
+        cache.markInvalid("CODE");
+        assertThat(cache.isKnownInvalid("CODE")).isTrue();
+
+        // 激活成功后不能继续被负缓存拒绝
+        cache.put("CODE", "device-1", 1000L);
+
+        assertThat(cache.isKnownInvalid("CODE")).isFalse();
+    }
+
+    @Test
+    void invalidateAllClearsBothCaches() {
+        AuthorizationCache cache = cache(true, Duration.ofSeconds(60), Duration.ofSeconds(30));
+        cache.put("A", "device-1", 1000L);
+        cache.markInvalid("B");
+
+        cache.invalidateAll();
+
+        assertThat(cache.get("A")).isNull();
+        assertThat(cache.isKnownInvalid("B")).isFalse();
+    }
+
+    @Test
+    void entriesExpireAfterTtl() throws InterruptedException {
+        AuthorizationCache cache = cache(true, Duration.ofMillis(50), Duration.ofMillis(50));
+        cache.put("A", "device-1", 1000L);
+        cache.markInvalid("B");
+
+        Thread.sleep(120);
+
+        assertThat(cache.get("A")).isNull();
+        assertThat(cache.isKnownInvalid("B")).isFalse();
+    }
+
+    @Test
+    void disabledCacheKeepsNegativeCache() {
+        AuthorizationCache cache = cache(false, Duration.ofSeconds(60), Duration.ofSeconds(30));
+
+        cache.put("A", "device-1", 1000L);
+        cache.markInvalid("B");
+
+        assertThat(cache.get("A")).isNull();
+        assertThat(cache.isKnownInvalid("B")).isTrue();
+    }
+
+    static AuthorizationCache cache(boolean enabled, Duration ttl, Duration negativeTtl) {
+        AuthorizationCache cache = new AuthorizationCache();
+        ReflectionTestUtils.setField(cache, "enabled", enabled);
+        ReflectionTestUtils.setField(cache, "maxSize", 1000L);
+        ReflectionTestUtils.setField(cache, "ttl", ttl);
+        ReflectionTestUtils.setField(cache, "negativeMaxSize", 1000L);
+        ReflectionTestUtils.setField(cache, "negativeTtl", negativeTtl);
+        cache.init();
+        return cache;
+    }
+}
@@ -0,0 +1,136 @@
+package com.translator.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CacheCodec：各模式的编解码往返与损坏信封
+ *
+ * @author mac
+ */
+class CacheCodecTest {
+
+    private static final String CACHE_KEY = "translator:translation:0123456789abcdef0123456789abcdef";
+
+    @Test
+    void stringModeKeepsUtf8() {
+        CacheCodec codec = codec("string");
+
+        assertThat(codec.key(CACHE_KEY)).isEqualTo(CACHE_KEY.getBytes(StandardCharsets.UTF_8));
+        assertThat(codec.encode("你好 world")).isEqualTo("你好 world".getBytes(StandardCharsets.UTF_8));
+        assertThat(codec.decode("你好 world".getBytes(StandardCharsets.UTF_8))).isEqualTo("你好 world");
+    }
+
+    @Test
+    void compactKeyPacksDigest() {
+        CacheCodec codec = codec("compact");
+
+        byte[] key = codec.key(CACHE_KEY);
+
+        assertThat(key).hasSize(3 + 16);
+        assertThat(new String(key, 0, 3, StandardCharsets.UTF_8)).isEqualTo("tt:");
+        assertThat(key[3]).isEqualTo((byte) 0x01);
+        assertThat(key[18]).isEqualTo((byte) 0xef);
+    }
+
+    @Test
+    void compactKeyFallsBackForNonDigestKeys() {
+        CacheCodec codec = codec("compact");
+
+        assertThat(codec.key("translator:translation:plain-text")).isEqualTo(
+                "translator:translation:plain-text".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void roundTripsShortAsciiAsUtf8() {
+        CacheCodec codec = codec("compact");
+
+        byte[] envelope = codec.encode("Hello");
+
+        assertThat(envelope).hasSize(2 + 5);
+        assertThat(envelope[1]).isZero();
+        assertThat(codec.decode(envelope)).isEqualTo("Hello");
+    }
+
+    @Test
+    void roundTripsCjkAsUtf16() {
+        CacheCodec codec = codec("compact");
+        String text = "今天晚上一起吃饭吗";
+
+        byte[] envelope = codec.encode(text);
+
+        assertThat(envelope[1] & 2).isEqualTo(2);
+        assertThat(envelope.length).isLessThan(text.getBytes(StandardCharsets.UTF_8).length);
+        assertThat(codec.decode(envelope)).isEqualTo(text);
+    }
+
+    @Test
+    void roundTripsLongTextCompressed() {
+        CacheCodec codec = codec("compact");
+        String text = "The quick brown fox jumps over the lazy dog. ".repeat(40);
+
+        byte[] envelope = codec.encode(text);
+
+        assertThat(envelope[1] & 1).isEqualTo(1);
+        assertThat(envelope.length).isLessThan(text.length() / 2);
+        assertThat(codec.decode(envelope)).isEqualTo(text);
+    }
+
+    @Test
+    void roundTripsEmptyAndEmoji() {
+        CacheCodec codec = codec("migrate");
+
+        assertThat(codec.decode(codec.encode(""))).isEmpty();
+        assertThat(codec.decode(codec.encode("👍🏻 ok ❤️"))).isEqualTo("👍🏻 ok ❤️");
+    }
+
+    @Test
+    void rejectsUnknownVersionAndTruncatedHeader() {
+        CacheCodec codec = codec("compact");
+        byte[] envelope = codec.encode("Hello");
+        envelope[0] = 9;
+
+        assertThat(codec.decode(envelope)).isNull();
+        assertThat(codec.decode(new byte[]{1})).isNull();
+        assertThat(codec.decode(new byte[0])).isNull();
+    }
+
+    @Test
+    void rejectsCorruptLengthField() {
+        CacheCodec codec = codec("compact");
+
+        // 长度 varint 永不结束
+        assertThat(codec.decode(new byte[]{1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF}))
+                .isNull();
+        // 长度超过上限（约 256MB）
+        assertThat(codec.decode(new byte[]{1, 1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01, 0})).isNull();
+    }
+
+    @Test
+    void rejectsTruncatedOrGarbledPayload() {
+        CacheCodec codec = codec("compact");
+        byte[] envelope = codec.encode("The quick brown fox jumps over the lazy dog. ".repeat(40));
+
+        assertThat(codec.decode(Arrays.copyOf(envelope, envelope.length / 2))).isNull();
+
+        byte[] garbled = envelope.clone();
+        for (int i = 5; i < garbled.length; i++) {
+            garbled[i] = (byte) 0xFF;
+        }
+        assertThat(codec.decode(garbled)).isNull();
+    }
+
+    private static CacheCodec codec(String mode) {
+        CacheCodec codec = new CacheCodec();
+        ReflectionTestUtils.setField(codec, "modeName", mode);
+        ReflectionTestUtils.setField(codec, "keyPrefix", "tt:");
+        ReflectionTestUtils.setField(codec, "compressMinBytes", 256);
+        codec.init();
+        return codec;
+    }
+}
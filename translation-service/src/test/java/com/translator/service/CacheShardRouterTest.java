@@ -0,0 +1,181 @@
+package com.translator.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * CacheShardRouter：一致性哈希下节点移出 / 恢复时的 Key 迁移
+ *
+ * 节点指向不可达的端口，LettuceConnectionFactory 不会主动建连；节点上下线通过修改 up 并重建哈希环模拟，不经过 PING。
+ *
+ * @author mac
+ */
+class CacheShardRouterTest {
+
+    private static final int KEYS = 20_000;
+
+    private CacheShardRouter router;
+
+    @AfterEach
+    void tearDown() {
+        if (router != null) {
+            router.destroy();
+        }
+    }
+
+    @Test
+    void unshardedRoutesEverythingToDefaultRedis() {
+        router = router(List.of());
+
+        assertThat(router.sharded()).isFalse();
+        assertThat(router.shardFor(cacheKey("hello")).name()).isEqualTo("default");
+        assertThat(router.partition(List.of(cacheKey("a"), cacheKey("b")), key -> key)).hasSize(1);
+    }
+
+    @Test
+    void keysSpreadAcrossAllNodes() {
+        router = router(nodes(3));
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (String key : keys()) {
+            counts.merge(router.shardFor(key).name(), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(3);
+        // 160 个虚拟节点时各节点占比应在 1/3 附近
+        counts.values().forEach(count -> assertThat(count).isBetween(KEYS / 5, KEYS / 2));
+    }
+
+    @Test
+    void removingNodeOnlyMovesItsOwnKeys() {
+        router = router(nodes(3));
+        List<String> keys = keys();
+        Map<String, String> before = owners(keys);
+        CacheShardRouter.Shard removed = router.shardFor(keys.get(0));
+
+        setUp(removed, false);
+
+        int moved = 0;
+        for (String key : keys) {
+            String owner = router.shardFor(key).name();
+            if (before.get(key).equals(removed.name())) {
+                assertThat(owner).isNotEqualTo(removed.name());
+                moved++;
+            } else {
+                assertThat(owner).isEqualTo(before.get(key));
+            }
+        }
+        assertThat((double) moved / KEYS).isBetween(0.2, 0.45);
+    }
+
+    @Test
+    void recoveredNodeGetsItsKeysBack() {
+        router = router(nodes(4));
+        List<String> keys = keys();
+        Map<String, String> before = owners(keys);
+        CacheShardRouter.Shard shard = router.shardFor(keys.get(0));
+
+        setUp(shard, false);
+        setUp(shard, true);
+
+        assertThat(owners(keys)).isEqualTo(before);
+    }
+
+    @Test
+    void allNodesDownKeepsFullRing() {
+        router = router(nodes(2));
+        List<String> keys = keys();
+        Map<String, String> before = owners(keys);
+        CacheShardRouter.Shard first = router.shardFor(cacheKey("first"));
+        CacheShardRouter.Shard other = router.partition(keys, key -> key).keySet().stream()
+                .filter(shard -> shard != first)
+                .findFirst()
+                .orElseThrow();
+
+        ReflectionTestUtils.setField(first, "up", false);
+        setUp(other, false);
+
+        assertThat(owners(keys)).isEqualTo(before);
+    }
+
+    @Test
+    void partitionGroupsByOwnerAndKeepsOrder() {
+        router = router(nodes(3));
+        List<String> keys = keys().subList(0, 1000);
+
+        Map<CacheShardRouter.Shard, List<String>> groups = router.partition(keys, key -> key);
+
+        assertThat(groups.values().stream().mapToInt(List::size).sum()).isEqualTo(keys.size());
+        groups.forEach((shard, group) -> {
+            group.forEach(key -> assertThat(router.shardFor(key)).isSameAs(shard));
+            List<String> expectedOrder = keys.stream().filter(group::contains).toList();
+            assertThat(group).isEqualTo(expectedOrder);
+        });
+    }
+
+    private static CacheShardRouter router(List<String> nodes) {
+        CacheShardRouter router = new CacheShardRouter(mock(StringRedisTemplate.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(router, "nodes", nodes);
+        ReflectionTestUtils.setField(router, "virtualNodes", 160);
+        ReflectionTestUtils.setField(router, "failureThreshold", 3);
+        ReflectionTestUtils.setField(router, "commandTimeout", Duration.ofMillis(200));
+        router.init();
+        return router;
+    }
+
+    private void setUp(CacheShardRouter.Shard shard, boolean up) {
+        ReflectionTestUtils.setField(shard, "up", up);
+        ReflectionTestUtils.invokeMethod(router, "rebuild");
+    }
+
+    private Map<String, String> owners(List<String> keys) {
+        Map<String, String> owners = new HashMap<>();
+        for (String key : keys) {
+            owners.put(key, router.shardFor(key).name());
+        }
+        return owners;
+    }
+
+    private static List<String> nodes(int count) {
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add("redis://127.0.0.1:" + (1 + i) + "/0");
+        }
+        return nodes;
+    }
+
+    private static List<String> keys() {
+        List<String> keys = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            keys.add(cacheKey("text-" + i));
+        }
+        return keys;
+    }
+
+    /**
+     * 与 TranslationService 相同形式的缓存 Key：前缀 + 32 位十六进制 MD5
+     */
+    private static String cacheKey(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(text.getBytes(StandardCharsets.UTF_8));
+            return "translator:translation:" + HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
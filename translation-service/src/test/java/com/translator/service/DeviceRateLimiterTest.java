@@ -0,0 +1,94 @@
+package com.translator.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * DeviceRateLimiter（本地模式）：突发、恢复与超过突发上限的消耗
+ *
+ * @author mac
+ */
+class DeviceRateLimiterTest {
+
+    @Test
+    void allowsBurstThenRejects() {
+        DeviceRateLimiter limiter = limiter(1, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquireUpstream("device-1", 1)).isTrue();
+        }
+        assertThat(limiter.tryAcquireUpstream("device-1", 1)).isFalse();
+        // 各设备配额独立
+        assertThat(limiter.tryAcquireUpstream("device-2", 1)).isTrue();
+    }
+
+    @Test
+    void refillsAtConfiguredRate() throws InterruptedException {
+        DeviceRateLimiter limiter = limiter(100, 1);
+
+        assertThat(limiter.tryAcquireUpstream("device-1", 1)).isTrue();
+        assertThat(limiter.tryAcquireUpstream("device-1", 1)).isFalse();
+
+        Thread.sleep(50);
+        assertThat(limiter.tryAcquireUpstream("device-1", 1)).isTrue();
+    }
+
+    @Test
+    void oversizedCostNeedsFullBucketAndIsChargedInFull() {
+        DeviceRateLimiter limiter = limiter(1, 5);
+
+        assertThat(limiter.tryAcquireUpstream("device-1", 1)).isTrue();
+        // 令牌桶不满时不放行超过突发上限的消耗
+        assertThat(limiter.tryAcquireUpstream("device-1", 20)).isFalse();
+
+        assertThat(limiter.tryAcquireUpstream("device-2", 20)).isTrue();
+        // 全额扣减：欠账（15 个令牌，约 15 秒）还清前不再放行
+        assertThat(limiter.tryAcquireUpstream("device-2", 1)).isFalse();
+    }
+
+    @Test
+    void chargesBatchRequestsByItemCount() {
+        DeviceRateLimiter limiter = limiter(1, 5);
+
+        limiter.checkRequest("device-1", 3);
+        assertThat(limiter.tryAcquireRequest("device-1")).isTrue();
+        assertThat(limiter.tryAcquireRequest("device-1")).isTrue();
+        assertThatThrownBy(() -> limiter.checkRequest("device-1", 1))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void disabledOrAnonymousIsNotLimited() {
+        DeviceRateLimiter limiter = limiter(1, 1);
+        assertThat(limiter.tryAcquireUpstream(null, 100)).isTrue();
+        assertThat(limiter.tryAcquireUpstream(null, 100)).isTrue();
+
+        ReflectionTestUtils.setField(limiter, "enabled", false);
+        assertThat(limiter.tryAcquireUpstream("device-1", 100)).isTrue();
+        assertThat(limiter.tryAcquireUpstream("device-1", 100)).isTrue();
+    }
+
+    /**
+     * request 与 upstream 使用相同的速率与突发上限
+     */
+    private static DeviceRateLimiter limiter(double rate, int burst) {
+        DeviceRateLimiter limiter = new DeviceRateLimiter(mock(StringRedisTemplate.class));
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "mode", "local");
+        ReflectionTestUtils.setField(limiter, "requestRate", rate);
+        ReflectionTestUtils.setField(limiter, "requestBurst", burst);
+        ReflectionTestUtils.setField(limiter, "upstreamRate", rate);
+        ReflectionTestUtils.setField(limiter, "upstreamBurst", burst);
+        ReflectionTestUtils.setField(limiter, "maxDevices", 1000L);
+        ReflectionTestUtils.setField(limiter, "idleExpire", Duration.ofMinutes(10));
+        limiter.init();
+        return limiter;
+    }
+}
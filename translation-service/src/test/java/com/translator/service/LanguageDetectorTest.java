@@ -0,0 +1,79 @@
+package com.translator.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LanguageDetector：文字识别、语言代码归一化与目标语言判断
+ *
+ * @author mac
+ */
+class LanguageDetectorTest {
+
+    @Test
+    void textWithoutLettersHasNothingToTranslate() {
+        assertThat(LanguageDetector.detect("👍👍 123 https://example.com @bob").letters()).isZero();
+    }
+
+    @Test
+    void detectsNonLatinScripts() {
+        assertThat(LanguageDetector.detect("今天晚上一起吃饭吗").language()).isEqualTo("zh");
+        assertThat(LanguageDetector.detect("今日はいい天気ですね").language()).isEqualTo("ja");
+        assertThat(LanguageDetector.detect("안녕하세요 반갑습니다").language()).isEqualTo("ko");
+        assertThat(LanguageDetector.detect("Привет, как дела?").language()).isEqualTo("ru");
+    }
+
+    @Test
+    void detectsEnglishOnlyWithEnglishWords() {
+        assertThat(LanguageDetector.detect("Can you send the file please").language()).isEqualTo("en");
+        // 无变音符号、也没有英文常用词的拉丁文字不判断为英文
+        assertThat(LanguageDetector.detect("hola amigo como estas").language()).isNull();
+        assertThat(LanguageDetector.detect("selamat pagi apa kabar").language()).isNull();
+    }
+
+    @Test
+    void mixedTextReportsDominantRatio() {
+        LanguageDetector.Detection detection = LanguageDetector.detect("这个 file 你看一下");
+
+        assertThat(detection.language()).isEqualTo("zh");
+        assertThat(detection.ratio()).isLessThan(1.0);
+    }
+
+    @Test
+    void normalizesLanguageCodes() {
+        assertThat(LanguageDetector.normalize("zh-CN")).isEqualTo("zh");
+        assertThat(LanguageDetector.normalize("en_US")).isEqualTo("en");
+        assertThat(LanguageDetector.normalize("PT")).isEqualTo("pt");
+        assertThat(LanguageDetector.normalize(null)).isNull();
+    }
+
+    @Test
+    void chineseTargetComparesScript() {
+        String simplified = "这个问题我们明天再说";
+        String traditional = "這個問題我們明天再說";
+
+        assertThat(LanguageDetector.chineseScript(simplified)).isEqualTo("Hans");
+        assertThat(LanguageDetector.chineseScript(traditional)).isEqualTo("Hant");
+        assertThat(LanguageDetector.chineseScript("明天")).isNull();
+
+        assertThat(matches(simplified, "zh-CN")).isTrue();
+        assertThat(matches(simplified, "zh-TW")).isFalse();
+        assertThat(matches(traditional, "zh-TW")).isTrue();
+        assertThat(matches(traditional, "zh-Hant")).isTrue();
+        assertThat(matches(traditional, "zh")).isFalse();
+    }
+
+    @Test
+    void regionalTargetsOtherThanEnglishAreNotSkipped() {
+        String english = "Can you send the file please";
+
+        assertThat(matches(english, "en")).isTrue();
+        assertThat(matches(english, "en-US")).isTrue();
+        assertThat(matches(english, "zh-CN")).isFalse();
+    }
+
+    private static boolean matches(String text, String targetLang) {
+        return LanguageDetector.matchesTarget(LanguageDetector.detect(text), text, targetLang);
+    }
+}
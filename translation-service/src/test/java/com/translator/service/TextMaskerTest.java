@@ -0,0 +1,89 @@
+package com.translator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TextMasker：规范化、占位符替换与还原
+ *
+ * @author mac
+ */
+class TextMaskerTest {
+
+    @Test
+    void masksVariablesInOrder() {
+        TextMasker.Masked masked = TextMasker.mask("@alice 订单 1234 见 https://example.com/a?b=1。 👍🏻");
+
+        assertThat(masked.text()).isEqualTo("{0} 订单 {1} 见 {2}。 {3}");
+        assertThat(masked.spans()).containsExactly("@alice", "1234", "https://example.com/a?b=1", "👍🏻");
+        assertThat(masked.restore("{0} order {1}, see {2}. {3}"))
+                .isEqualTo("@alice order 1234, see https://example.com/a?b=1. 👍🏻");
+    }
+
+    @Test
+    void masksCodeAndKeepsWordsWithDigits() {
+        TextMasker.Masked masked = TextMasker.mask("run `npm install` on abc123");
+
+        assertThat(masked.text()).isEqualTo("run {0} on abc123");
+        assertThat(masked.spans()).containsExactly("`npm install`");
+    }
+
+    @Test
+    void textsDifferingOnlyInVariablesShareMaskedText() {
+        assertThat(TextMasker.mask("明天 9:30 开会").text()).isEqualTo(TextMasker.mask("明天 14:00 开会").text());
+        assertThat(TextMasker.mask("ping @bob").text()).isEqualTo(TextMasker.mask("ping   @carol").text());
+    }
+
+    @Test
+    void normalizesWhitespaceAndLineBreaks() {
+        TextMasker.Masked masked = TextMasker.mask("  hello   world \r\n\r\n\r\n  next\tline  ");
+
+        assertThat(masked.text()).isEqualTo("hello world\n\nnext line");
+        assertThat(masked.spans()).isEmpty();
+    }
+
+    @Test
+    void normalizesToNfc() {
+        // e + 组合重音符 -> é
+        assertThat(TextMasker.mask("café").text()).isEqualTo("café");
+    }
+
+    @Test
+    void existingPlaceholdersAreMaskedSoMaskingIsIdempotent() {
+        TextMasker.Masked first = TextMasker.mask("keep {0} and 42");
+        TextMasker.Masked second = TextMasker.mask(first.text());
+
+        assertThat(first.spans()).containsExactly("{0}", "42");
+        assertThat(second.text()).isEqualTo(first.text());
+        assertThat(first.restore("{1} {0}")).isEqualTo("42 {0}");
+    }
+
+    @Test
+    void checksPlaceholdersInTranslation() {
+        String source = "{0} 订单 {1}";
+
+        assertThat(TextMasker.placeholdersPreserved(source, "order {1} for {0}")).isTrue();
+        assertThat(TextMasker.placeholdersPreserved(source, "order {1}")).isFalse();
+        assertThat(TextMasker.placeholdersPreserved(source, "{0} {0} order {1}")).isFalse();
+        assertThat(TextMasker.placeholdersPreserved("no variables", "whatever {3}")).isTrue();
+    }
+
+    @Test
+    void restoreLeavesUnknownPlaceholders() {
+        assertThat(TextMasker.restore("{0} {5} {x}", List.of("A"))).isEqualTo("A {5} {x}");
+    }
+
+    @Test
+    void streamRestorerHoldsSplitPlaceholder() {
+        TextMasker.StreamRestorer restorer = new TextMasker.StreamRestorer(List.of("@alice", "1234"));
+
+        assertThat(restorer.push("Hi {0}, order {")).isEqualTo("Hi @alice, order ");
+        assertThat(restorer.push("1")).isEmpty();
+        assertThat(restorer.push("} ok")).isEqualTo("1234 ok");
+        assertThat(restorer.push(" {")).isEqualTo(" ");
+        assertThat(restorer.flush()).isEqualTo("{");
+    }
+}
@@ -0,0 +1,64 @@
+package com.translator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TextSegmenter：断句规则与译文拼接
+ *
+ * @author mac
+ */
+class TextSegmenterTest {
+
+    @Test
+    void splitsChineseAndWesternSentences() {
+        assertThat(segments("你好。今天有空吗？")).containsExactly("你好。", "今天有空吗？");
+        assertThat(segments("Hello there! How are you? Fine.")).containsExactly("Hello there!", "How are you?", "Fine.");
+    }
+
+    @Test
+    void keepsDecimalsAndDottedWords() {
+        assertThat(segments("Pi is 3.14 today. See a.b.c now")).containsExactly("Pi is 3.14 today.", "See a.b.c now");
+    }
+
+    @Test
+    void doesNotSplitAfterAbbreviations() {
+        assertThat(segments("Mr. Smith is here. He said e.g. this works."))
+                .containsExactly("Mr. Smith is here.", "He said e.g. this works.");
+        assertThat(segments("Ask Dr. Lee about J. R. R. Tolkien. Thanks"))
+                .containsExactly("Ask Dr. Lee about J. R. R. Tolkien.", "Thanks");
+        assertThat(segments("Bring apples, pears etc. to the U.S. office")).hasSize(1);
+    }
+
+    @Test
+    void stillSplitsAfterOrdinaryShortWords() {
+        assertThat(segments("I am ok. Go. Now")).containsExactly("I am ok.", "Go.", "Now");
+        assertThat(segments("I said no. Then left")).containsExactly("I said no.", "Then left");
+        assertThat(segments("好. 走吧")).containsExactly("好.", "走吧");
+    }
+
+    @Test
+    void splitsLinesAndKeepsSeparators() {
+        TextSegmenter.Segmentation segmentation = TextSegmenter.split("  第一行\n\n第二行。  ");
+
+        assertThat(segmentation.segments()).containsExactly("第一行", "第二行。");
+        assertThat(segmentation.separators()).containsExactly("  ", "\n\n", "  ");
+    }
+
+    @Test
+    void joinsByTargetLanguage() {
+        TextSegmenter.Segmentation segmentation = TextSegmenter.split("你好。再见。\n明天见");
+
+        assertThat(TextSegmenter.join(segmentation, List.of("Hi.", "Bye.", "See you"), "en"))
+                .isEqualTo("Hi. Bye.\nSee you");
+        assertThat(TextSegmenter.join(segmentation, List.of("你好。", "再见。", "明天见"), "zh"))
+                .isEqualTo("你好。再见。\n明天见");
+    }
+
+    private static List<String> segments(String text) {
+        return TextSegmenter.split(text).segments();
+    }
+}
@@ -0,0 +1,186 @@
+package com.translator.service;
+
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TranslationCache：L1 命中不访问 Redis，L2 命中回填 L1，批量查询只对 L1 未命中的 Key 发 MGET
+ *
+ * Redis 以内存 Map 模拟（未分片、字符串编码）。
+ *
+ * @author mac
+ */
+class TranslationCacheTest {
+
+    private final Map<String, String> redis = new HashMap<>();
+    // 每次 GET / MGET 查询的 Key 数
+    private final List<Integer> redisReads = new ArrayList<>();
+
+    private StringRedisTemplate redisTemplate;
+    private CacheWriteBehind writeBehind;
+    private CacheShardRouter shardRouter;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisStringCommands commands = mock(RedisStringCommands.class);
+        when(commands.get(any())).thenAnswer(invocation -> read(invocation.getArgument(0)));
+        when(commands.mGet(any(byte[][].class))).thenAnswer(invocation -> {
+            byte[][] keys = (byte[][]) invocation.getRawArguments()[0];
+            redisReads.add(keys.length);
+            List<byte[]> values = new ArrayList<>();
+            for (byte[] key : keys) {
+                values.add(bytes(redis.get(string(key))));
+            }
+            return values;
+        });
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.stringCommands()).thenReturn(commands);
+        redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+
+        shardRouter = new CacheShardRouter(redisTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(shardRouter, "nodes", List.of());
+        shardRouter.init();
+        writeBehind = mock(CacheWriteBehind.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardRouter.destroy();
+    }
+
+    @Test
+    void writtenValueIsServedFromL1() {
+        TranslationCache cache = cache(true, 2000);
+
+        cache.put("k1", "你好");
+
+        assertThat(cache.get("k1")).isEqualTo("你好");
+        assertThat(redisReads).isEmpty();
+        verify(writeBehind).write("k1", "你好");
+        assertThat(lookups("l1", "hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void redisHitIsBackfilledIntoL1() {
+        TranslationCache cache = cache(true, 2000);
+        redis.put("k1", "你好");
+
+        assertThat(cache.get("k1")).isEqualTo("你好");
+        assertThat(cache.get("k1")).isEqualTo("你好");
+
+        assertThat(redisReads).containsExactly(1);
+        assertThat(lookups("l2", "hit")).isEqualTo(1.0);
+        assertThat(lookups("l1", "hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void getAllOnlyQueriesRedisForL1Misses() {
+        TranslationCache cache = cache(true, 2000);
+        cache.put("local", "本地");
+        redis.put("remote", "远程");
+
+        assertThat(cache.getAll(List.of("local", "remote", "missing"))).containsExactly("本地", "远程", null);
+
+        assertThat(redisReads).containsExactly(2);
+        assertThat(lookups("l2", "miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void longValuesBypassL1() {
+        TranslationCache cache = cache(true, 10);
+        String longValue = "x".repeat(11);
+
+        cache.put("k1", longValue);
+        redis.put("k1", longValue);
+
+        assertThat(cache.get("k1")).isEqualTo(longValue);
+        assertThat(cache.get("k1")).isEqualTo(longValue);
+        assertThat(redisReads).containsExactly(1, 1);
+    }
+
+    @Test
+    void disabledL1AlwaysReadsRedis() {
+        TranslationCache cache = cache(false, 2000);
+        cache.put("k1", "你好");
+        redis.put("k1", "你好");
+
+        assertThat(cache.get("k1")).isEqualTo("你好");
+        assertThat(cache.get("k1")).isEqualTo("你好");
+        assertThat(redisReads).containsExactly(1, 1);
+        assertThat(cache.hottest(10)).isEmpty();
+    }
+
+    @Test
+    void putAllWritesL1AndSchedulesOneBatch() {
+        TranslationCache cache = cache(true, 2000);
+
+        cache.putAll(Map.of("a", "甲", "b", "乙"));
+
+        assertThat(cache.getAll(List.of("a", "b"))).containsExactly("甲", "乙");
+        assertThat(redisReads).isEmpty();
+        verify(writeBehind, times(1)).writeAll(any());
+        verify(writeBehind, never()).write(any(), any());
+    }
+
+    private TranslationCache cache(boolean localEnabled, int maxEntryChars) {
+        CacheCodec codec = new CacheCodec();
+        ReflectionTestUtils.setField(codec, "modeName", "string");
+        ReflectionTestUtils.setField(codec, "keyPrefix", "tt:");
+        ReflectionTestUtils.setField(codec, "compressMinBytes", 256);
+        codec.init();
+
+        TranslationCache cache = new TranslationCache(new TranslationMetrics(meterRegistry),
+                mock(CacheTtlRefresher.class), writeBehind, codec, shardRouter);
+        ReflectionTestUtils.setField(cache, "localEnabled", localEnabled);
+        ReflectionTestUtils.setField(cache, "localMaxWeightBytes", 1_000_000L);
+        ReflectionTestUtils.setField(cache, "localMaxEntryChars", maxEntryChars);
+        ReflectionTestUtils.setField(cache, "localExpireAfterWrite", Duration.ofHours(1));
+        cache.init();
+        return cache;
+    }
+
+    private byte[] read(byte[] key) {
+        redisReads.add(1);
+        return bytes(redis.get(string(key)));
+    }
+
+    private double lookups(String level, String result) {
+        return meterRegistry.get("translation.cache.lookups").tags("level", level, "result", result).counter().count();
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,107 @@
+package com.translator.service;
+
+import com.translator.engine.TranslationReference;
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TranslationMemory：相似原文返回参考译文，不相似、语言对不同或长度不符时不返回
+ *
+ * @author mac
+ */
+class TranslationMemoryTest {
+
+    private static final String SOURCE = "Can you send me the quarterly sales report before Friday afternoon?";
+    private static final String TRANSLATION = "你能在周五下午之前把季度销售报告发给我吗？";
+
+    private SimpleMeterRegistry meterRegistry;
+    private TranslationMemory memory;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        memory = memory(true, 100);
+        memory.remember(SOURCE, "en", "zh", TRANSLATION);
+    }
+
+    @Test
+    void nearDuplicateReturnsReference() {
+        TranslationReference reference = memory.lookup(
+                "Can you send me the quarterly sales report before Friday afternoon please?", "en", "zh");
+
+        assertThat(reference).isNotNull();
+        assertThat(reference.sourceText()).isEqualTo(SOURCE);
+        assertThat(reference.translatedText()).isEqualTo(TRANSLATION);
+        assertThat(reference.similarity()).isGreaterThanOrEqualTo(0.8).isLessThan(1.0);
+        assertThat(lookups("reference")).isEqualTo(1.0);
+    }
+
+    @Test
+    void variablesDoNotAffectSimilarity() {
+        memory.remember("Meeting moved to 9:30 in room 204, see https://example.com/a", "en", "zh", "会议改到 9:30");
+
+        TranslationReference reference = memory.lookup(
+                "Meeting moved to 14:00 in room 318, see https://example.com/b", "en", "zh");
+
+        assertThat(reference).isNotNull();
+        assertThat(reference.similarity()).isEqualTo(1.0);
+    }
+
+    @Test
+    void dissimilarTextReturnsNothing() {
+        assertThat(memory.lookup("The weather in the mountains was terrible all week long.", "en", "zh")).isNull();
+        assertThat(lookups("miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void otherLanguagePairReturnsNothing() {
+        assertThat(memory.lookup(SOURCE, "en", "ja")).isNull();
+    }
+
+    @Test
+    void textsOutsideLengthRangeAreIgnored() {
+        memory.remember("ok!", "en", "zh", "好！");
+
+        assertThat(memory.lookup("ok!", "en", "zh")).isNull();
+        assertThat(memory.lookup(SOURCE + " " + "x".repeat(500), "en", "zh")).isNull();
+    }
+
+    @Test
+    void oldestEntryIsOverwrittenWhenFull() {
+        TranslationMemory small = memory(true, 2);
+        small.remember(SOURCE, "en", "zh", TRANSLATION);
+        small.remember("Please review the pull request when you have time.", "en", "zh", "有空时请审阅拉取请求。");
+        small.remember("The deployment finished without any errors today.", "en", "zh", "今天部署顺利完成，没有错误。");
+
+        assertThat(small.lookup(SOURCE, "en", "zh")).isNull();
+        assertThat(small.lookup("The deployment finished without any errors today!", "en", "zh")).isNotNull();
+    }
+
+    @Test
+    void disabledMemoryReturnsNothing() {
+        TranslationMemory disabled = memory(false, 100);
+        disabled.remember(SOURCE, "en", "zh", TRANSLATION);
+
+        assertThat(disabled.lookup(SOURCE, "en", "zh")).isNull();
+    }
+
+    private TranslationMemory memory(boolean enabled, int maxEntries) {
+        TranslationMemory created = new TranslationMemory(new TranslationMetrics(meterRegistry));
+        ReflectionTestUtils.setField(created, "enabled", enabled);
+        ReflectionTestUtils.setField(created, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(created, "similarityThreshold", 0.8);
+        ReflectionTestUtils.setField(created, "minChars", 8);
+        ReflectionTestUtils.setField(created, "maxChars", 500);
+        created.init();
+        return created;
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("translation.memory").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,216 @@
+package com.translator.service;
+
+import com.translator.engine.UpstreamGuard;
+import com.translator.engine.UpstreamGuardRegistry;
+import com.translator.engine.UpstreamUnavailableException;
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * TranslationScheduler：预留名额、放行顺序、有界队列与优先级提升
+ *
+ * 总名额 4，interactive 预留 1 个，background 最多同时占用 3 个。
+ *
+ * @author mac
+ */
+class TranslationSchedulerTest {
+
+    private static final TranslationScheduler.Priority INTERACTIVE = TranslationScheduler.Priority.INTERACTIVE;
+    private static final TranslationScheduler.Priority BACKGROUND = TranslationScheduler.Priority.BACKGROUND;
+
+    private TranslationScheduler scheduler;
+    // 占用名额的上游调用，complete 后归还名额
+    private final List<Sinks.One<String>> running = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        scheduler = scheduler(true, Duration.ofSeconds(10));
+    }
+
+    @Test
+    void parsesPriority() {
+        assertThat(TranslationScheduler.Priority.of("Background", INTERACTIVE)).isEqualTo(BACKGROUND);
+        assertThat(TranslationScheduler.Priority.of("high", BACKGROUND)).isEqualTo(INTERACTIVE);
+        assertThat(TranslationScheduler.Priority.of("urgent", BACKGROUND)).isEqualTo(BACKGROUND);
+        assertThat(TranslationScheduler.Priority.of(null, INTERACTIVE)).isEqualTo(INTERACTIVE);
+        assertThat(BACKGROUND.value()).isEqualTo("background");
+    }
+
+    @Test
+    void backgroundCannotTakeReservedSlot() {
+        occupy(BACKGROUND, 3);
+
+        CompletableFuture<String> background = call(BACKGROUND);
+        CompletableFuture<String> interactive = call(INTERACTIVE);
+
+        assertThat(background).isNotDone();
+        assertThat(interactive).isCompletedWithValue("ok");
+    }
+
+    @Test
+    void releasedSlotGoesToInteractiveFirst() {
+        occupy(INTERACTIVE, 4);
+        List<String> started = new ArrayList<>();
+        hold(BACKGROUND, () -> started.add("background"));
+        hold(INTERACTIVE, () -> started.add("interactive"));
+
+        finishOne();
+        assertThat(started).containsExactly("interactive");
+
+        finishOne();
+        assertThat(started).containsExactly("interactive", "background");
+    }
+
+    @Test
+    void fullBackgroundQueueEvictsOldest() {
+        occupy(INTERACTIVE, 4);
+        CompletableFuture<String> oldest = call(BACKGROUND);
+        CompletableFuture<String> second = call(BACKGROUND);
+        CompletableFuture<String> newest = call(BACKGROUND);
+
+        assertThat(failure(oldest)).isInstanceOf(UpstreamUnavailableException.class);
+        assertThat(second).isNotDone();
+        assertThat(newest).isNotDone();
+    }
+
+    @Test
+    void fullInteractiveQueueRejectsNewRequests() {
+        occupy(INTERACTIVE, 4);
+        CompletableFuture<String> first = call(INTERACTIVE);
+        CompletableFuture<String> second = call(INTERACTIVE);
+        CompletableFuture<String> rejected = call(INTERACTIVE);
+
+        assertThat(failure(rejected)).isInstanceOf(UpstreamUnavailableException.class);
+        assertThat(first).isNotDone();
+        assertThat(second).isNotDone();
+    }
+
+    @Test
+    void promotedBackgroundRequestUsesReservedSlot() {
+        occupy(BACKGROUND, 3);
+        TranslationScheduler.Ticket ticket = scheduler.ticket(BACKGROUND);
+        CompletableFuture<String> queued = scheduler.schedule(ticket, Mono.just("ok")).toFuture();
+        assertThat(queued).isNotDone();
+
+        ticket.promote();
+
+        assertThat(ticket.priority()).isEqualTo(INTERACTIVE);
+        assertThat(queued).isCompletedWithValue("ok");
+    }
+
+    @Test
+    void interactiveFollowerPromotesLeaderTicket() {
+        TranslationSingleFlight singleFlight = new TranslationSingleFlight();
+        TranslationScheduler.Ticket leader = scheduler.ticket(BACKGROUND);
+
+        assertThat(singleFlight.begin("key", leader).isLeader()).isTrue();
+        singleFlight.begin("key", scheduler.ticket(BACKGROUND));
+        assertThat(leader.priority()).isEqualTo(BACKGROUND);
+
+        TranslationSingleFlight.Flight follower = singleFlight.begin("key", scheduler.ticket(INTERACTIVE));
+        assertThat(follower.isLeader()).isFalse();
+        assertThat(leader.priority()).isEqualTo(INTERACTIVE);
+    }
+
+    @Test
+    void combinedTicketFollowsMemberPromotion() {
+        TranslationScheduler.Ticket first = scheduler.ticket(BACKGROUND);
+        TranslationScheduler.Ticket second = scheduler.ticket(BACKGROUND);
+        TranslationScheduler.Ticket combined = scheduler.combine(List.of(first, second));
+        assertThat(combined.priority()).isEqualTo(BACKGROUND);
+
+        second.promote();
+
+        assertThat(combined.priority()).isEqualTo(INTERACTIVE);
+        assertThat(scheduler.combine(List.of(scheduler.ticket(BACKGROUND), second)).priority()).isEqualTo(INTERACTIVE);
+    }
+
+    @Test
+    void queuedRequestExpiresAfterMaxWait() {
+        scheduler = scheduler(true, Duration.ofMillis(200));
+        occupy(INTERACTIVE, 4);
+
+        CompletableFuture<String> background = call(BACKGROUND);
+
+        assertThat(failure(background)).isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("排队超时");
+    }
+
+    @Test
+    void disabledSchedulerPassesThrough() {
+        TranslationScheduler disabled = scheduler(false, Duration.ofSeconds(10));
+
+        assertThat(disabled.schedule(BACKGROUND, Mono.just("ok")).block()).isEqualTo("ok");
+        assertThat(disabled.scheduleStream(INTERACTIVE, Mono.just("ok").flux()).blockLast()).isEqualTo("ok");
+    }
+
+    private TranslationScheduler scheduler(boolean enabled, Duration backgroundMaxWait) {
+        UpstreamGuardRegistry registry = mock(UpstreamGuardRegistry.class);
+        when(registry.get(anyString())).thenReturn(mock(UpstreamGuard.class));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TranslationScheduler scheduler = new TranslationScheduler(registry, new TranslationMetrics(meterRegistry),
+                meterRegistry);
+        ReflectionTestUtils.setField(scheduler, "enabled", enabled);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", 4);
+        ReflectionTestUtils.setField(scheduler, "interactiveReservedRatio", 0.25);
+        ReflectionTestUtils.setField(scheduler, "primaryEngine", "openai");
+        ReflectionTestUtils.setField(scheduler, "interactiveQueueCapacity", 2);
+        ReflectionTestUtils.setField(scheduler, "interactiveMaxWait", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(scheduler, "backgroundQueueCapacity", 2);
+        ReflectionTestUtils.setField(scheduler, "backgroundMaxWait", backgroundMaxWait);
+        scheduler.init();
+        return scheduler;
+    }
+
+    /**
+     * 发起 count 个一直占用名额的调用
+     */
+    private void occupy(TranslationScheduler.Priority priority, int count) {
+        for (int i = 0; i < count; i++) {
+            assertThat(hold(priority, () -> { })).isNotDone();
+        }
+    }
+
+    /**
+     * 发起一个获得名额后一直占用的调用，onStart 在获得名额时执行
+     */
+    private CompletableFuture<String> hold(TranslationScheduler.Priority priority, Runnable onStart) {
+        Sinks.One<String> sink = Sinks.one();
+        running.add(sink);
+        return scheduler.schedule(priority, Mono.defer(() -> {
+            onStart.run();
+            return sink.asMono();
+        })).toFuture();
+    }
+
+    private void finishOne() {
+        running.remove(0).tryEmitValue("done");
+    }
+
+    private CompletableFuture<String> call(TranslationScheduler.Priority priority) {
+        return scheduler.schedule(priority, Mono.just("ok")).toFuture();
+    }
+
+    private static Throwable failure(CompletableFuture<String> future) {
+        assertThatThrownBy(() -> future.get(2, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        return future.handle((value, error) -> error).join();
+    }
+}
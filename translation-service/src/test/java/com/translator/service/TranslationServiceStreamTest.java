@@ -0,0 +1,143 @@
+package com.translator.service;
+
+import com.translator.dto.TranslateRequest;
+import com.translator.engine.TranslationEngineRouter;
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TranslationService.translateStream：缓存命中、增量透传与占位符还原、失败事件与限流
+ *
+ * @author mac
+ */
+class TranslationServiceStreamTest {
+
+    private TranslationEngineRouter engineRouter;
+    private TranslationCache translationCache;
+    private TranslationMemory translationMemory;
+    private DeviceRateLimiter deviceRateLimiter;
+    private TranslationService service;
+
+    @BeforeEach
+    void setUp() {
+        engineRouter = mock(TranslationEngineRouter.class);
+        translationCache = mock(TranslationCache.class);
+        translationMemory = mock(TranslationMemory.class);
+        deviceRateLimiter = mock(DeviceRateLimiter.class);
+        TranslationScheduler scheduler = mock(TranslationScheduler.class);
+        when(scheduler.scheduleStream(any(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+
+        service = new TranslationService(engineRouter, translationCache, new TranslationSingleFlight(),
+                translationMemory, deviceRateLimiter, scheduler, new TranslationMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(service, "languageDetectEnabled", true);
+        ReflectionTestUtils.setField(service, "sameLanguageRatio", 0.6);
+        ReflectionTestUtils.setField(service, "maskingEnabled", true);
+    }
+
+    @Test
+    void cacheHitEmitsDeltaAndDone() {
+        when(translationCache.get(anyString())).thenReturn("晚安 {0}");
+
+        assertThat(events(request("Good night @bob"))).containsExactly("delta:晚安 @bob", "done:晚安 @bob");
+        verify(engineRouter, never()).translateStream(anyString(), anyString(), anyString(), any());
+        verify(deviceRateLimiter, never()).checkUpstream(any(), anyInt());
+    }
+
+    @Test
+    void missStreamsRestoredDeltasAndCachesMaskedTranslation() {
+        when(engineRouter.translateStream(eq("Good night {0}"), eq("en"), eq("zh"), any()))
+                .thenReturn(Flux.just("晚安 ", "{", "0}"));
+
+        // 被拆开的占位符等到完整后再还原发送
+        assertThat(events(request("Good night @bob"))).containsExactly("delta:晚安 ", "delta:@bob", "done:晚安 @bob");
+        verify(translationCache).put(anyString(), eq("晚安 {0}"));
+        verify(translationMemory).remember("Good night {0}", "en", "zh", "晚安 {0}");
+    }
+
+    @Test
+    void translationWithBrokenPlaceholdersIsNotCached() {
+        when(engineRouter.translateStream(anyString(), anyString(), anyString(), any())).thenReturn(Flux.just("晚安"));
+
+        assertThat(events(request("Good night @bob"))).containsExactly("delta:晚安", "done:晚安");
+        verify(translationCache, never()).put(anyString(), anyString());
+    }
+
+    @Test
+    void upstreamFailureEmitsErrorEvent() {
+        when(engineRouter.translateStream(anyString(), anyString(), anyString(), any()))
+                .thenReturn(Flux.concat(Flux.just("晚"), Flux.error(new IOException("connection reset"))));
+
+        List<String> events = events(request("Good night @bob"));
+
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0)).isEqualTo("delta:晚");
+        assertThat(events.get(1)).startsWith("error:").contains("connection reset");
+        verify(translationCache, never()).put(anyString(), anyString());
+    }
+
+    @Test
+    void emptyUpstreamEmitsErrorEvent() {
+        when(engineRouter.translateStream(anyString(), anyString(), anyString(), any())).thenReturn(Flux.empty());
+
+        assertThat(events(request("Good night @bob"))).containsExactly("error:翻译失败：API 返回为空");
+    }
+
+    @Test
+    void rateLimitIsRaisedBeforeStreaming() {
+        doThrow(new RateLimitExceededException("翻译请求过于频繁，请稍后再试"))
+                .when(deviceRateLimiter).checkUpstream(any(), anyInt());
+
+        assertThatThrownBy(() -> service.translateStream(request("Good night @bob")))
+                .isInstanceOf(RateLimitExceededException.class);
+        verify(engineRouter, never()).translateStream(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void textWithoutLettersIsReturnedAsIs() {
+        assertThat(events(request("👍 123"))).containsExactly("delta:👍 123", "done:👍 123");
+        verify(translationCache, never()).get(anyString());
+    }
+
+    @Test
+    void missingParametersEmitSingleError() {
+        TranslateRequest request = request("Good night");
+        request.setTargetLang(null);
+
+        assertThat(events(request)).containsExactly("error:翻译失败：参数缺失");
+    }
+
+    private static TranslateRequest request(String text) {
+        TranslateRequest request = new TranslateRequest();
+        request.setText(text);
+        request.setSourceLang("en");
+        request.setTargetLang("zh");
+        request.setDeviceId("device-1");
+        return request;
+    }
+
+    private List<String> events(TranslateRequest request) {
+        return service.translateStream(request)
+                .map(event -> event.event() + ":" + event.data())
+                .collectList()
+                .block();
+    }
+}
@@ -0,0 +1,191 @@
+package com.translator.service;
+
+import com.translator.engine.UpstreamGuardRegistry;
+import com.translator.metrics.TranslationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * TranslationSingleFlight：结果共享、失败传递、等待超时与在途记录清理
+ *
+ * @author mac
+ */
+class TranslationSingleFlightTest {
+
+    private TranslationSingleFlight singleFlight;
+    private TranslationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        singleFlight = singleFlight(Duration.ofSeconds(5));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        scheduler = new TranslationScheduler(mock(UpstreamGuardRegistry.class),
+                new TranslationMetrics(meterRegistry), meterRegistry);
+    }
+
+    @Test
+    void followerSharesLeaderResult() throws Exception {
+        TranslationSingleFlight.Flight leader = begin("key");
+        TranslationSingleFlight.Flight follower = begin("key");
+        assertThat(leader.isLeader()).isTrue();
+        assertThat(follower.isLeader()).isFalse();
+
+        CompletableFuture<String> waiting = awaitAsync(follower);
+        leader.complete("你好");
+
+        assertThat(waiting.get(2, TimeUnit.SECONDS)).isEqualTo("你好");
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    @Test
+    void leaderFailurePropagatesToFollowers() {
+        TranslationSingleFlight.Flight leader = begin("key");
+        TranslationSingleFlight.Flight follower = begin("key");
+
+        leader.fail(new IOException("upstream down"));
+
+        assertThatThrownBy(() -> singleFlight.await(follower))
+                .isInstanceOf(IOException.class)
+                .hasMessage("upstream down");
+        assertThat(singleFlight.inFlightCount()).isZero();
+        // 失败后的新请求重新成为 leader
+        assertThat(begin("key").isLeader()).isTrue();
+    }
+
+    @Test
+    void followerTimeoutRemovesStuckFlight() {
+        singleFlight = singleFlight(Duration.ofMillis(100));
+        TranslationSingleFlight.Flight stuck = begin("key");
+        TranslationSingleFlight.Flight follower = begin("key");
+
+        assertThatThrownBy(() -> singleFlight.await(follower)).isInstanceOf(TimeoutException.class);
+        assertThat(singleFlight.inFlightCount()).isZero();
+
+        TranslationSingleFlight.Flight next = begin("key");
+        assertThat(next.isLeader()).isTrue();
+        // 卡住的 leader 之后完成，不会移除新的在途记录
+        stuck.complete("late");
+        assertThat(singleFlight.inFlightCount()).isEqualTo(1);
+        next.complete("ok");
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    @Test
+    void differentKeysDoNotShareFlights() {
+        assertThat(begin("a").isLeader()).isTrue();
+        assertThat(begin("b").isLeader()).isTrue();
+        assertThat(singleFlight.inFlightCount()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentExecuteCallsLoaderOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<String> loader = () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            release.await(2, TimeUnit.SECONDS);
+            return "ok";
+        };
+
+        Execution first = execute("key", loader);
+        assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+        Execution second = execute("key", loader);
+        second.awaitBlocked();
+        release.countDown();
+
+        assertThat(first.result().get(2, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThat(second.result().get(2, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThat(loads).hasValue(1);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    @Test
+    void rateLimitedLeaderDoesNotFailFollowers() throws Exception {
+        TranslationSingleFlight.Flight limited = begin("key");
+        Execution follower = execute("key", () -> "own result");
+        // 等 follower 进入等待后，leader 因自己设备的配额失败
+        follower.awaitBlocked();
+        limited.fail(new RateLimitExceededException("翻译请求过于频繁，请稍后再试"));
+
+        // follower 重新登记并用自己的配额请求上游，不继承 leader 的限流
+        assertThat(follower.result().get(2, TimeUnit.SECONDS)).isEqualTo("own result");
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    @Test
+    void executeFailureIsRethrownAndCleared() {
+        assertThatThrownBy(() -> singleFlight.execute("key", ticket(), () -> {
+            throw new IOException("boom");
+        })).isInstanceOf(IOException.class);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    private TranslationSingleFlight singleFlight(Duration waitTimeout) {
+        TranslationSingleFlight created = new TranslationSingleFlight();
+        ReflectionTestUtils.setField(created, "waitTimeout", waitTimeout);
+        return created;
+    }
+
+    private TranslationScheduler.Ticket ticket() {
+        return scheduler.ticket(TranslationScheduler.Priority.INTERACTIVE);
+    }
+
+    private TranslationSingleFlight.Flight begin(String key) {
+        return singleFlight.begin(key, ticket());
+    }
+
+    private CompletableFuture<String> awaitAsync(TranslationSingleFlight.Flight flight) {
+        return execute(() -> singleFlight.await(flight)).result();
+    }
+
+    private Execution execute(String key, Callable<String> loader) {
+        return execute(() -> singleFlight.execute(key, ticket(), loader));
+    }
+
+    private static Execution execute(Callable<String> task) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        thread.start();
+        return new Execution(thread, result);
+    }
+
+    /**
+     * 在独立线程中执行的调用
+     */
+    private record Execution(Thread thread, CompletableFuture<String> result) {
+
+        /**
+         * 等待线程进入带超时的等待（follower 正在等待 leader 的结果）
+         */
+        void awaitBlocked() throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 2000;
+            while (thread.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(thread.getState()).isEqualTo(Thread.State.TIMED_WAITING);
+        }
+    }
+}
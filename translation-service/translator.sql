@@ -31,7 +31,8 @@ CREATE TABLE `activation_codes` (
   `expire_at` datetime DEFAULT NULL COMMENT '授权到期时间',
   `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '后台生成激活码的时间',
   PRIMARY KEY (`id`),
-  UNIQUE KEY `code` (`code`)
+  UNIQUE KEY `code` (`code`),
+  KEY `idx_created_at` (`created_at`)
 ) ENGINE=InnoDB AUTO_INCREMENT=2 DEFAULT CHARSET=utf8mb4 COMMENT='激活码授权管理表';
 
 -- ----------------------------